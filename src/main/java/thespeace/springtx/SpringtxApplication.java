@@ -2,7 +2,12 @@ package thespeace.springtx;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import thespeace.springtx.id.BlockSequenceRuntimeHints;
 
+@EnableScheduling
+@ImportRuntimeHints(BlockSequenceRuntimeHints.class)
 @SpringBootApplication
 public class SpringtxApplication {
 
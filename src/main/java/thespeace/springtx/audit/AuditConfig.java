@@ -0,0 +1,56 @@
+package thespeace.springtx.audit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import thespeace.springtx.propagation.MemberRepository;
+
+import javax.sql.DataSource;
+
+/**
+ * <h2>감사 로그 DB 분리 설정</h2>
+ * springtx.audit.enabled=true 일 때만 적용된다. 회원은 기본 DB, 감사 로그는 springtx.audit.url DB에 저장하고
+ * {@link ChainedTransactionCoordinator} 로 두 DB의 커밋 순서를 맞춘다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.audit.enabled", havingValue = "true")
+public class AuditConfig {
+
+    @Bean
+    AuditDatabase auditDatabase(@Value("${springtx.audit.url}") String url,
+                                @Value("${springtx.audit.username:sa}") String username,
+                                @Value("${springtx.audit.password:}") String password,
+                                @Value("${springtx.audit.max-connections:10}") int maxConnections) {
+        return new AuditDatabase(url, username, password, maxConnections);
+    }
+
+    @Bean
+    AuditJournal auditJournal(DataSource dataSource) {
+        return new AuditJournal(dataSource);
+    }
+
+    @Bean
+    ChainedTransactionCoordinator chainedTransactionCoordinator(PlatformTransactionManager transactionManager,
+                                                                AuditDatabase auditDatabase, AuditJournal auditJournal) {
+        return new ChainedTransactionCoordinator(transactionManager, auditDatabase.transactionManager(), auditJournal);
+    }
+
+    @Bean
+    AuditLogRepository auditLogRepository(AuditDatabase auditDatabase, AuditJournal auditJournal,
+                                          ChainedTransactionCoordinator coordinator) {
+        return new AuditLogRepository(auditDatabase, auditJournal, coordinator);
+    }
+
+    @Bean
+    ChainedMemberService chainedMemberService(ChainedTransactionCoordinator coordinator,
+                                              MemberRepository memberRepository, AuditLogRepository auditLogRepository) {
+        return new ChainedMemberService(coordinator, memberRepository, auditLogRepository);
+    }
+
+    @Bean
+    AuditRecovery auditRecovery(AuditJournal auditJournal, AuditLogRepository auditLogRepository) {
+        return new AuditRecovery(auditJournal, auditLogRepository);
+    }
+}
@@ -0,0 +1,55 @@
+package thespeace.springtx.audit;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import javax.sql.DataSource;
+
+/**
+ * <h2>감사 로그 전용 DB</h2>
+ * DataSource 와 트랜잭션 매니저를 빈으로 등록하지 않고 내부에 가진다.
+ * 빈으로 등록하면 스프링 부트가 기본 DataSource, JpaTransactionManager 자동 구성을 건너뛰기 때문이다.
+ */
+@Slf4j
+public class AuditDatabase implements DisposableBean {
+
+    private final HikariDataSource dataSource;
+    private final DataSourceTransactionManager transactionManager;
+    private final JdbcTemplate jdbcTemplate;
+
+    public AuditDatabase(String url, String username, String password, int maxConnections) {
+        dataSource = new HikariDataSource();
+        dataSource.setPoolName("audit");
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(maxConnections);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.execute("create table if not exists audit_log "
+                + "(tx_id varchar(36) primary key, message varchar(255), created_at timestamp)");
+        jdbcTemplate.execute("create index if not exists idx_audit_log_message on audit_log (message)");
+        log.info("감사 로그 DB 연결 url={}", url);
+    }
+
+    DataSource dataSource() {
+        return dataSource;
+    }
+
+    DataSourceTransactionManager transactionManager() {
+        return transactionManager;
+    }
+
+    JdbcTemplate jdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    @Override
+    public void destroy() {
+        dataSource.close();
+    }
+}
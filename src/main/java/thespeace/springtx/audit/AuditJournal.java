@@ -0,0 +1,108 @@
+package thespeace.springtx.audit;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <h2>체인 트랜잭션 저널 (기본 DB)</h2>
+ * 감사 로그를 쓸 때 같은 내용을 기본 DB 트랜잭션 안에 함께 기록한다. 기본 DB가 먼저 커밋되므로,
+ * 감사 DB 커밋이 실패하더라도 저널에 남은 기록으로 감사 로그를 다시 쓸 수 있다.
+ * <ul>
+ *     <li>감사 DB 커밋까지 성공한 기록은 바로 지우지 않고 완료 목록에 모아 둔다. ({@link #complete(String)})
+ *         지우기 위해 커밋을 한 번 더 하면 체인 트랜잭션마다 기본 DB 디스크 기록이 하나 늘어나기 때문이다.</li>
+ *     <li>모아 둔 기록은 다음 체인 트랜잭션이 저널을 기록할 때 같은 기본 DB 트랜잭션 안에서 한 번의 DELETE 로 지운다.
+ *         그 트랜잭션이 롤백되면 완료 목록에 되돌려 놓는다.</li>
+ *     <li>지우기 전에 프로세스가 종료되면 기록이 남지만, {@link AuditRecovery} 는 감사 로그가 이미 있는 기록을 다시 쓰지 않고 지운다.</li>
+ * </ul>
+ */
+public class AuditJournal {
+
+    private static final int MAX_PURGE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Set<String> completed = ConcurrentHashMap.newKeySet();
+
+    public AuditJournal(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists chained_tx_journal "
+                + "(tx_id varchar(36) primary key, message varchar(255), created_at timestamp)");
+    }
+
+    /**
+     * 진행 중인 기본 DB 트랜잭션에 참여해서 기록한다. 완료 목록에 모인 기록도 이 트랜잭션에서 지운다.
+     */
+    void record(String txId, String message, LocalDateTime createdAt) {
+        purgeCompleted();
+        jdbcTemplate.update("insert into chained_tx_journal (tx_id, message, created_at) values (?, ?, ?)",
+                txId, message, Timestamp.valueOf(createdAt));
+    }
+
+    /**
+     * 감사 DB 커밋까지 끝난 기록. 다음 {@link #record} 때 지운다.
+     */
+    void complete(String txId) {
+        completed.add(txId);
+    }
+
+    /**
+     * 바로 지운다. (복구)
+     */
+    void delete(String txId) {
+        jdbcTemplate.update("delete from chained_tx_journal where tx_id = ?", txId);
+        completed.remove(txId);
+    }
+
+    /**
+     * 감사 DB 커밋이 끝나지 않은 기록
+     */
+    List<Entry> pending() {
+        return entries().stream().filter(entry -> !completed.contains(entry.txId())).toList();
+    }
+
+    /**
+     * 아직 지우지 않은 모든 기록 (완료 목록 포함)
+     */
+    List<Entry> entries() {
+        return jdbcTemplate.query("select tx_id, message, created_at from chained_tx_journal order by created_at",
+                (rs, rowNum) -> new Entry(rs.getString(1), rs.getString(2), rs.getTimestamp(3).toLocalDateTime()));
+    }
+
+    private void purgeCompleted() {
+        List<String> txIds = new ArrayList<>();
+        for (Iterator<String> iterator = completed.iterator(); iterator.hasNext() && txIds.size() < MAX_PURGE; ) {
+            String txId = iterator.next();
+            if (completed.remove(txId)) {
+                txIds.add(txId);
+            }
+        }
+        if (txIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update("delete from chained_tx_journal where tx_id in ("
+                + String.join(", ", Collections.nCopies(txIds.size(), "?")) + ")", txIds.toArray());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        completed.addAll(txIds);
+                    }
+                }
+            });
+        }
+    }
+
+    record Entry(String txId, String message, LocalDateTime createdAt) {
+    }
+}
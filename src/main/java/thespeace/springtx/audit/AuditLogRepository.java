@@ -0,0 +1,58 @@
+package thespeace.springtx.audit;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * <h2>감사 로그 리포지토리 (감사 DB)</h2>
+ * {@link thespeace.springtx.propagation.LogRepository} 와 마찬가지로 `로그예외` 가 포함되면 예외를 발생시킨다.
+ * 저장은 {@link ChainedTransactionCoordinator} 의 체인 트랜잭션 안에서만 할 수 있다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class AuditLogRepository {
+
+    private final AuditDatabase auditDatabase;
+    private final AuditJournal journal;
+    private final ChainedTransactionCoordinator coordinator;
+
+    public void save(String message) {
+        String txId = coordinator.currentTxId();
+        log.info("감사 로그 저장");
+        if (message.contains("로그예외")) {
+            log.info("감사 로그 저장시 예외 발생");
+            throw new RuntimeException("예외 발생");
+        }
+        LocalDateTime createdAt = LocalDateTime.now();
+        insert(txId, message, createdAt);
+        journal.record(txId, message, createdAt);
+    }
+
+    public boolean exists(String message) {
+        return auditDatabase.jdbcTemplate()
+                .queryForObject("select count(*) from audit_log where message = ?", Long.class, message) > 0;
+    }
+
+    /**
+     * 저널에 남은 기록으로 감사 로그를 다시 쓴다. 이미 있으면 아무것도 하지 않는다.
+     *
+     * @return 새로 쓴 경우 true
+     */
+    boolean redo(AuditJournal.Entry entry) {
+        Long count = auditDatabase.jdbcTemplate()
+                .queryForObject("select count(*) from audit_log where tx_id = ?", Long.class, entry.txId());
+        if (count > 0) {
+            return false;
+        }
+        insert(entry.txId(), entry.message(), entry.createdAt());
+        return true;
+    }
+
+    private void insert(String txId, String message, LocalDateTime createdAt) {
+        auditDatabase.jdbcTemplate().update("insert into audit_log (tx_id, message, created_at) values (?, ?, ?)",
+                txId, message, Timestamp.valueOf(createdAt));
+    }
+}
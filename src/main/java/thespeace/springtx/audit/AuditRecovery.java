@@ -0,0 +1,42 @@
+package thespeace.springtx.audit;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+/**
+ * <h2>체인 트랜잭션 복구</h2>
+ * 애플리케이션이 시작되면 저널에 남은 기록(기본 DB만 커밋된 트랜잭션)으로 감사 로그를 다시 쓰고 저널을 지운다.
+ * 같은 트랜잭션 ID로는 한 번만 쓰므로 여러 번 실행해도 된다.
+ * 감사 DB까지 커밋되었지만 아직 지우지 않은 기록({@link AuditJournal#complete})은 감사 로그가 이미 있으므로 지우기만 한다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class AuditRecovery {
+
+    private final AuditJournal journal;
+    private final AuditLogRepository auditLogRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        recover();
+    }
+
+    /**
+     * @return 다시 쓴 감사 로그 수
+     */
+    public int recover() {
+        int redone = 0;
+        for (AuditJournal.Entry entry : journal.entries()) {
+            if (auditLogRepository.redo(entry)) {
+                redone++;
+            }
+            journal.delete(entry.txId());
+        }
+        if (redone > 0) {
+            log.info("감사 로그 복구 redone={}", redone);
+        }
+        return redone;
+    }
+}
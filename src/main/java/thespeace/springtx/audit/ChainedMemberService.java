@@ -0,0 +1,42 @@
+package thespeace.springtx.audit;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import thespeace.springtx.propagation.Member;
+import thespeace.springtx.propagation.MemberRepository;
+
+/**
+ * <h2>회원(기본 DB)과 감사 로그(감사 DB)를 함께 남기는 비즈니스 로직</h2>
+ * {@link thespeace.springtx.propagation.MemberService} 와 같은 결과를 체인 트랜잭션으로 보장한다.
+ * <ul>
+ *     <li>joinV1 : 감사 로그 저장에 실패하면 회원도 롤백된다.</li>
+ *     <li>joinV2 : 감사 로그 저장 실패를 복구하고 회원은 커밋된다.</li>
+ * </ul>
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ChainedMemberService {
+
+    private final ChainedTransactionCoordinator coordinator;
+    private final MemberRepository memberRepository;
+    private final AuditLogRepository auditLogRepository;
+
+    public void joinV1(String username) {
+        coordinator.execute(txId -> {
+            memberRepository.save(new Member(username));
+            auditLogRepository.save(username);
+        });
+    }
+
+    public void joinV2(String username) {
+        coordinator.execute(txId -> {
+            memberRepository.save(new Member(username));
+            try {
+                auditLogRepository.save(username);
+            } catch (RuntimeException e) {
+                log.info("감사 로그 저장에 실패했습니다. message={}", username);
+                log.info("정상 흐름 반환");
+            }
+        });
+    }
+}
@@ -0,0 +1,116 @@
+package thespeace.springtx.audit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * <h2>최선 노력 1단계 커밋(best-effort 1PC) 체인 트랜잭션</h2>
+ * 기본 DB(회원)와 감사 DB(로그)의 로컬 트랜잭션을 차례로 시작하고, 정해진 순서로 커밋한다.
+ * 스프링은 새 트랜잭션을 시작할 때 앞선 트랜잭션의 동기화를 보류(suspend)하므로, 시작의 역순으로 완료해야 한다.
+ * <ol>
+ *     <li>감사 DB 트랜잭션 시작 → 기본 DB 트랜잭션 시작</li>
+ *     <li>작업 실행. 예외가 발생하면 두 트랜잭션을 모두 롤백한다. (joinV1 의 롤백 보장 유지)</li>
+ *     <li>기본 DB 커밋 (회원 + 저널). 실패하면 감사 DB를 롤백한다.</li>
+ *     <li>감사 DB 커밋. 성공하면 저널 기록을 완료로 표시한다. 기록은 다음 체인 트랜잭션의 기본 DB 커밋에서 함께 지워진다.</li>
+ * </ol>
+ * 2단계 커밋(XA)처럼 prepare 단계와 코디네이터 로그 강제 기록이 없어서 커밋 왕복이 적다.
+ * 체인 트랜잭션 하나는 기본 DB와 감사 DB에 커밋을 한 번씩만 한다. (저널 삭제를 위한 별도 커밋이 없다.)
+ * 대신 3과 4 사이에서 실패하면 두 DB가 잠시 어긋나고, 남은 저널로 {@link AuditRecovery} 가 감사 로그를 다시 쓴다.
+ */
+@Slf4j
+public class ChainedTransactionCoordinator {
+
+    private static final ThreadLocal<String> CURRENT_TX_ID = new ThreadLocal<>();
+
+    private final PlatformTransactionManager primary;
+    private final PlatformTransactionManager audit;
+    private final AuditJournal journal;
+    private final AtomicLong partialFailures = new AtomicLong();
+
+    public ChainedTransactionCoordinator(PlatformTransactionManager primary, PlatformTransactionManager audit,
+                                         AuditJournal journal) {
+        this.primary = primary;
+        this.audit = audit;
+        this.journal = journal;
+    }
+
+    public void execute(Consumer<String> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("체인 트랜잭션은 다른 트랜잭션 안에서 시작할 수 없습니다.");
+        }
+        String txId = UUID.randomUUID().toString();
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+        definition.setName(ChainedTransactionCoordinator.class.getSimpleName() + ".execute");
+
+        TransactionStatus auditStatus = audit.getTransaction(definition);
+        TransactionStatus primaryStatus;
+        try {
+            primaryStatus = primary.getTransaction(definition);
+        } catch (RuntimeException | Error e) {
+            audit.rollback(auditStatus);
+            throw e;
+        }
+
+        CURRENT_TX_ID.set(txId);
+        try {
+            work.accept(txId);
+        } catch (RuntimeException | Error e) {
+            log.info("체인 트랜잭션 롤백 txId={}", txId);
+            rollbackQuietly(primary, primaryStatus);
+            audit.rollback(auditStatus);
+            throw e;
+        } finally {
+            CURRENT_TX_ID.remove();
+        }
+
+        try {
+            primary.commit(primaryStatus);
+        } catch (RuntimeException | Error e) {
+            log.info("기본 DB 커밋 실패, 감사 DB 롤백 txId={}", txId);
+            rollbackQuietly(audit, auditStatus);
+            throw e;
+        }
+
+        try {
+            audit.commit(auditStatus);
+        } catch (RuntimeException e) {
+            partialFailures.incrementAndGet();
+            log.warn("감사 DB 커밋 실패. 저널로 복구합니다. txId={}", txId, e);
+            return;
+        }
+        journal.complete(txId);
+    }
+
+    /**
+     * 현재 체인 트랜잭션의 ID. 감사 로그와 저널을 연결한다.
+     */
+    String currentTxId() {
+        String txId = CURRENT_TX_ID.get();
+        if (txId == null) {
+            throw new IllegalStateException("체인 트랜잭션 안에서만 호출할 수 있습니다.");
+        }
+        return txId;
+    }
+
+    /**
+     * 기본 DB는 커밋되고 감사 DB 커밋이 실패한 횟수
+     */
+    public long partialFailures() {
+        return partialFailures.get();
+    }
+
+    private void rollbackQuietly(PlatformTransactionManager transactionManager, TransactionStatus status) {
+        try {
+            transactionManager.rollback(status);
+        } catch (RuntimeException e) {
+            log.warn("롤백 실패", e);
+        }
+    }
+}
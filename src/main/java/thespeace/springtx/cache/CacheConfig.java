@@ -0,0 +1,51 @@
+package thespeace.springtx.cache;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import thespeace.springtx.propagation.MemberView;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * <h2>로컬 캐시와 무효화 버스 설정</h2>
+ * springtx.cache.enabled=true 일 때만 적용된다. 이때 MemberRepository.findView 결과를 트랜잭션 밖에서 캐시한다.
+ * <pre>
+ * springtx.cache.enabled=true
+ * springtx.cache.node-id=node-1            #지정하지 않으면 임의로 만든다.
+ * springtx.cache.member.max-entries=10000
+ * springtx.cache.member.ttl=10m           #무효화를 놓쳐도 이 시간이 지나면 다시 조회한다.
+ * springtx.cache.clock-skew=50ms
+ * springtx.cache.tombstone-retention=60s
+ * </pre>
+ * 전송 방식({@link InvalidationTransport}) 빈을 등록하면 {@link LoopbackTransport} 대신 사용한다.
+ * 기본 전송 방식은 빈으로 등록하지 않고 버스를 만들 때 정한다. 컴포넌트 스캔되는 설정에서 @ConditionalOnMissingBean 은
+ * 빈 등록 순서에 따라 결과가 달라지기 때문이다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.cache.enabled", havingValue = "true")
+public class CacheConfig {
+
+    public static final String MEMBER_VIEW = "member-view";
+
+    @Bean
+    InvalidationBus invalidationBus(ObjectProvider<InvalidationTransport> transport,
+                                    VersionedCache<MemberView> memberViewCache,
+                                    @Value("${springtx.cache.node-id:}") String node) {
+        InvalidationBus bus = new InvalidationBus(node.isBlank() ? UUID.randomUUID().toString() : node,
+                transport.getIfAvailable(LoopbackTransport::new));
+        bus.register(memberViewCache);
+        return bus;
+    }
+
+    @Bean
+    VersionedCache<MemberView> memberViewCache(@Value("${springtx.cache.member.max-entries:10000}") int maxEntries,
+                                               @Value("${springtx.cache.member.ttl:10m}") Duration ttl,
+                                               @Value("${springtx.cache.clock-skew:50ms}") Duration clockSkew,
+                                               @Value("${springtx.cache.tombstone-retention:60s}") Duration tombstoneRetention) {
+        return new VersionedCache<>(MEMBER_VIEW, maxEntries, ttl, clockSkew, tombstoneRetention);
+    }
+}
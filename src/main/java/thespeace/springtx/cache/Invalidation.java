@@ -0,0 +1,13 @@
+package thespeace.springtx.cache;
+
+import java.util.Set;
+
+/**
+ * <h2>캐시 무효화 메시지</h2>
+ * 트랜잭션 하나가 바꾼 키를 캐시별로 한 메시지에 모은다.
+ *
+ * @param node    메시지를 보낸 노드. 자기가 보낸 메시지는 무시한다.
+ * @param version 보낸 노드의 커밋 시각(epoch 마이크로초). {@link VersionedCache} 가 늦게 도착한 메시지를 판단하는 데 사용한다.
+ */
+public record Invalidation(String node, String cache, Set<String> keys, long version) {
+}
@@ -0,0 +1,215 @@
+package thespeace.springtx.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h2>트랜잭션을 인식하는 캐시 무효화 버스</h2>
+ * 여러 노드가 각자 로컬 캐시({@link VersionedCache})를 가질 때, 한 노드의 변경을 다른 노드의 캐시에서 지운다.
+ * <ul>
+ *     <li>트랜잭션 안에서 요청한 무효화는 모아 두었다가 커밋된 뒤에만 보낸다. 롤백되면 보내지 않는다.
+ *         커밋 전에 지우면 다른 노드가 커밋 전 값을 다시 읽어 캐시할 수 있기 때문이다.</li>
+ *     <li>트랜잭션 하나의 무효화는 캐시별로 메시지 하나로 보낸다.</li>
+ *     <li>받은 메시지는 쓰기 스레드 하나가 처리한다. 밀려 있는 메시지는 한 번에 꺼내서 함께 지운다.</li>
+ * </ul>
+ * 전송 방식은 {@link InvalidationTransport} 로 바꿀 수 있다.
+ */
+@Slf4j
+public class InvalidationBus implements SmartLifecycle {
+
+    private static final long PURGE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final String node;
+    private final InvalidationTransport transport;
+    private final Map<String, VersionedCache<?>> caches = new ConcurrentHashMap<>();
+    private final BlockingQueue<Invalidation> received = new LinkedBlockingQueue<>();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private volatile boolean running;
+    private Thread worker;
+    private long lastPurge = System.nanoTime();
+
+    public InvalidationBus(String node, InvalidationTransport transport) {
+        this.node = node;
+        this.transport = transport;
+        transport.subscribe(this::receive);
+    }
+
+    public void register(VersionedCache<?> cache) {
+        caches.put(cache.name(), cache);
+    }
+
+    public String node() {
+        return node;
+    }
+
+    public InvalidationTransport transport() {
+        return transport;
+    }
+
+    /**
+     * 현재 트랜잭션이 커밋되면 key 를 이 노드와 다른 노드의 캐시에서 지운다. 트랜잭션 밖이면 바로 지운다.
+     */
+    public void invalidateAfterCommit(String cache, String key) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(Map.of(cache, Set.of(key)));
+            return;
+        }
+        pendingInvalidations().add(cache, key);
+    }
+
+    private PendingInvalidations pendingInvalidations() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingInvalidations pending && pending.bus == this) {
+                return pending;
+            }
+        }
+        PendingInvalidations pending = new PendingInvalidations(this);
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private void publish(Map<String, Set<String>> keysByCache) {
+        long version = VersionedCache.now();
+        keysByCache.forEach((cache, keys) -> {
+            evict(cache, keys, version);
+            transport.publish(new Invalidation(node, cache, keys, version));
+            published.increment();
+        });
+    }
+
+    private void receive(Invalidation invalidation) {
+        if (!node.equals(invalidation.node())) {
+            received.add(invalidation);
+        }
+    }
+
+    private void evict(String cache, Set<String> keys, long version) {
+        VersionedCache<?> target = caches.get(cache);
+        if (target != null) {
+            target.evict(keys, version);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        worker = new Thread(this::applyLoop, "cache-invalidation-" + node);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 받았지만 아직 처리하지 않은 메시지 수
+     */
+    public int pending() {
+        return received.size();
+    }
+
+    public long published() {
+        return published.sum();
+    }
+
+    /**
+     * 다른 노드에서 받아 처리한 메시지 수
+     */
+    public long applied() {
+        return applied.sum();
+    }
+
+    /**
+     * 받은 메시지를 처리한 횟수. 메시지가 밀려 있으면 여러 메시지를 한 번에 처리하므로 applied 보다 작다.
+     */
+    public long batches() {
+        return batches.sum();
+    }
+
+    private void applyLoop() {
+        List<Invalidation> batch = new ArrayList<>();
+        while (running) {
+            try {
+                Invalidation first = received.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    received.drainTo(batch);
+                    apply(batch);
+                    batch.clear();
+                }
+                purgeTombstones();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.warn("캐시 무효화 처리 실패", e);
+                batch.clear();
+            }
+        }
+    }
+
+    private void apply(List<Invalidation> batch) {
+        for (Invalidation invalidation : batch) {
+            evict(invalidation.cache(), invalidation.keys(), invalidation.version());
+        }
+        applied.add(batch.size());
+        batches.increment();
+    }
+
+    private void purgeTombstones() {
+        if (System.nanoTime() - lastPurge > PURGE_INTERVAL_NANOS) {
+            caches.values().forEach(VersionedCache::purgeTombstones);
+            lastPurge = System.nanoTime();
+        }
+    }
+
+    /**
+     * 트랜잭션 하나에서 모은 무효화 키
+     */
+    private static class PendingInvalidations implements TransactionSynchronization {
+
+        private final InvalidationBus bus;
+        private final Map<String, Set<String>> keysByCache = new HashMap<>();
+
+        PendingInvalidations(InvalidationBus bus) {
+            this.bus = bus;
+        }
+
+        void add(String cache, String key) {
+            keysByCache.computeIfAbsent(cache, c -> new LinkedHashSet<>()).add(key);
+        }
+
+        @Override
+        public void afterCommit() {
+            bus.publish(keysByCache);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            keysByCache.clear();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package thespeace.springtx.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * <h2>노드 사이에 무효화 메시지를 전달하는 전송 방식</h2>
+ * 메시지 브로커, 멀티캐스트 등으로 구현한다. 보낸 노드에게 다시 전달되어도 된다. (버스가 무시한다.)
+ * 기본 구현은 같은 JVM 안에서만 전달하는 {@link LoopbackTransport} 이다.
+ */
+public interface InvalidationTransport {
+
+    void publish(Invalidation invalidation);
+
+    void subscribe(Consumer<Invalidation> receiver);
+}
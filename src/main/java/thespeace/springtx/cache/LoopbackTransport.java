@@ -0,0 +1,24 @@
+package thespeace.springtx.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * <h2>같은 JVM 안의 전송 방식</h2>
+ * 구독한 모든 버스에 메시지를 바로(보낸 스레드에서) 전달한다. 노드가 하나이거나, 한 JVM 에서 여러 노드를 흉내 내는 테스트에 사용한다.
+ */
+public class LoopbackTransport implements InvalidationTransport {
+
+    private final List<Consumer<Invalidation>> receivers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(Invalidation invalidation) {
+        receivers.forEach(receiver -> receiver.accept(invalidation));
+    }
+
+    @Override
+    public void subscribe(Consumer<Invalidation> receiver) {
+        receivers.add(receiver);
+    }
+}
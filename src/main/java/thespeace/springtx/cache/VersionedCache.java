@@ -0,0 +1,130 @@
+package thespeace.springtx.cache;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * <h2>버전으로 늦은 무효화와 늦은 적재를 걸러내는 로컬 캐시</h2>
+ * 버전은 시각(epoch 마이크로초)이다. 항목에는 적재를 시작한 시각을, 무효화에는 변경을 커밋한 시각을 쓴다.
+ * <ul>
+ *     <li>늦은 적재: 적재하는 동안 같은 키가 무효화되었으면(커밋 시각 ≥ 적재 시작 시각) 읽은 값이 오래된 것일 수 있으므로 캐시에 넣지 않는다.</li>
+ *     <li>늦은 무효화: 커밋보다 나중에 적재를 시작한 항목은 이미 변경을 반영하고 있으므로 지우지 않는다.</li>
+ * </ul>
+ * 노드 사이의 시계 차이는 clockSkew 만큼 허용한다. 판단이 애매하면 항상 지우는 쪽(캐시하지 않는 쪽)을 택한다.
+ * 무효화 기록(tombstone)은 tombstoneRetention 동안만 보관한다. 적재가 이보다 오래 걸리면 늦은 적재를 걸러내지 못한다.<br>
+ * 항목은 ttl 이 지나면 다시 적재한다. 무효화 메시지를 놓쳐도(다른 경로의 변경, 전송 유실) 오래된 값이 ttl 보다 오래 남지 않는다.<br>
+ * 항목이 maxEntries 개 차면 새 항목을 넣기 전에 항목 몇 개(EVICTION_SAMPLE)를 살펴보고 가장 오래전에 적재한 항목을 지운다. (근사 FIFO)
+ */
+public class VersionedCache<V> {
+
+    private static final int EVICTION_SAMPLE = 8;
+
+    private final String name;
+    private final int maxEntries;
+    private final long ttl;
+    private final long clockSkew;
+    private final long tombstoneRetention;
+    private final Map<String, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Map<String, Long> tombstones = new ConcurrentHashMap<>();
+
+    public VersionedCache(String name, int maxEntries, Duration ttl, Duration clockSkew, Duration tombstoneRetention) {
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.ttl = toMicros(ttl);
+        this.clockSkew = toMicros(clockSkew);
+        this.tombstoneRetention = toMicros(tombstoneRetention);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * 캐시에 없거나 ttl 이 지났으면 loader 로 읽는다. 값이 없는 결과(Optional.empty)도 캐시한다.
+     */
+    public Optional<V> get(String key, Function<String, Optional<V>> loader) {
+        long loadVersion = now();
+        Entry<V> cached = entries.get(key);
+        if (cached != null) {
+            if (loadVersion - cached.version() <= ttl) {
+                return cached.value();
+            }
+            entries.remove(key, cached);
+        }
+        Optional<V> value = loader.apply(key);
+        if (entries.size() >= maxEntries) {
+            evictOldest();
+        }
+        entries.compute(key, (k, current) -> {
+            Long invalidated = tombstones.get(k);
+            if (invalidated != null && invalidated + clockSkew >= loadVersion) {
+                return current; //적재 중에 변경되었다.
+            }
+            return current != null && current.version() > loadVersion ? current : new Entry<>(value, loadVersion);
+        });
+        return value;
+    }
+
+    /**
+     * 앞쪽 항목 몇 개 중 가장 오래전에 적재한 항목을 지운다. 동시에 적재하면 잠시 maxEntries 를 조금 넘을 수 있다.
+     */
+    private void evictOldest() {
+        Map.Entry<String, Entry<V>> oldest = null;
+        Iterator<Map.Entry<String, Entry<V>>> iterator = entries.entrySet().iterator();
+        for (int i = 0; i < EVICTION_SAMPLE && iterator.hasNext(); i++) {
+            Map.Entry<String, Entry<V>> candidate = iterator.next();
+            if (oldest == null || candidate.getValue().version() < oldest.getValue().version()) {
+                oldest = candidate;
+            }
+        }
+        if (oldest != null) {
+            entries.remove(oldest.getKey(), oldest.getValue());
+        }
+    }
+
+    /**
+     * keys 를 한 번에 무효화한다.
+     *
+     * @param version 변경을 커밋한 시각
+     */
+    public void evict(Collection<String> keys, long version) {
+        for (String key : keys) {
+            tombstones.merge(key, version, Math::max);
+            entries.computeIfPresent(key, (k, entry) -> entry.version() > version + clockSkew ? entry : null);
+        }
+    }
+
+    /**
+     * 보관 기간이 지난 무효화 기록을 지운다.
+     */
+    public void purgeTombstones() {
+        long expired = now() - tombstoneRetention;
+        tombstones.values().removeIf(version -> version < expired);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    static long now() {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+    }
+
+    private static long toMicros(Duration duration) {
+        return duration.toNanos() / 1000;
+    }
+
+    private record Entry<V>(Optional<V> value, long version) {
+    }
+}
@@ -0,0 +1,24 @@
+package thespeace.springtx.cdc;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * <h2>변경 피드 설정</h2>
+ * springtx.cdc.enabled=true 일 때만 적용된다.
+ * <pre>
+ * springtx.cdc.enabled=true
+ * springtx.cdc.capacity=10000   #보관하는 최근 변경 수. 이보다 오래된 위치부터는 다시 읽을 수 없다.
+ * </pre>
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.cdc.enabled", havingValue = "true")
+public class CdcConfig {
+
+    @Bean
+    ChangeFeed changeFeed(@Value("${springtx.cdc.capacity:10000}") int capacity) {
+        return new ChangeFeed(capacity);
+    }
+}
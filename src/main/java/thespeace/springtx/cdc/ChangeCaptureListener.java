@@ -0,0 +1,28 @@
+package thespeace.springtx.cdc;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * <h2>엔티티 저장, 변경을 변경 피드에 넘기는 엔티티 리스너</h2>
+ * 피드({@link ChangeFeed})를 사용하지 않으면(springtx.cdc.enabled=false) 아무것도 하지 않는다.<br>
+ * JPQL 벌크 수정, 삭제는 엔티티를 거치지 않으므로 여기로 오지 않는다.
+ * 벌크 작업({@link thespeace.springtx.order.OrderBulkJob})이 청크의 id 목록을 {@link ChangeFeed#captureBulk} 로 직접 넘긴다.
+ */
+@RequiredArgsConstructor
+public class ChangeCaptureListener {
+
+    private final ObjectProvider<ChangeFeed> changeFeed;
+
+    @PostPersist
+    void inserted(Object entity) {
+        changeFeed.ifAvailable(feed -> feed.capture(ChangeType.INSERT, entity));
+    }
+
+    @PostUpdate
+    void updated(Object entity) {
+        changeFeed.ifAvailable(feed -> feed.capture(ChangeType.UPDATE, entity));
+    }
+}
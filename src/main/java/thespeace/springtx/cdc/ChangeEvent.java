@@ -0,0 +1,17 @@
+package thespeace.springtx.cdc;
+
+import java.time.LocalDateTime;
+
+/**
+ * <h2>커밋된 변경 한 건</h2>
+ * state 는 커밋 시점의 엔티티 값을 복사한 불변 객체이다. (MemberView, LogView, OrderView)
+ * 벌크 수정, 삭제({@link ChangeFeed#captureBulk})로 들어온 변경은 엔티티 값이 없어서 state 가 null 이다.
+ *
+ * @param sequence    피드 안에서 발행(커밋 후 피드에 넣은) 순서대로 증가하는 번호. 1부터 시작한다.
+ * @param entity      엔티티 이름 (Member, Log, Order)
+ * @param tenant      변경한 테넌트
+ * @param committedAt 피드에 들어간 시각
+ */
+public record ChangeEvent(long sequence, ChangeType type, String entity, Long id, String tenant, Object state,
+                          LocalDateTime committedAt) {
+}
@@ -0,0 +1,322 @@
+package thespeace.springtx.cdc;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import thespeace.springtx.order.Order;
+import thespeace.springtx.order.OrderView;
+import thespeace.springtx.propagation.Log;
+import thespeace.springtx.propagation.LogView;
+import thespeace.springtx.propagation.Member;
+import thespeace.springtx.propagation.MemberView;
+import thespeace.springtx.tenant.TenantContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * <h2>커밋된 변경 피드(CDC)</h2>
+ * Member, Log, Order 의 저장, 변경을 테이블을 폴링하지 않고 구독할 수 있게 한다.
+ * <ul>
+ *     <li>트랜잭션 안의 변경은 모아 두었다가 커밋된 뒤에만 피드에 넣는다. 롤백된 변경은 피드에 나타나지 않는다.</li>
+ *     <li>한 트랜잭션에서 같은 엔티티를 여러 번 바꾸면 한 건으로 합친다. (저장 후 변경은 INSERT 한 건)</li>
+ *     <li>변경에는 피드에 들어간(커밋 후 발행한) 순서대로 번호(sequence)를 붙인다. 한 트랜잭션의 변경은 번호가 연속된다.</li>
+ *     <li>번호는 DB 커밋 순서가 아니다. 동시에 커밋한 두 트랜잭션은 커밋 직후 발행 순서에 따라 번호가 뒤바뀔 수 있다.
+ *         커밋 순서를 보장하려면 DB 커밋 자체를 하나씩 줄 세워야 하므로 하지 않는다.
+ *         한 트랜잭션이 커밋된 뒤에 시작한 트랜잭션의 변경은 항상 더 큰 번호를 받는다.</li>
+ *     <li>엔티티를 거치지 않는 벌크 수정, 삭제는 {@link #captureBulk} 로 id 목록을 넘긴다. 이 변경에는 엔티티 값(state)이 없다.</li>
+ *     <li>최근 capacity 개의 변경만 보관한다. 보관 중인 번호부터는 다시 읽을 수 있고, 밀려난 번호를 요청하면
+ *         {@link ChangeFeedGapException} 이 발생한다.</li>
+ * </ul>
+ * 구독자({@link #subscribe(long, Consumer)})는 각자의 스레드에서 변경을 받는다. 느린 구독자가 커밋을 늦추지 않는다.
+ */
+@Slf4j
+public class ChangeFeed implements AutoCloseable {
+
+    private final ChangeEvent[] events;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private long lastSequence;
+
+    ChangeFeed(int capacity) {
+        this.events = new ChangeEvent[capacity];
+    }
+
+    /**
+     * 저장, 변경된 엔티티를 받는다. 트랜잭션 밖이면(자동 커밋) 바로 피드에 넣는다.
+     */
+    void capture(ChangeType type, Object entity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(List.of(new Change(type, entity, TenantContext.current())));
+            return;
+        }
+        pendingChanges().add(type, entity);
+    }
+
+    /**
+     * JPQL 벌크 수정, 삭제로 바뀐 엔티티의 id 를 받는다. 엔티티를 로딩하지 않으므로 이벤트의 state 는 null 이다.
+     * 값이 필요한 구독자는 id 로 다시 조회한다. 트랜잭션 안이면 커밋된 뒤에 피드에 넣는다.
+     */
+    public void captureBulk(ChangeType type, Class<?> entityType, Collection<Long> ids) {
+        String tenant = TenantContext.current();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(ids.stream().map(id -> Change.bulk(type, entityType, id, tenant)).toList());
+            return;
+        }
+        PendingChanges pending = pendingChanges();
+        ids.forEach(id -> pending.addBulk(type, entityType, id, tenant));
+    }
+
+    private PendingChanges pendingChanges() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingChanges pending && pending.feed == this) {
+                return pending;
+            }
+        }
+        PendingChanges pending = new PendingChanges(this);
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private void publish(Collection<Change> changes) {
+        LocalDateTime now = LocalDateTime.now();
+        lock.lock();
+        try {
+            for (Change change : changes) {
+                lastSequence++;
+                events[(int) (lastSequence % events.length)] = change.toEvent(lastSequence, now);
+            }
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 마지막으로 피드에 들어간 변경 번호. 아직 없으면 0 이다. 새 변경만 받으려면 이 번호 + 1 부터 구독한다.
+     */
+    public long lastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * fromSequence 부터 보관 중인 변경을 모두 반환한다.
+     *
+     * @throws ChangeFeedGapException fromSequence 가 이미 밀려난 경우
+     */
+    public List<ChangeEvent> replay(long fromSequence) {
+        lock.lock();
+        try {
+            return copy(fromSequence, Integer.MAX_VALUE);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * fromSequence 부터 최대 max 개를 읽는다. 아직 없으면 변경이 들어오거나 timeout 이 지날 때까지 기다린다.
+     *
+     * @throws ChangeFeedGapException fromSequence 가 이미 밀려난 경우
+     */
+    public List<ChangeEvent> read(long fromSequence, int max, long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (lastSequence < fromSequence && nanos > 0) {
+                nanos = appended.awaitNanos(nanos);
+            }
+            return copy(fromSequence, max);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<ChangeEvent> copy(long fromSequence, int max) {
+        long from = Math.max(fromSequence, 1);
+        long oldest = Math.max(1, lastSequence - events.length + 1);
+        if (from < oldest) {
+            throw new ChangeFeedGapException(from, oldest);
+        }
+        long to = Math.min(lastSequence, from + max - 1);
+        List<ChangeEvent> result = new ArrayList<>((int) Math.max(0, to - from + 1));
+        for (long sequence = from; sequence <= to; sequence++) {
+            result.add(events[(int) (sequence % events.length)]);
+        }
+        return result;
+    }
+
+    /**
+     * fromSequence 부터 변경을 consumer 에게 순서대로 전달한다. 지난 변경을 먼저 전달하고 이후 새 변경을 기다린다.
+     * consumer 가 예외를 던지거나 구독 위치가 밀려나면 구독이 멈춘다. ({@link Subscription#failure()})
+     */
+    public Subscription subscribe(long fromSequence, Consumer<ChangeEvent> consumer) {
+        Subscription subscription = new Subscription(fromSequence, consumer);
+        subscriptions.add(subscription);
+        subscription.thread.start();
+        return subscription;
+    }
+
+    @Override
+    public void close() {
+        subscriptions.forEach(Subscription::close);
+    }
+
+    /**
+     * 트랜잭션 하나에서 모은 변경. 엔티티마다 한 건만 남긴다.
+     */
+    private static class PendingChanges implements TransactionSynchronization {
+
+        private final ChangeFeed feed;
+        private final Map<Object, Change> changes = new LinkedHashMap<>();
+
+        PendingChanges(ChangeFeed feed) {
+            this.feed = feed;
+        }
+
+        void add(ChangeType type, Object entity) {
+            changes.putIfAbsent(List.of(entity.getClass(), idOf(entity)), new Change(type, entity, TenantContext.current()));
+        }
+
+        /**
+         * 삭제는 같은 트랜잭션의 앞선 저장, 변경을 대신한다.
+         */
+        void addBulk(ChangeType type, Class<?> entityType, Long id, String tenant) {
+            Change change = Change.bulk(type, entityType, id, tenant);
+            if (type == ChangeType.DELETE) {
+                changes.put(List.of(entityType, id), change);
+            } else {
+                changes.putIfAbsent(List.of(entityType, id), change);
+            }
+        }
+
+        @Override
+        public void afterCommit() {
+            feed.publish(changes.values());
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            changes.clear();
+        }
+    }
+
+    /**
+     * 엔티티 값은 커밋 뒤에 복사한다. 같은 트랜잭션 안에서 나중에 바뀐 값까지 반영된다.
+     * 벌크 변경은 엔티티 없이 타입과 id 만 가진다.
+     */
+    private record Change(ChangeType type, Object entity, Class<?> entityType, Long id, String tenant) {
+
+        Change(ChangeType type, Object entity, String tenant) {
+            this(type, entity, entity.getClass(), null, tenant);
+        }
+
+        static Change bulk(ChangeType type, Class<?> entityType, Long id, String tenant) {
+            return new Change(type, null, entityType, id, tenant);
+        }
+
+        ChangeEvent toEvent(long sequence, LocalDateTime committedAt) {
+            if (entity == null) {
+                return new ChangeEvent(sequence, type, entityType.getSimpleName(), id, tenant, null, committedAt);
+            }
+            return new ChangeEvent(sequence, type, entityType.getSimpleName(), idOf(entity), tenant,
+                    snapshot(entity), committedAt);
+        }
+    }
+
+    private static Long idOf(Object entity) {
+        if (entity instanceof Member member) {
+            return member.getId();
+        }
+        if (entity instanceof Log logMessage) {
+            return logMessage.getId();
+        }
+        if (entity instanceof Order order) {
+            return order.getId();
+        }
+        throw new IllegalArgumentException("변경 피드 대상이 아닌 엔티티입니다. entity=" + entity.getClass().getName());
+    }
+
+    private static Object snapshot(Object entity) {
+        if (entity instanceof Member member) {
+            return new MemberView(member.getId(), member.getUsername());
+        }
+        if (entity instanceof Log logMessage) {
+            return LogView.of(logMessage);
+        }
+        return OrderView.of((Order) entity);
+    }
+
+    /**
+     * 구독 하나. 전용 스레드에서 피드를 읽어 consumer 에게 전달한다.
+     */
+    public class Subscription implements AutoCloseable {
+
+        private final Consumer<ChangeEvent> consumer;
+        private final Thread thread;
+        private volatile long nextSequence;
+        private volatile RuntimeException failure;
+        private volatile boolean closed;
+
+        private Subscription(long fromSequence, Consumer<ChangeEvent> consumer) {
+            this.nextSequence = fromSequence;
+            this.consumer = consumer;
+            this.thread = new Thread(this::deliverLoop, "change-feed-subscriber-" + subscriberCount.incrementAndGet());
+            this.thread.setDaemon(true);
+        }
+
+        /**
+         * 다음에 전달할 변경 번호. 구독이 멈춘 경우 이 번호부터 다시 구독하면 이어서 받는다.
+         */
+        public long nextSequence() {
+            return nextSequence;
+        }
+
+        /**
+         * 구독이 멈춘 원인. 정상이면 null 이다.
+         */
+        public RuntimeException failure() {
+            return failure;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            thread.interrupt();
+            subscriptions.remove(this);
+        }
+
+        private void deliverLoop() {
+            try {
+                while (!closed) {
+                    for (ChangeEvent event : read(nextSequence, 500, 1, TimeUnit.SECONDS)) {
+                        consumer.accept(event);
+                        nextSequence = event.sequence() + 1;
+                    }
+                }
+            } catch (InterruptedException e) {
+                //구독 종료
+            } catch (RuntimeException e) {
+                log.warn("변경 피드 구독 중단 nextSequence={}", nextSequence, e);
+                failure = e;
+                subscriptions.remove(this);
+            }
+        }
+    }
+}
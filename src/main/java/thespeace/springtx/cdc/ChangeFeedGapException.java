@@ -0,0 +1,11 @@
+package thespeace.springtx.cdc;
+
+/**
+ * 요청한 위치의 변경이 이미 피드에서 밀려나서 이어서 읽을 수 없다. 구독자는 테이블을 다시 읽고 {@link ChangeFeed#lastSequence()} 부터 구독해야 한다.
+ */
+public class ChangeFeedGapException extends RuntimeException {
+
+    public ChangeFeedGapException(long requested, long oldest) {
+        super("변경 피드에서 밀려난 위치입니다. requested=" + requested + ", oldest=" + oldest);
+    }
+}
@@ -0,0 +1,5 @@
+package thespeace.springtx.cdc;
+
+public enum ChangeType {
+    INSERT, UPDATE, DELETE
+}
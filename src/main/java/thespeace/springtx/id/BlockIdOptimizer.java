@@ -0,0 +1,108 @@
+package thespeace.springtx.id;
+
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.Optimizer;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <h2>락 없이 ID 블록을 나누어 주는 옵티마이저</h2>
+ * 하이버네이트 기본 옵티마이저(pooled, pooled-lo)는 ID 하나를 만들 때마다 락을 잡는다.
+ * 이 옵티마이저는 현재 블록을 {@link AtomicReference} 로 들고, 블록 안의 ID는 CAS로 꺼낸다. 락은 블록을 교체할 때만 잡는다.<p>
+ *
+ * 시퀀스 값은 블록의 시작 값(lo)이다. 즉, 시퀀스가 1, 51, 101 ... 을 반환하면 블록은 [1, 51), [51, 101) ... 이 된다.
+ * <ul>
+ *     <li>블록이 소진되면 먼저 도착한 스레드 하나만 시퀀스를 호출해서 새 블록으로 교체한다.
+ *         동시에 소진을 본 다른 스레드는 교체가 끝날 때까지 기다렸다가 새 블록에서 ID를 꺼낸다.
+ *         블록 교체 한 번에 시퀀스 호출은 한 번이고, 버려지는 블록이 없다.</li>
+ * </ul>
+ * 멀티 테넌트(DATABASE 방식)에서는 테넌트 DB마다 시퀀스가 따로 있으므로 테넌트 식별자별로 블록을 따로 관리한다.
+ * 테넌트가 없으면 맵을 거치지 않고 기본 블록을 사용한다.
+ */
+public class BlockIdOptimizer implements Optimizer {
+
+    private final Class<?> returnClass;
+    private final int incrementSize;
+    private final AtomicReference<Block> current = new AtomicReference<>(Block.EMPTY);
+    private final Map<String, AtomicReference<Block>> tenantBlocks = new ConcurrentHashMap<>();
+
+    //하이버네이트 OptimizerFactory 가 (Class, int) 생성자를 리플렉션으로 호출한다.
+    public BlockIdOptimizer(Class<?> returnClass, int incrementSize) {
+        if (incrementSize < 1) {
+            throw new IllegalArgumentException("incrementSize 는 1 이상이어야 합니다. incrementSize=" + incrementSize);
+        }
+        this.returnClass = returnClass;
+        this.incrementSize = incrementSize;
+    }
+
+    @Override
+    public Serializable generate(AccessCallback callback) {
+        String tenant = callback.getTenantIdentifier();
+        AtomicReference<Block> current = tenant == null
+                ? this.current
+                : tenantBlocks.computeIfAbsent(tenant, key -> new AtomicReference<>(Block.EMPTY));
+        while (true) {
+            Block block = current.get();
+            long id = block.next.getAndIncrement();
+            if (id < block.hi) {
+                return toIdentifier(id);
+            }
+            refill(current, block, callback);
+        }
+    }
+
+    /**
+     * 소진된 블록을 새 블록으로 교체한다. 테넌트 블록마다 한 스레드만 시퀀스를 호출한다.
+     */
+    private void refill(AtomicReference<Block> current, Block exhausted, AccessCallback callback) {
+        synchronized (current) {
+            if (current.get() == exhausted) { //기다리는 동안 다른 스레드가 교체했으면 그 블록을 사용한다.
+                current.set(new Block(callback.getNextValue().copy().makeValue().longValue(), incrementSize));
+            }
+        }
+    }
+
+    private Serializable toIdentifier(long id) {
+        return IdentifierGeneratorHelper.getIntegralDataTypeHolder(returnClass).initialize(id).makeValue();
+    }
+
+    @Override
+    public IntegralDataTypeHolder getLastSourceValue() {
+        Block block = current.get();
+        return block == Block.EMPTY ? null : IdentifierGeneratorHelper.getIntegralDataTypeHolder(returnClass).initialize(block.lo);
+    }
+
+    @Override
+    public int getIncrementSize() {
+        return incrementSize;
+    }
+
+    /**
+     * 시퀀스를 블록 크기만큼 증가시키도록 DDL을 만든다. (increment by blockSize)
+     */
+    @Override
+    public boolean applyIncrementSizeToSourceValues() {
+        return true;
+    }
+
+    private static final class Block {
+
+        static final Block EMPTY = new Block(0, 0);
+
+        final long lo;
+        final long hi;
+        final AtomicLong next;
+
+        Block(long lo, int size) {
+            this.lo = lo;
+            this.hi = lo + size;
+            this.next = new AtomicLong(lo);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package thespeace.springtx.id;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * <h2>블록 단위(hi-lo)로 ID를 할당하는 식별자 생성 전략</h2>
+ * 기본 @GeneratedValue 대신 엔티티의 @Id 필드에 붙여서 사용한다.
+ * <ul>
+ *     <li>DB 시퀀스를 blockSize 만큼 증가시켜 한 번의 호출로 ID 블록 하나를 예약한다.</li>
+ *     <li>예약한 블록 안의 ID는 메모리에서 락 없이 나누어 준다.</li>
+ *     <li>시퀀스는 트랜잭션과 무관하게 증가하므로 여러 노드가 같은 DB를 사용해도 블록이 겹치지 않는다.
+ *         대신 사용하지 못하고 버려지는 ID(구멍)는 허용한다.</li>
+ * </ul>
+ *
+ * @see BlockSequenceGenerator
+ */
+@IdGeneratorType(BlockSequenceGenerator.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface BlockSequence {
+
+    /**
+     * 사용할 DB 시퀀스 이름
+     */
+    String name();
+
+    /**
+     * 한 번에 예약할 ID 개수. 0 이하이면 {@link BlockSequenceGenerator#BLOCK_SIZE_SETTING} 설정 값을 사용한다.
+     */
+    int blockSize() default 0;
+}
@@ -0,0 +1,42 @@
+package thespeace.springtx.id;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+
+import java.lang.reflect.Member;
+import java.util.Properties;
+
+/**
+ * <h2>{@link BlockSequence} 를 처리하는 하이버네이트 식별자 생성기</h2>
+ * 시퀀스 생성(DDL), 시퀀스 호출은 하이버네이트의 {@link SequenceStyleGenerator} 를 그대로 사용하고,
+ * 옵티마이저만 {@link BlockIdOptimizer} 로 교체한다.<p>
+ *
+ * 블록 크기는 다음 순서로 결정된다.
+ * <ol>
+ *     <li>{@link BlockSequence#blockSize()}</li>
+ *     <li>{@value #BLOCK_SIZE_SETTING} 설정 (application.properties 에서는 spring.jpa.properties. 를 앞에 붙인다.)</li>
+ *     <li>{@value #DEFAULT_BLOCK_SIZE}</li>
+ * </ol>
+ */
+public class BlockSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String BLOCK_SIZE_SETTING = "springtx.id.block-size";
+    public static final int DEFAULT_BLOCK_SIZE = 50;
+
+    public BlockSequenceGenerator(BlockSequence config, Member member, CustomIdGeneratorCreationContext context) {
+        ConfigurationService configurationService = context.getServiceRegistry().getService(ConfigurationService.class);
+        int blockSize = config.blockSize() > 0
+                ? config.blockSize()
+                : ConfigurationHelper.getInt(BLOCK_SIZE_SETTING, configurationService.getSettings(), DEFAULT_BLOCK_SIZE);
+
+        Properties parameters = new Properties();
+        parameters.put(SEQUENCE_PARAM, config.name());
+        parameters.put(INCREMENT_PARAM, String.valueOf(blockSize));
+        parameters.put(OPT_PARAM, BlockIdOptimizer.class.getName());
+
+        //@IdGeneratorType 으로 생성된 생성기는 하이버네이트가 configure()를 호출하지 않으므로 직접 호출한다.
+        configure(context.getRootClass().getIdentifier().getType(), parameters, context.getServiceRegistry());
+    }
+}
@@ -0,0 +1,20 @@
+package thespeace.springtx.id;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * <h2>AOT 처리용 리플렉션 힌트</h2>
+ * 하이버네이트는 {@link BlockSequenceGenerator} 와 {@link BlockIdOptimizer} 를 리플렉션으로 생성한다.
+ * AOT 처리 결과(reflect-config.json)에 생성자가 포함되도록 힌트를 등록한다.
+ */
+public class BlockSequenceRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        hints.reflection()
+                .registerType(BlockSequenceGenerator.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS)
+                .registerType(BlockIdOptimizer.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+    }
+}
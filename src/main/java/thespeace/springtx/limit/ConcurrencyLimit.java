@@ -0,0 +1,16 @@
+package thespeace.springtx.limit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <h2>동시 실행 수를 적응형으로 제한하는 메서드</h2>
+ * springtx.limit.enabled=true 일 때 {@link ConcurrencyLimitAspect} 가 트랜잭션 시작 전에 메서드별 한도를 적용한다.
+ * 한도를 넘은 호출은 커넥션 풀에서 기다리지 않고 바로(또는 springtx.limit.max-wait 만큼 기다린 뒤) 거절된다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConcurrencyLimit {
+}
@@ -0,0 +1,40 @@
+package thespeace.springtx.limit;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * <h2>{@link ConcurrencyLimit} 메서드의 동시 실행 수를 제한한다.</h2>
+ * 트랜잭션 AOP(와 재시도) 바깥에서 실행된다. 자리를 얻은 호출만 트랜잭션을 시작하고 커넥션을 요청하므로,
+ * 거절된 호출은 커넥션 풀에서 기다리지 않는다.
+ * 제한은 메서드마다(클래스 이름.메서드 이름) 따로 관리된다.
+ */
+@Aspect
+@Order(Ordered.LOWEST_PRECEDENCE - 2)
+@RequiredArgsConstructor
+public class ConcurrencyLimitAspect {
+
+    private final ConcurrencyLimiters limiters;
+
+    @Around("@annotation(thespeace.springtx.limit.ConcurrencyLimit)")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        ConcurrencyLimiter limiter = limiters.get(
+                joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName());
+        limiter.acquire();
+
+        long start = System.nanoTime();
+        boolean overloaded = false;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable ex) {
+            overloaded = ConcurrencyLimiters.isOverload(ex);
+            throw ex;
+        } finally {
+            limiter.release(System.nanoTime() - start, overloaded);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package thespeace.springtx.limit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * <h2>AIMD 방식의 적응형 동시 실행 제한</h2>
+ * 메서드 하나의 동시 실행 수를 한도(limit) 이하로 유지하고, 관찰한 지연 시간으로 한도를 조정한다.
+ * <ul>
+ *     <li>가산 증가: 한도를 절반 이상 사용하는 상태에서 지연 시간이 기준 이하이면 호출마다 1/limit 씩 늘린다.
+ *         (한도만큼의 호출이 성공하면 한도가 1 늘어난다.)</li>
+ *     <li>곱셈 감소: 지연 시간이 기준을 넘거나 커넥션 획득, 트랜잭션 타임아웃으로 실패하면 한도에 backoff-ratio 를 곱한다.
+ *         곱셈 감소는 latency-threshold 구간마다 한 번만 적용한다. 같은 과부하 때문에 동시에 느려진 호출들이
+ *         각각 한도를 줄이면 한 번의 과부하로 한도가 ratio^N 으로 무너지기 때문이다.</li>
+ * </ul>
+ * DB가 느려지면 한도가 빠르게 줄어서 커넥션 풀 앞에 대기열이 쌓이지 않고, 넘치는 호출은 바로 거절된다.
+ */
+public class ConcurrencyLimiter {
+
+    private final String name;
+    private final LimitProperties properties;
+    private final LongSupplier clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private double limit;
+    private int inFlight;
+    private long backoffAt;
+    private volatile long lastLatencyNanos;
+
+    public ConcurrencyLimiter(String name, LimitProperties properties) {
+        this(name, properties, System::nanoTime);
+    }
+
+    ConcurrencyLimiter(String name, LimitProperties properties, LongSupplier clock) {
+        this.name = name;
+        this.properties = properties;
+        this.clock = clock;
+        this.limit = properties.getInitialLimit();
+        this.backoffAt = clock.getAsLong() - properties.getLatencyThreshold().toNanos();
+    }
+
+    /**
+     * 자리를 얻는다. 한도가 차 있으면 max-wait 만큼 기다리고, 그래도 자리가 없으면 거절한다.
+     *
+     * @throws LimitExceededException 자리를 얻지 못한 경우
+     */
+    public void acquire() {
+        long waitNanos = properties.getMaxWait().toNanos();
+        lock.lock();
+        try {
+            while (inFlight >= currentLimit()) {
+                if (waitNanos <= 0) {
+                    rejected.increment();
+                    throw new LimitExceededException(name, currentLimit());
+                }
+                waitNanos = released.awaitNanos(waitNanos);
+            }
+            inFlight++;
+            accepted.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected.increment();
+            throw new LimitExceededException(name, currentLimit());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 자리를 반납하고 호출 결과로 한도를 조정한다.
+     *
+     * @param overloaded 커넥션 획득 실패, 타임아웃처럼 과부하로 실패했는지 여부
+     */
+    public void release(long latencyNanos, boolean overloaded) {
+        lastLatencyNanos = latencyNanos;
+        lock.lock();
+        try {
+            boolean utilized = inFlight * 2 >= currentLimit();
+            inFlight--;
+            long thresholdNanos = properties.getLatencyThreshold().toNanos();
+            if (overloaded || latencyNanos > thresholdNanos) {
+                long now = clock.getAsLong();
+                if (now - backoffAt >= thresholdNanos) {
+                    limit = Math.max(properties.getMinLimit(), limit * properties.getBackoffRatio());
+                    backoffAt = now;
+                }
+            } else if (utilized) {
+                limit = Math.min(properties.getMaxLimit(), limit + 1.0 / limit);
+            }
+            released.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public LimitMetrics metrics() {
+        lock.lock();
+        try {
+            return new LimitMetrics(name, currentLimit(), inFlight, accepted.sum(), rejected.sum(),
+                    Duration.ofNanos(lastLatencyNanos));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * @param limit       현재 동시 실행 한도
+     * @param inFlight    실행 중인 호출 수
+     * @param accepted    통과한 호출 수 (누적)
+     * @param rejected    거절한 호출 수 (누적)
+     * @param lastLatency 마지막으로 끝난 호출의 지연 시간
+     */
+    public record LimitMetrics(String name, int limit, int inFlight, long accepted, long rejected, Duration lastLatency) {
+
+        @Override
+        public String toString() {
+            return "%s limit=%d, inFlight=%d, accepted=%d, rejected=%d, lastLatency=%dms".formatted(
+                    name, limit, inFlight, accepted, rejected, lastLatency.toMillis());
+        }
+    }
+}
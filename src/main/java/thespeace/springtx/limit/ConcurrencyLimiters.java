@@ -0,0 +1,52 @@
+package thespeace.springtx.limit;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionTimedOutException;
+
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <h2>메서드별 동시 실행 제한 목록</h2>
+ * 제한은 처음 호출될 때 만들어진다. 현재 한도와 실행 중인 수는 {@link #metrics()} 로 조회하고, 주기적으로 로그에도 남긴다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ConcurrencyLimiters {
+
+    private final LimitProperties properties;
+    private final Map<String, ConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimiter get(String name) {
+        return limiters.computeIfAbsent(name, key -> new ConcurrencyLimiter(key, properties));
+    }
+
+    public List<ConcurrencyLimiter.LimitMetrics> metrics() {
+        return limiters.values().stream().map(ConcurrencyLimiter::metrics).toList();
+    }
+
+    @Scheduled(fixedDelayString = "${springtx.limit.report-interval:PT1M}")
+    public void report() {
+        metrics().forEach(metrics -> log.info("동시 실행 제한 {}", metrics));
+    }
+
+    /**
+     * 커넥션을 얻지 못했거나 시간이 초과된 실패는 DB 과부하 신호이다. 비즈니스 예외는 정상 호출로 본다.
+     */
+    static boolean isOverload(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CannotCreateTransactionException || cause instanceof TransactionTimedOutException
+                    || cause instanceof SQLTransientConnectionException || cause instanceof SQLTimeoutException
+                    || cause instanceof org.springframework.dao.QueryTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,31 @@
+package thespeace.springtx.limit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * <h2>적응형 동시 실행 제한 설정</h2>
+ * springtx.limit.enabled=true 일 때만 적용된다. 대상은 {@link ConcurrencyLimit} 을 붙인 메서드이다.
+ * <pre>
+ * springtx.limit.enabled=true
+ * springtx.limit.initial-limit=10
+ * springtx.limit.latency-threshold=200ms
+ * </pre>
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.limit.enabled", havingValue = "true")
+@EnableConfigurationProperties(LimitProperties.class)
+public class LimitConfig {
+
+    @Bean
+    ConcurrencyLimiters concurrencyLimiters(LimitProperties properties) {
+        return new ConcurrencyLimiters(properties);
+    }
+
+    @Bean
+    ConcurrencyLimitAspect concurrencyLimitAspect(ConcurrencyLimiters concurrencyLimiters) {
+        return new ConcurrencyLimitAspect(concurrencyLimiters);
+    }
+}
@@ -0,0 +1,12 @@
+package thespeace.springtx.limit;
+
+/**
+ * 동시 실행 한도를 넘어서 호출이 거절되었다.<br>
+ * 과부하 상황에서 대량으로 발생하므로 스택 트레이스를 만들지 않는다.
+ */
+public class LimitExceededException extends RuntimeException {
+
+    public LimitExceededException(String name, int limit) {
+        super("동시 실행 한도 초과. name=" + name + ", limit=" + limit, null, false, false);
+    }
+}
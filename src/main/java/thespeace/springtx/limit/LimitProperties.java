@@ -0,0 +1,30 @@
+package thespeace.springtx.limit;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * <h2>적응형 동시 실행 제한 설정 (springtx.limit)</h2>
+ * <ul>
+ *     <li>initial-limit, min-limit, max-limit : 메서드별 동시 실행 한도의 시작값과 범위</li>
+ *     <li>latency-threshold : 이보다 오래 걸린 호출은 과부하 신호로 보고 한도를 줄인다.</li>
+ *     <li>backoff-ratio : 과부하 신호가 있으면 한도에 곱하는 값 (곱셈 감소, latency-threshold 구간마다 최대 한 번)</li>
+ *     <li>max-wait : 한도가 찼을 때 자리를 기다리는 시간. 0 이면 바로 거절한다.</li>
+ * </ul>
+ */
+@Getter
+@Setter
+@ConfigurationProperties("springtx.limit")
+public class LimitProperties {
+
+    private boolean enabled;
+    private int initialLimit = 10;
+    private int minLimit = 1;
+    private int maxLimit = 100;
+    private Duration latencyThreshold = Duration.ofMillis(200);
+    private double backoffRatio = 0.9;
+    private Duration maxWait = Duration.ZERO;
+}
@@ -1,11 +1,17 @@
 package thespeace.springtx.order;
 
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.Setter;
+import thespeace.springtx.cdc.ChangeCaptureListener;
+import thespeace.springtx.id.BlockSequence;
+
+import java.time.LocalDateTime;
 
 /**
  * <ul>
@@ -18,15 +24,30 @@ import lombok.Setter;
  * </ul>
  */
 @Entity
-@Table(name = "orders")
+@EntityListeners(ChangeCaptureListener.class)
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_pay_status", columnList = "pay_status"),
+        @Index(name = "idx_orders_created_at", columnList = "created_at")
+})
 @Getter
 @Setter
 public class Order {
 
     @Id
-    @GeneratedValue
+    @BlockSequence(name = "orders_seq")
     private Long id;
 
     private String username; //정상, 예외, 잔고부족
     private String payStatus; //대기, 완료
+    private LocalDateTime createdAt;
+
+    /**
+     * 생성 시각을 지정하지 않았으면 현재 시각을 사용한다.
+     */
+    @PrePersist
+    void assignCreatedAt() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
 }
@@ -0,0 +1,110 @@
+package thespeace.springtx.order;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import thespeace.springtx.cdc.ChangeFeed;
+import thespeace.springtx.cdc.ChangeType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * <h2>주문 벌크 상태 변경, 삭제 작업</h2>
+ * 엔티티를 조회해서 한 건씩 변경 감지하지 않고, id 청크마다 UPDATE / DELETE 한 번을 실행한다.
+ * <ul>
+ *     <li>청크마다 별도의 짧은 트랜잭션으로 실행해서 락을 오래 잡지 않는다. 그래서 트랜잭션 안에서 호출하면 예외가 발생한다.</li>
+ *     <li>벌크 연산 후에는 청크 트랜잭션의 영속성 컨텍스트를 비우고, 작업이 끝나면 2차 캐시의 Order 영역도 비운다.
+ *         (Hibernate 도 HQL 벌크 연산의 대상 영역을 무효화하지만, 캐시를 켰을 때의 일관성을 여기서 명시적으로 보장한다.)</li>
+ *     <li>벌크 연산은 엔티티 리스너를 거치지 않으므로, 청크의 id 목록을 변경 피드({@link ChangeFeed})에 직접 넘긴다.
+ *         청크 트랜잭션이 커밋된 뒤에 UPDATE / DELETE 이벤트로 발행된다.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class OrderBulkJob {
+
+    private final OrderRepository orderRepository;
+    private final EntityManagerFactory emf;
+    private final ObjectProvider<ChangeFeed> changeFeed;
+    private final TransactionTemplate transactionTemplate;
+
+    public OrderBulkJob(OrderRepository orderRepository, EntityManagerFactory emf,
+                        ObjectProvider<ChangeFeed> changeFeed, PlatformTransactionManager transactionManager,
+                        @Value("${springtx.tx.timeout.order-batch:30}") int timeout) {
+        this.orderRepository = orderRepository;
+        this.emf = emf;
+        this.changeFeed = changeFeed;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setTimeout(timeout);
+    }
+
+    public long countByStatus(String payStatus) {
+        return orderRepository.countByPayStatus(payStatus);
+    }
+
+    /**
+     * 결제 상태가 from 인 주문을 모두 to 로 바꾼다. (예: 대기 -> 만료)
+     *
+     * @return 변경된 주문 수
+     */
+    public int updateStatus(String from, String to, int chunkSize) {
+        if (from.equals(to)) {
+            throw new IllegalArgumentException("같은 상태로는 변경할 수 없습니다. status=" + from);
+        }
+        int updated = inChunks(chunkSize, ChangeType.UPDATE,
+                limit -> orderRepository.findIdsByPayStatus(from, limit),
+                ids -> orderRepository.updatePayStatus(ids, from, to));
+        log.info("주문 상태 일괄 변경 {} -> {}, count={}", from, to, updated);
+        return updated;
+    }
+
+    /**
+     * before 이전(before 미포함)에 생성된 주문을 모두 삭제한다.
+     *
+     * @return 삭제된 주문 수
+     */
+    public int deleteCreatedBefore(LocalDateTime before, int chunkSize) {
+        int deleted = inChunks(chunkSize, ChangeType.DELETE,
+                limit -> orderRepository.findIdsCreatedBefore(before, limit),
+                orderRepository::deleteByIds);
+        log.info("오래된 주문 일괄 삭제 before={}, count={}", before, deleted);
+        return deleted;
+    }
+
+    private int inChunks(int chunkSize, ChangeType changeType, Function<Limit, List<Long>> nextIds,
+                         ToIntFunction<List<Long>> bulk) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("벌크 작업은 청크마다 트랜잭션을 커밋하므로 트랜잭션 밖에서 호출해야 합니다.");
+        }
+        Limit limit = Limit.of(chunkSize);
+        int total = 0;
+        try {
+            while (true) {
+                Integer affected = transactionTemplate.execute(status -> {
+                    List<Long> ids = nextIds.apply(limit);
+                    if (ids.isEmpty()) {
+                        return null;
+                    }
+                    int count = bulk.applyAsInt(ids);
+                    changeFeed.ifAvailable(feed -> feed.captureBulk(changeType, Order.class, ids));
+                    return count;
+                });
+                if (affected == null) {
+                    return total;
+                }
+                total += affected;
+            }
+        } finally {
+            emf.getCache().evict(Order.class);
+        }
+    }
+}
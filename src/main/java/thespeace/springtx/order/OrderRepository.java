@@ -1,9 +1,39 @@
 package thespeace.springtx.order;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
- * 스프링 데이터 JPA를 사용한다.
+ * 스프링 데이터 JPA를 사용한다.<br>
+ * 여러 주문을 한 번에 바꾸거나 지울 때는 엔티티를 조회하지 않는 벌크 연산을 사용한다. 청크 단위 실행은 {@link OrderBulkJob} 이 맡는다.
+ * 벌크 연산은 영속성 컨텍스트를 거치지 않으므로 실행 전에 플러시하고 실행 후에 비운다. (flushAutomatically, clearAutomatically)
  */
 public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    long countByPayStatus(String payStatus);
+
+    @Query("select o.id from Order o where o.payStatus = :payStatus order by o.id")
+    List<Long> findIdsByPayStatus(String payStatus, Limit limit);
+
+    @Query("select o.id from Order o where o.createdAt < :before order by o.id")
+    List<Long> findIdsCreatedBefore(LocalDateTime before, Limit limit);
+
+    /**
+     * 다른 트랜잭션이 그 사이에 상태를 바꾼 주문은 건너뛰도록 기존 상태(from)도 조건에 넣는다.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Order o set o.payStatus = :to where o.id in :ids and o.payStatus = :from")
+    int updatePayStatus(List<Long> ids, String from, String to);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Order o where o.id in :ids")
+    int deleteByIds(List<Long> ids);
 }
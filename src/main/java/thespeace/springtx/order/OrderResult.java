@@ -0,0 +1,56 @@
+package thespeace.springtx.order;
+
+/**
+ * <h2>주문 결과</h2>
+ * {@link OrderService#placeOrder(Order)} 는 예외 대신 결과를 반환한다. 호출하는 쪽은 결과 타입으로 분기한다.
+ * <ul>
+ *     <li>{@link Completed} : 결제 완료. 커밋한다.</li>
+ *     <li>{@link PendingInsufficientFunds} : 잔고 부족. 주문은 대기 상태로 커밋한다. (NotEnoughMoneyException 과 같은 의미)</li>
+ *     <li>{@link Failed} : 시스템 오류. 롤백한다. (RuntimeException 과 같은 의미)</li>
+ * </ul>
+ */
+public sealed interface OrderResult {
+
+    Order order();
+
+    /**
+     * 트랜잭션에 남기는 결과 이름 ({@link thespeace.springtx.tx.TxOutcomes}, springtx.tx.rollback.statuses 의 키)
+     */
+    String status();
+
+    /**
+     * 트랜잭션을 롤백해야 하는 결과인지 여부. springtx.tx.rollback.statuses 에 규칙이 없을 때의 기본값이다.
+     */
+    default boolean rollback() {
+        return false;
+    }
+
+    record Completed(Order order) implements OrderResult {
+
+        @Override
+        public String status() {
+            return "완료";
+        }
+    }
+
+    record PendingInsufficientFunds(Order order) implements OrderResult {
+
+        @Override
+        public String status() {
+            return "잔고부족";
+        }
+    }
+
+    record Failed(Order order, String reason) implements OrderResult {
+
+        @Override
+        public String status() {
+            return "시스템오류";
+        }
+
+        @Override
+        public boolean rollback() {
+            return true;
+        }
+    }
+}
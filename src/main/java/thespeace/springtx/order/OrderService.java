@@ -1,9 +1,12 @@
 package thespeace.springtx.order;
 
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import thespeace.springtx.limit.ConcurrencyLimit;
+import thespeace.springtx.tx.RollbackDecision;
+import thespeace.springtx.tx.TxOutcomes;
 
 /**
  * <ul>
@@ -22,6 +25,7 @@ import org.springframework.stereotype.Service;
  *         </ul>
  *     </li>
  * </ul>
+ * 같은 처리를 예외 없이 결과 타입({@link OrderResult})으로 반환하는 {@link #placeOrder(Order)} 도 제공한다.
  */
 @Slf4j
 @Service
@@ -29,28 +33,65 @@ import org.springframework.stereotype.Service;
 public class OrderService {
 
     private final OrderRepository orderRepository;
+    private final TxOutcomes txOutcomes;
 
     //JPA는 트랜잭션 커밋 시점에 Order 데이터를 DB에 반영한다.
-    @Transactional
+    //타임아웃(초)은 springtx.tx.timeout.order 로 조정하고, JDBC 쿼리 타임아웃으로 적용된다.
+    //저장 후에 payStatus 를 바꾸면 커밋 시점에 INSERT 와 변경 감지 UPDATE 가 함께 나간다.
+    //그래서 결제 상태를 먼저 결정하고 저장해서 주문 한 건당 INSERT 한 번만 실행되도록 한다.
+    //결제 결과는 placeOrder 와 같은 pay(order) 로 한 번만 정하고, 결과에 따라 예외를 던진다.
+    @ConcurrencyLimit
+    @Transactional(timeoutString = "${springtx.tx.timeout.order:5}")
     public void order(Order order) throws NotEnoughMoneyException {
         log.info("order 호출");
-        orderRepository.save(order);
 
         log.info("결제 프로세스 진입");
-        if(order.getUsername().equals("예외")) {
+        OrderResult result = pay(order);
+        orderRepository.save(order);
+
+        if (result instanceof OrderResult.Failed failed) {
             log.info("시스템 예외 발생");
-            throw new RuntimeException("시스템 예외");
+            throw new RuntimeException(failed.reason());
 
-        } else if (order.getUsername().equals("잔고부족")) {
+        } else if (result instanceof OrderResult.PendingInsufficientFunds) {
             log.info("잔고 부족 비즈니스 예외 발생");
-            order.setPayStatus("대기");
             throw new NotEnoughMoneyException("잔고가 부족합니다.");
 
         } else {
             //정상 승인
             log.info("정상 승인");
-            order.setPayStatus("완료");
         }
         log.info("결제 프로세스 완료");
     }
+
+    /**
+     * {@link #order(Order)} 와 같은 처리를 하지만 예외를 던지지 않고 결과를 반환한다.<br>
+     * 잔고 부족이 자주 발생해도 예외와 스택 트레이스를 만들지 않는다. 커밋, 롤백은 결과로 정한다.
+     * 결과는 {@link TxOutcomes} 로 트랜잭션에 남기고, 커밋, 롤백은 springtx.tx.rollback.statuses 규칙을 따른다.
+     * 규칙이 없으면 잔고 부족은 커밋하고, 시스템 오류({@link OrderResult.Failed})는 트랜잭션을 롤백 전용으로 표시한 뒤 정상 반환한다.
+     */
+    @ConcurrencyLimit
+    @Transactional(timeoutString = "${springtx.tx.timeout.order:5}")
+    public OrderResult placeOrder(Order order) {
+        OrderResult result = pay(order);
+        orderRepository.save(order);
+
+        RollbackDecision decision = txOutcomes.mark(result.status(),
+                result.rollback() ? RollbackDecision.ROLLBACK : RollbackDecision.COMMIT);
+        if (decision == RollbackDecision.ROLLBACK) {
+            log.info("주문 결과 롤백 status={}", result.status());
+        }
+        return result;
+    }
+
+    private OrderResult pay(Order order) {
+        if (order.getUsername().equals("예외")) {
+            return new OrderResult.Failed(order, "시스템 예외");
+        } else if (order.getUsername().equals("잔고부족")) {
+            order.setPayStatus("대기");
+            return new OrderResult.PendingInsufficientFunds(order);
+        }
+        order.setPayStatus("완료");
+        return new OrderResult.Completed(order);
+    }
 }
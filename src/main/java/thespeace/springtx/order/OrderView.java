@@ -0,0 +1,14 @@
+package thespeace.springtx.order;
+
+import java.time.LocalDateTime;
+
+/**
+ * <h2>주문 조회 결과(프로젝션)</h2>
+ * 엔티티가 아니므로 영속성 컨텍스트에 들어가지 않는다. 데이터만 필요한 호출자가 사용한다.
+ */
+public record OrderView(Long id, String username, String payStatus, LocalDateTime createdAt) {
+
+    public static OrderView of(Order order) {
+        return new OrderView(order.getId(), order.getUsername(), order.getPayStatus(), order.getCreatedAt());
+    }
+}
@@ -0,0 +1,43 @@
+package thespeace.springtx.order;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import thespeace.springtx.tx.TxPolicies;
+import thespeace.springtx.tx.TxPolicy;
+
+import java.util.List;
+
+/**
+ * <h2>결제 대기 주문 처리</h2>
+ * 잔고 부족으로 대기 상태가 된 주문을 배치 단위로 조회해서 완료 처리한다. (입금 확인 후 재처리)<br>
+ * 격리 수준과 락은 springtx.tx.policy.operations[order.scan-pending] 설정을 따른다.
+ * 기본 설정은 READ_COMMITTED + SELECT ... FOR UPDATE SKIP LOCKED 이다.
+ * 여러 처리기가 동시에 실행되어도 다른 처리기가 잠근 주문은 건너뛰므로 서로 기다리지 않고, 같은 주문을 두 번 처리하지 않는다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PendingOrderProcessor {
+
+    private final EntityManager em;
+    private final TxPolicies txPolicies;
+
+    /**
+     * @return 완료 처리한 주문 수
+     */
+    @TxPolicy("order.scan-pending")
+    @Transactional(timeoutString = "${springtx.tx.timeout.order:5}")
+    public int completePending(int batchSize) {
+        List<Order> orders = txPolicies.apply("order.scan-pending",
+                        em.createQuery("select o from Order o where o.payStatus = :payStatus order by o.id", Order.class))
+                .setParameter("payStatus", "대기")
+                .setMaxResults(batchSize)
+                .getResultList();
+        orders.forEach(order -> order.setPayStatus("완료"));
+        log.info("대기 주문 완료 처리 count={}", orders.size());
+        return orders.size();
+    }
+}
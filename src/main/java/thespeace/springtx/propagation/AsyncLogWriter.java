@@ -0,0 +1,217 @@
+package thespeace.springtx.propagation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h2>회원 트랜잭션과 분리된 로그 쓰기</h2>
+ * 회원 트랜잭션이 커밋된 뒤 로그를 off-heap 대기열({@link LogRingBuffer})에 넣고, 쓰기 스레드 하나가 배치로 DB에 저장한다.
+ * <ul>
+ *     <li>DB가 느려져서 대기열이 길어져도 대기 중인 로그는 힙 밖에 있다.</li>
+ *     <li>대기열이 가득 차면 {@link LogOverflowPolicy} 에 따라 호출한 스레드에서 바로 저장하거나(REQUIRES_NEW),
+ *         자리가 날 때까지 잠시 기다린다. 로그를 버리지 않는다.</li>
+ *     <li>저장에 실패하면 대기열에서 지우지 않고 잠시 뒤 같은 배치를 다시 저장한다.</li>
+ *     <li>같은 배치가 maxBatchRetries 번 연속 실패하면 한 건씩 따로 저장한다. 데이터 오류(예: 컬럼 길이 초과)로 저장할 수 없는 로그는
+ *         데드레터 로그(ERROR)에 내용을 남기고 버린다. 한 건 때문에 대기열 전체가 멈추지 않는다.
+ *         DB 연결 실패처럼 일시적인 오류면 버리지 않고 다시 시도한다. 이때 이미 저장한 로그가 한 번 더 저장될 수 있다.</li>
+ *     <li>종료할 때는 남은 로그를 모두 저장한다. 파일 대기열이면 저장하지 못한 로그는 다음 시작 때 이어서 저장된다.</li>
+ * </ul>
+ * 쓰기 스레드는 기본 DB(테넌트)에 저장한다.
+ */
+@Slf4j
+public class AsyncLogWriter implements SmartLifecycle {
+
+    private final LogRingBuffer queue;
+    private final LogRepository logRepository;
+    private final int batchSize;
+    private final int maxBatchRetries;
+    private final LogOverflowPolicy overflowPolicy;
+    private final Duration overflowWait;
+    private final LongAdder written = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    private int failedAttempts; //쓰기 스레드에서만 사용한다.
+    private volatile boolean running;
+    private Thread worker;
+
+    AsyncLogWriter(LogRingBuffer queue, LogRepository logRepository, int batchSize, int maxBatchRetries,
+                   LogOverflowPolicy overflowPolicy, Duration overflowWait) {
+        this.queue = queue;
+        this.logRepository = logRepository;
+        this.batchSize = batchSize;
+        this.maxBatchRetries = maxBatchRetries;
+        this.overflowPolicy = overflowPolicy;
+        this.overflowWait = overflowWait;
+    }
+
+    /**
+     * 현재 트랜잭션이 커밋되면 로그를 대기열에 넣는다. 롤백되면 넣지 않는다. 트랜잭션 밖이면 바로 넣는다.
+     */
+    public void enqueueAfterCommit(String message) {
+        LocalDateTime createdAt = LocalDateTime.now();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(message, createdAt);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(message, createdAt);
+            }
+        });
+    }
+
+    private void enqueue(String message, LocalDateTime createdAt) {
+        if (!queue.offer(message, createdAt) && !awaitSpace(message, createdAt)) {
+            overflowed.increment();
+            log.warn("로그 대기열이 가득 차서 바로 저장 entries={}", queue.entries());
+            Log logMessage = new Log(message);
+            logMessage.setCreatedAt(createdAt);
+            logRepository.save(logMessage);
+        }
+    }
+
+    /**
+     * BLOCK 이면 자리가 날 때까지 overflowWait 만큼 기다려서 대기열에 넣는다.
+     *
+     * @return 대기열에 넣었으면 true
+     */
+    private boolean awaitSpace(String message, LocalDateTime createdAt) {
+        if (overflowPolicy != LogOverflowPolicy.BLOCK) {
+            return false;
+        }
+        blocked.increment();
+        try {
+            return queue.offer(message, createdAt, overflowWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        worker = new Thread(this::drainLoop, "async-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        queue.force();
+        log.info("로그 쓰기 종료 written={}, remaining={}", written.sum(), queue.entries());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 대기열에 남은 로그 수
+     */
+    public int pending() {
+        return queue.entries();
+    }
+
+    public long written() {
+        return written.sum();
+    }
+
+    /**
+     * 대기열이 가득 차서 호출 스레드에서 바로 저장한 수
+     */
+    public long overflowed() {
+        return overflowed.sum();
+    }
+
+    /**
+     * 대기열이 가득 차서 자리가 나기를 기다린 수 (BLOCK)
+     */
+    public long blocked() {
+        return blocked.sum();
+    }
+
+    /**
+     * 저장할 수 없어서 데드레터 로그로 보낸 수
+     */
+    public long deadLettered() {
+        return deadLettered.sum();
+    }
+
+    private void drainLoop() {
+        while (running || queue.entries() > 0) {
+            try {
+                if (!drainOnce() && running) {
+                    queue.awaitNotEmpty(100, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                //종료 요청: 남은 로그를 저장하고 끝낸다.
+            } catch (RuntimeException e) {
+                failedAttempts++;
+                log.warn("로그 배치 저장 실패, 잠시 뒤 다시 시도 failedAttempts={}", failedAttempts, e);
+                if (!running) {
+                    return;
+                }
+                sleepQuietly();
+            }
+        }
+    }
+
+    private boolean drainOnce() {
+        LogRingBuffer.Batch batch = queue.poll(batchSize);
+        if (batch.logs().isEmpty()) {
+            return false;
+        }
+        if (failedAttempts < maxBatchRetries) {
+            logRepository.saveAll(batch.logs());
+            written.add(batch.logs().size());
+        } else {
+            saveOneByOne(batch.logs());
+        }
+        failedAttempts = 0;
+        queue.acknowledge(batch);
+        return true;
+    }
+
+    /**
+     * 한 건씩 별도 트랜잭션으로 저장한다. 데이터 오류로 실패한 로그만 데드레터로 보내고, 그 밖의 오류는 배치 전체를 다시 시도한다.
+     */
+    private void saveOneByOne(List<Log> logs) {
+        for (Log logMessage : logs) {
+            try {
+                logRepository.saveAll(List.of(logMessage));
+                written.increment();
+            } catch (NonTransientDataAccessException e) {
+                deadLettered.increment();
+                log.error("로그 저장 불가, 데드레터 createdAt={}, message={}", logMessage.getCreatedAt(), logMessage.getMessage(), e);
+            }
+        }
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(500);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
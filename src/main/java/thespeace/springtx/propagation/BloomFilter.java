@@ -0,0 +1,150 @@
+package thespeace.springtx.propagation;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h2>문자열 블룸 필터</h2>
+ * "없다" 는 답은 확실하고, "있을 수 있다" 는 답은 설정한 오탐률(false positive rate)만큼 틀릴 수 있다. 항목은 지울 수 없다.
+ * <ul>
+ *     <li>비트 수 m = -n·ln(p) / (ln 2)², 해시 함수 수 k = m/n·ln 2 (n: 예상 항목 수, p: 오탐률)</li>
+ *     <li>해시는 64비트 해시 두 개를 조합해서 k 개를 만든다. (h1 + i·h2)</li>
+ *     <li>비트 배열은 {@link AtomicLongArray} 라서 여러 스레드가 동시에 추가, 조회해도 된다.</li>
+ *     <li>파일에 함께 저장할 수 있다. ({@link #writeTo(ByteBuffer)}, {@link #readFrom(ByteBuffer)})</li>
+ * </ul>
+ */
+class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashFunctions;
+    private final LongAdder insertions = new LongAdder();
+
+    BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("expectedInsertions > 0, 0 < falsePositiveRate < 1 이어야 합니다.");
+        }
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.words = new AtomicLongArray(Math.toIntExact((optimalBits + 63) / 64));
+        this.bits = words.length() * 64L;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bits / expectedInsertions * Math.log(2)));
+    }
+
+    private BloomFilter(AtomicLongArray words, int hashFunctions, long insertions) {
+        this.words = words;
+        this.bits = words.length() * 64L;
+        this.hashFunctions = hashFunctions;
+        this.insertions.add(insertions);
+    }
+
+    void put(String value) {
+        putHash(hash(value));
+    }
+
+    /**
+     * 미리 계산한 {@link #hash(String)} 값으로 추가한다. 항목 수를 모르는 채로 해시를 모아 두었다가 크기를 정할 때 쓴다.
+     */
+    void putHash(long h1) {
+        long h2 = mix(h1) | 1; //h2 가 0 이면 모든 해시가 같아지므로 홀수로 만든다.
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = Math.floorMod(h1 + i * h2, bits);
+            long mask = 1L << index;
+            int word = (int) (index >>> 6);
+            long current;
+            while (((current = words.get(word)) & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                Thread.onSpinWait();
+            }
+        }
+        insertions.increment();
+    }
+
+    boolean mightContain(String value) {
+        return mightContainHash(hash(value));
+    }
+
+    boolean mightContainHash(long h1) {
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = Math.floorMod(h1 + i * h2, bits);
+            if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long byteSize() {
+        return words.length() * 8L;
+    }
+
+    int hashFunctions() {
+        return hashFunctions;
+    }
+
+    /**
+     * 추가한 횟수. 같은 값을 여러 번 추가하면 중복해서 센다.
+     */
+    long insertions() {
+        return insertions.sum();
+    }
+
+    /**
+     * 지금까지 추가한 항목 수로 계산한 오탐률 추정치 (1 - e^(-kn/m))^k
+     */
+    double estimatedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-hashFunctions * (double) insertions() / bits), hashFunctions);
+    }
+
+    /**
+     * 저장에 필요한 바이트 수
+     */
+    int serializedBytes() {
+        return 4 + 8 + 4 + words.length() * 8;
+    }
+
+    /**
+     * [해시 함수 수(int)][추가 횟수(long)][word 수(int)][word(long)...]
+     */
+    void writeTo(ByteBuffer buffer) {
+        buffer.putInt(hashFunctions).putLong(insertions()).putInt(words.length());
+        for (int i = 0; i < words.length(); i++) {
+            buffer.putLong(words.get(i));
+        }
+    }
+
+    static BloomFilter readFrom(ByteBuffer buffer) {
+        int hashFunctions = buffer.getInt();
+        long insertions = buffer.getLong();
+        long[] words = new long[buffer.getInt()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = buffer.getLong();
+        }
+        return new BloomFilter(new AtomicLongArray(words), hashFunctions, insertions);
+    }
+
+    /**
+     * UTF-8 바이트의 FNV-1a 64비트 해시
+     */
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * MurmurHash3 의 fmix64. 비트를 고르게 섞는다.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
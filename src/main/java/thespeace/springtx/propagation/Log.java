@@ -1,21 +1,41 @@
 package thespeace.springtx.propagation;
 
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.Setter;
+import thespeace.springtx.cdc.ChangeCaptureListener;
+import thespeace.springtx.id.BlockSequence;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 /**
  * <h2>JPA를 통해 관리하는 로그 엔티티</h2>
+ * 로그는 계속 쌓이기만 하므로 생성 일자 단위의 버킷(bucket, 예: 20240501)으로 나누어 저장한다.
+ * <ul>
+ *     <li>보관 기간이 지난 로그는 로우 단위가 아니라 버킷 단위로 한 번에 삭제한다. ({@link LogRetentionJob})</li>
+ *     <li>message, bucket 에 인덱스를 두어 데이터가 쌓여도 조회와 버킷 삭제가 전체 테이블을 스캔하지 않는다.</li>
+ * </ul>
  */
 @Entity
+@EntityListeners(ChangeCaptureListener.class)
+@Table(indexes = {
+        @Index(name = "idx_log_message", columnList = "message"),
+        @Index(name = "idx_log_bucket", columnList = "bucket")
+})
 @Getter @Setter
 public class Log {
 
-    @Id @GeneratedValue
+    @Id @BlockSequence(name = "log_seq")
     private Long id;
     private String message;
+    private LocalDateTime createdAt;
+    private int bucket;
 
     public Log() {
     }
@@ -23,4 +43,19 @@ public class Log {
     public Log(String message) {
         this.message = message;
     }
+
+    /**
+     * 생성 시각을 지정하지 않았으면 현재 시각을 사용하고, 생성 시각으로 버킷을 정한다.
+     */
+    @PrePersist
+    void assignBucket() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+        bucket = bucketOf(createdAt.toLocalDate());
+    }
+
+    public static int bucketOf(LocalDate date) {
+        return date.getYear() * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth();
+    }
 }
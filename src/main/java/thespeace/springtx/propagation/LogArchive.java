@@ -0,0 +1,128 @@
+package thespeace.springtx.propagation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+/**
+ * <h2>로그 콜드 아카이브</h2>
+ * DB에서 내보낸 오래된 로그를 {@link LogSegment} 파일로 보관하고, message 로 조회한다.
+ * <ul>
+ *     <li>세그먼트 파일은 springtx.log.archive-dir 디렉토리에 버킷별로 쌓인다. 버킷이 크면 세그먼트 여러 개로 나뉜다.</li>
+ *     <li>애플리케이션 시작 시 기존 세그먼트를 모두 매핑해 두고, 새로 쓴 세그먼트는 바로 조회 대상에 추가한다.</li>
+ *     <li>조회는 최근 세그먼트부터 찾는다. 세그먼트마다 메모리에 둔 블룸 필터로 먼저 거르므로,
+ *         아카이브에 없는 message 는 세그먼트 수와 관계없이 블록을 거의 읽지 않는다.</li>
+ *     <li>보관 기간이 지난 버킷의 세그먼트는 {@link #expireBefore(int)} 로 지운다. ({@link LogRetentionJob})</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class LogArchive {
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public LogArchive(@Value("${springtx.log.archive-dir}") Path directory) {
+        this(directory, LogSegment.MAX_BYTES);
+    }
+
+    LogArchive(Path directory, long segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        if (Files.isDirectory(directory)) {
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(file -> file.getFileName().toString().endsWith(LogSegment.SUFFIX))
+                        .sorted(Comparator.reverseOrder())
+                        .forEach(file -> segments.add(new Segment(bucketOf(file), LogSegment.open(file))));
+            } catch (IOException e) {
+                throw new UncheckedIOException("로그 아카이브 디렉토리를 열 수 없습니다. directory=" + directory, e);
+            }
+        }
+        log.info("로그 아카이브 directory={}, segments={}", directory, segments.size());
+    }
+
+    /**
+     * 버킷의 로그를 새 세그먼트로 기록하고 조회 대상에 추가한다. 디렉토리는 처음 기록할 때 만든다.
+     *
+     * @return 기록한 로그 수
+     */
+    public int write(int bucket, Iterator<Log> logs) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("로그 아카이브 디렉토리를 만들 수 없습니다. directory=" + directory, e);
+        }
+        int count = 0;
+        for (int part = 0; part == 0 || logs.hasNext(); part++) {
+            Path file = directory.resolve("log-" + bucket + "-" + System.currentTimeMillis() + "-" + part + LogSegment.SUFFIX);
+            count += LogSegment.write(file, logs, segmentBytes);
+            segments.add(0, new Segment(bucket, LogSegment.open(file)));
+        }
+        return count;
+    }
+
+    public Optional<Log> find(String message) {
+        for (Segment segment : segments) {
+            Optional<Log> found = segment.file().find(message);
+            if (found.isPresent()) {
+                return found;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * bucket 이전(bucket 미포함) 버킷의 세그먼트를 조회 대상에서 빼고 파일을 지운다.
+     *
+     * @return 지운 세그먼트 수
+     */
+    public int expireBefore(int bucket) {
+        int expired = 0;
+        for (Segment segment : segments) {
+            if (segment.bucket() < bucket && segments.remove(segment)) {
+                try {
+                    Files.deleteIfExists(segment.file().path());
+                } catch (IOException e) {
+                    throw new UncheckedIOException("로그 세그먼트 삭제 실패. path=" + segment.file().path(), e);
+                }
+                expired++;
+            }
+        }
+        return expired;
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * 조회하면서 압축을 푼 블록 수
+     */
+    public long blockReads() {
+        return segments.stream().mapToLong(segment -> segment.file().blockReads()).sum();
+    }
+
+    /**
+     * 파일 이름(log-버킷-시각[-순번].seg)에서 버킷을 읽는다.
+     */
+    private static int bucketOf(Path file) {
+        return Integer.parseInt(file.getFileName().toString().split("-")[1]);
+    }
+
+    private record Segment(int bucket, LogSegment file) {
+    }
+}
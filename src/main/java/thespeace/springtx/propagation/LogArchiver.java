@@ -0,0 +1,64 @@
+package thespeace.springtx.propagation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <h2>오래된 로그를 콜드 아카이브로 옮기는 작업</h2>
+ * springtx.log.archive-after-days 가 지난 버킷을 {@link LogArchive} 세그먼트로 내보내고 DB에서 삭제한다.
+ * <ol>
+ *     <li>버킷을 읽기 전용 트랜잭션에서 스트리밍하면서 세그먼트 파일로 기록한다.</li>
+ *     <li>기록이 끝난 로그만 id 기준으로 batch-size 개씩 나누어, 배치마다 별도의 트랜잭션으로 삭제한다.</li>
+ * </ol>
+ * 기록 후 삭제 전에 실패하면 다음 실행에서 같은 로그가 한 번 더 기록될 수 있다. 조회 결과에는 영향이 없다.
+ */
+@Slf4j
+@Component
+public class LogArchiver {
+
+    private final LogRepository logRepository;
+    private final LogArchive logArchive;
+    private final int archiveAfterDays;
+    private final int batchSize;
+
+    public LogArchiver(LogRepository logRepository, LogArchive logArchive,
+                       @Value("${springtx.log.archive-after-days:7}") int archiveAfterDays,
+                       @Value("${springtx.log.archive-batch-size:1000}") int batchSize) {
+        this.logRepository = logRepository;
+        this.logArchive = logArchive;
+        this.archiveAfterDays = archiveAfterDays;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${springtx.log.archive-cron:0 30 2 * * *}")
+    public void archive() {
+        archiveBefore(LocalDate.now().minusDays(archiveAfterDays));
+    }
+
+    /**
+     * cutoff 이전(cutoff 미포함) 버킷을 아카이브로 옮긴다.
+     *
+     * @return 옮긴 로그 수
+     */
+    public int archiveBefore(LocalDate cutoff) {
+        int total = 0;
+        for (Integer bucket : logRepository.findBucketsBefore(Log.bucketOf(cutoff))) {
+            List<Long> ids = new ArrayList<>();
+            int written = logRepository.streamBucket(bucket,
+                    logs -> logArchive.write(bucket, logs.peek(logMessage -> ids.add(logMessage.getId())).iterator()));
+
+            for (int from = 0; from < ids.size(); from += batchSize) {
+                logRepository.deleteByIds(ids.subList(from, Math.min(from + batchSize, ids.size())));
+            }
+            log.info("로그 버킷 아카이브 bucket={}, count={}", bucket, written);
+            total += written;
+        }
+        return total;
+    }
+}
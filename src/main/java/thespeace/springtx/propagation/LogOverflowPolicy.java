@@ -0,0 +1,14 @@
+package thespeace.springtx.propagation;
+
+/**
+ * <h2>로그 대기열이 가득 찼을 때의 처리 (springtx.log.queue.overflow)</h2>
+ * 어느 쪽이든 로그를 버리지 않는다.
+ * <ul>
+ *     <li>CALLER_RUNS : 호출한 스레드에서 바로 저장한다. (REQUIRES_NEW) 호출 스레드가 DB 쓰기 시간만큼 늦어진다.</li>
+ *     <li>BLOCK : 쓰기 스레드가 대기열을 비워 자리가 날 때까지 springtx.log.queue.overflow-wait 만큼 기다린다.
+ *         그래도 자리가 없으면 CALLER_RUNS 처럼 바로 저장한다. DB가 잠깐 느려진 동안 호출 스레드가 DB 커넥션을 더 잡지 않는다.</li>
+ * </ul>
+ */
+public enum LogOverflowPolicy {
+    CALLER_RUNS, BLOCK
+}
@@ -0,0 +1,44 @@
+package thespeace.springtx.propagation;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * <h2>로그 대기열 설정</h2>
+ * springtx.log.queue.enabled=true 일 때만 적용된다. 이때 {@link MemberService#joinV3(String)} 의 로그는 대기열을 거쳐 저장된다.
+ * <pre>
+ * springtx.log.queue.enabled=true
+ * springtx.log.queue.capacity=64MB
+ * springtx.log.queue.batch-size=500
+ * springtx.log.queue.max-batch-retries=3   #같은 배치가 이만큼 연속 실패하면 한 건씩 저장하고, 저장할 수 없는 로그는 데드레터로 보낸다.
+ * springtx.log.queue.file=/var/lib/springtx/log-queue.dat   #지정하면 파일에 매핑한다.
+ * springtx.log.queue.overflow=caller-runs   #가득 찼을 때 caller-runs(바로 저장) 또는 block(자리가 날 때까지 대기)
+ * springtx.log.queue.overflow-wait=200ms    #block 일 때 기다리는 최대 시간. 지나면 바로 저장한다.
+ * </pre>
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.log.queue.enabled", havingValue = "true")
+public class LogQueueConfig {
+
+    @Bean
+    AsyncLogWriter asyncLogWriter(LogRepository logRepository,
+                                  @Value("${springtx.log.queue.capacity:64MB}") DataSize capacity,
+                                  @Value("${springtx.log.queue.batch-size:500}") int batchSize,
+                                  @Value("${springtx.log.queue.max-batch-retries:3}") int maxBatchRetries,
+                                  @Value("${springtx.log.queue.file:}") String file,
+                                  @Value("${springtx.log.queue.overflow:caller-runs}") LogOverflowPolicy overflow,
+                                  @Value("${springtx.log.queue.overflow-wait:200ms}") Duration overflowWait) {
+        int bytes = Math.toIntExact(capacity.toBytes());
+        LogRingBuffer queue = StringUtils.hasText(file)
+                ? LogRingBuffer.mapped(Path.of(file), bytes)
+                : LogRingBuffer.direct(bytes);
+        return new AsyncLogWriter(queue, logRepository, batchSize, maxBatchRetries, overflow, overflowWait);
+    }
+}
@@ -3,16 +3,24 @@ package thespeace.springtx.propagation;
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import thespeace.springtx.tx.ReadOnlyQueries;
+import thespeace.springtx.tx.TxPolicies;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * <h2>JPA를 사용하는 로그 리포지토리</h2>
  * 저장과 조회 기능을 제공한다.<br>
- * 중간에 예외 상황을 재현하기 위해 `로그예외` 라고 입력하는 경우 예외를 발생시킨다.
+ * 중간에 예외 상황을 재현하기 위해 `로그예외` 라고 입력하는 경우 예외를 발생시킨다.<br>
+ * DB에 없는 로그는 콜드 아카이브({@link LogArchive})에서 찾는다.<br>
+ * 조회는 읽기 전용 경로({@link ReadOnlyQueries})로 실행하고, 데이터만 필요하면 {@link #findView(String)} 를 사용한다.
  */
 @Slf4j
 @Repository
@@ -20,8 +28,10 @@ import java.util.Optional;
 public class LogRepository {
 
     private final EntityManager em;
+    private final TxPolicies txPolicies;
+    private final LogArchive logArchive;
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, timeoutString = "${springtx.tx.timeout.log-save:3}")
     public void save(Log logMessage) {
         log.info("log 저장");
         em.persist(logMessage);
@@ -32,9 +42,68 @@ public class LogRepository {
         }
     }
 
+    /**
+     * 대기열({@link AsyncLogWriter})에서 꺼낸 로그를 한 트랜잭션으로 저장한다.
+     */
+    @Transactional(timeoutString = "${springtx.tx.timeout.log-batch:30}")
+    public void saveAll(List<Log> logs) {
+        logs.forEach(em::persist);
+    }
+
     public Optional<Log> find(String message) {
-        return em.createQuery("select l from Log l where l.message = :message", Log.class)
+        return txPolicies.apply("log.find", ReadOnlyQueries.apply(
+                        em.createQuery("select l from Log l where l.message = :message", Log.class)))
                 .setParameter("message", message)
-                .getResultList().stream().findAny();
+                .getResultList().stream().findAny()
+                .or(() -> logArchive.find(message));
+    }
+
+    public Optional<LogView> findView(String message) {
+        return txPolicies.apply("log.find", ReadOnlyQueries.apply(
+                        em.createQuery("select new thespeace.springtx.propagation.LogView(l.id, l.message, l.createdAt)"
+                                + " from Log l where l.message = :message", LogView.class)))
+                .setParameter("message", message)
+                .getResultList().stream().findAny()
+                .or(() -> logArchive.find(message).map(LogView::of));
+    }
+
+    /**
+     * bucket 보다 오래된 버킷 목록을 오래된 순서로 조회한다.
+     */
+    public List<Integer> findBucketsBefore(int bucket) {
+        return em.createQuery("select distinct l.bucket from Log l where l.bucket < :bucket order by l.bucket", Integer.class)
+                .setParameter("bucket", bucket)
+                .getResultList();
+    }
+
+    /**
+     * 버킷에 남은 로그 id 를 작은 순서로 최대 limit 개 조회한다. 청크 단위 삭제({@link #deleteByIds(List)})에 사용한다.
+     */
+    public List<Long> findIdsInBucket(int bucket, int limit) {
+        return em.createQuery("select l.id from Log l where l.bucket = :bucket order by l.id", Long.class)
+                .setParameter("bucket", bucket)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * 버킷의 로그를 message 순서로 스트리밍한다. 영속성 컨텍스트가 커지지 않도록 읽은 엔티티는 바로 준영속 상태로 만든다.
+     */
+    @Transactional(readOnly = true, timeoutString = "${springtx.tx.timeout.log-batch:30}")
+    public <T> T streamBucket(int bucket, Function<Stream<Log>, T> callback) {
+        try (Stream<Log> logs = em.createQuery("select l from Log l where l.bucket = :bucket order by l.message", Log.class)
+                .setParameter("bucket", bucket)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 500)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            return callback.apply(logs.peek(em::detach));
+        }
+    }
+
+    @Transactional(timeoutString = "${springtx.tx.timeout.log-batch:30}")
+    public int deleteByIds(List<Long> ids) {
+        return em.createQuery("delete from Log l where l.id in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
     }
 }
@@ -0,0 +1,68 @@
+package thespeace.springtx.propagation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * <h2>로그 보관 기간 정리 작업</h2>
+ * 보관 기간(springtx.log.retention-days)이 지난 로그를 버킷 단위로 삭제한다.
+ * 로그는 springtx.log.archive-after-days 가 지나면 콜드 아카이브({@link LogArchive})로 옮겨지므로,
+ * 보관 기간은 DB와 아카이브를 합친 기간이다. 두 곳 모두에서 지운다.
+ * <ul>
+ *     <li>아카이브: 보관 기간이 지난 버킷의 세그먼트 파일을 지운다.</li>
+ *     <li>DB: 버킷을 id 청크(springtx.log.retention-batch-size)로 나누어 청크마다 별도의 짧은 트랜잭션으로 삭제한다.
+ *         버킷이 커도 한 트랜잭션이 잡는 락은 청크 하나만큼이다. ({@link thespeace.springtx.order.OrderBulkJob} 과 같은 방식)</li>
+ *     <li>H2는 테이블 파티셔닝을 지원하지 않으므로, 파티션 DROP 대신 bucket 인덱스를 사용한 청크 삭제로 대신한다.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class LogRetentionJob {
+
+    private final LogRepository logRepository;
+    private final LogArchive logArchive;
+    private final int retentionDays;
+    private final int batchSize;
+
+    public LogRetentionJob(LogRepository logRepository, LogArchive logArchive,
+                           @Value("${springtx.log.retention-days:30}") int retentionDays,
+                           @Value("${springtx.log.retention-batch-size:1000}") int batchSize) {
+        this.logRepository = logRepository;
+        this.logArchive = logArchive;
+        this.retentionDays = retentionDays;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${springtx.log.retention-cron:0 0 3 * * *}")
+    public void purge() {
+        purgeBefore(LocalDate.now().minusDays(retentionDays));
+    }
+
+    /**
+     * cutoff 이전(cutoff 미포함) 버킷을 DB와 아카이브에서 모두 삭제한다.
+     *
+     * @return DB에서 삭제된 로그 수
+     */
+    public int purgeBefore(LocalDate cutoff) {
+        int segments = logArchive.expireBefore(Log.bucketOf(cutoff));
+        if (segments > 0) {
+            log.info("로그 아카이브 세그먼트 삭제 before={}, segments={}", cutoff, segments);
+        }
+        int total = 0;
+        for (Integer bucket : logRepository.findBucketsBefore(Log.bucketOf(cutoff))) {
+            int deleted = 0;
+            List<Long> ids;
+            while (!(ids = logRepository.findIdsInBucket(bucket, batchSize)).isEmpty()) {
+                deleted += logRepository.deleteByIds(ids);
+            }
+            log.info("로그 버킷 삭제 bucket={}, count={}", bucket, deleted);
+            total += deleted;
+        }
+        return total;
+    }
+}
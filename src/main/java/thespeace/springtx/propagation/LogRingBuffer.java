@@ -0,0 +1,262 @@
+package thespeace.springtx.propagation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <h2>힙 밖(off-heap)의 로그 메시지 링 버퍼</h2>
+ * 쓰기 대기 중인 로그를 Log 객체가 아니라 직렬화된 바이트로 direct 버퍼에 보관한다. 대기열이 길어져도 힙과 GC에 부담을 주지 않는다.
+ * <pre>
+ * [head(long)][tail(long)] [레코드]...
+ *
+ * 레코드 : [message 길이(int)][createdAt epoch millis(long)][message UTF-8]
+ * 패딩   : [-1(int)] 버퍼 끝에 레코드가 들어갈 자리가 없으면 남은 공간을 건너뛰고 처음부터 쓴다.
+ *          (남은 공간이 레코드 헤더보다 작으면 표시 없이 건너뛴다.)
+ * </pre>
+ * <ul>
+ *     <li>용량이 고정되어 있어서 가득 차면 {@link #offer(String, LocalDateTime)} 가 false 를 반환한다.
+ *         {@link #offer(String, LocalDateTime, long, TimeUnit)} 는 acknowledge 로 자리가 날 때까지 timeout 만큼 기다린다.</li>
+ *     <li>생산자는 여러 스레드, 소비자는 한 스레드이다. 소비자는 {@link #poll(int)} 로 읽고, DB에 저장한 뒤에 {@link #acknowledge(Batch)} 로 지운다.</li>
+ *     <li>파일을 지정하면 버퍼를 파일에 매핑({@link MappedByteBuffer})한다. head, tail 도 파일에 있으므로
+ *         프로세스가 비정상 종료되어도 offer 가 true 를 반환한 로그는 다음 시작 때 다시 읽힌다.
+ *         (저장 후 acknowledge 전에 종료되면 같은 로그가 한 번 더 저장될 수 있다.)</li>
+ * </ul>
+ */
+class LogRingBuffer {
+
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_HEADER_BYTES = 4 + 8;
+    private static final int PADDING = -1;
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private long head;
+    private long tail;
+    private int entries;
+
+    private LogRingBuffer(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.capacity = buffer.capacity() - HEADER_BYTES;
+        this.head = buffer.getLong(0);
+        this.tail = buffer.getLong(8);
+        this.entries = countEntries();
+    }
+
+    static LogRingBuffer direct(int capacity) {
+        return new LogRingBuffer(ByteBuffer.allocateDirect(HEADER_BYTES + capacity));
+    }
+
+    /**
+     * 파일에 매핑한 링 버퍼. 파일이 이미 있으면 남아 있는 로그를 이어서 읽는다.
+     */
+    static LogRingBuffer mapped(Path file, int capacity) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            if (channel.size() > 0 && channel.size() != HEADER_BYTES + capacity) {
+                throw new IllegalStateException("로그 대기열 파일의 크기가 설정과 다릅니다. path=" + file + ", size=" + channel.size());
+            }
+            return new LogRingBuffer(channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + capacity));
+        } catch (IOException e) {
+            throw new UncheckedIOException("로그 대기열 파일 매핑 실패. path=" + file, e);
+        }
+    }
+
+    /**
+     * @return 공간이 없으면 false
+     */
+    boolean offer(String message, LocalDateTime createdAt) {
+        byte[] bytes = encode(message);
+        lock.lock();
+        try {
+            return write(bytes, createdAt);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 공간이 없으면 acknowledge 로 자리가 날 때까지 최대 timeout 만큼 기다린다.
+     *
+     * @return timeout 이 지나도 공간이 없으면 false
+     */
+    boolean offer(String message, LocalDateTime createdAt, long timeout, TimeUnit unit) throws InterruptedException {
+        byte[] bytes = encode(message);
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (!write(bytes, createdAt)) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private byte[] encode(String message) {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        if (RECORD_HEADER_BYTES + bytes.length > capacity) {
+            throw new IllegalArgumentException("로그가 대기열 용량보다 큽니다. bytes=" + (RECORD_HEADER_BYTES + bytes.length));
+        }
+        return bytes;
+    }
+
+    /**
+     * lock 을 잡은 상태에서 호출한다.
+     */
+    private boolean write(byte[] bytes, LocalDateTime createdAt) {
+        int recordBytes = RECORD_HEADER_BYTES + bytes.length;
+        int position = (int) (tail % capacity);
+        int contiguous = capacity - position;
+        long skip = contiguous < recordBytes ? contiguous : 0;
+        if (capacity - (tail - head) < skip + recordBytes) {
+            return false;
+        }
+        if (skip > 0) {
+            if (contiguous >= 4) {
+                buffer.putInt(HEADER_BYTES + position, PADDING);
+            }
+            position = 0;
+        }
+        int offset = HEADER_BYTES + position;
+        buffer.putInt(offset, bytes.length);
+        buffer.putLong(offset + 4, createdAt.toInstant(ZoneOffset.UTC).toEpochMilli());
+        buffer.put(offset + RECORD_HEADER_BYTES, bytes);
+
+        tail += skip + recordBytes;
+        buffer.putLong(8, tail); //레코드를 다 쓴 뒤에 tail 을 옮긴다.
+        entries++;
+        notEmpty.signal();
+        return true;
+    }
+
+    /**
+     * 최대 max 개의 로그를 읽는다. {@link #acknowledge(Batch)} 하기 전까지 버퍼에서 지워지지 않는다.
+     */
+    Batch poll(int max) {
+        lock.lock();
+        try {
+            List<Log> logs = new ArrayList<>(Math.min(max, entries));
+            long position = head;
+            while (logs.size() < max && position < tail) {
+                int offset = (int) (position % capacity);
+                int contiguous = capacity - offset;
+                if (contiguous < RECORD_HEADER_BYTES || buffer.getInt(HEADER_BYTES + offset) == PADDING) {
+                    position += contiguous;
+                    continue;
+                }
+                int length = buffer.getInt(HEADER_BYTES + offset);
+                long createdAt = buffer.getLong(HEADER_BYTES + offset + 4);
+                byte[] bytes = new byte[length];
+                buffer.get(HEADER_BYTES + offset + RECORD_HEADER_BYTES, bytes);
+
+                Log logMessage = new Log(new String(bytes, StandardCharsets.UTF_8));
+                logMessage.setCreatedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(createdAt), ZoneOffset.UTC));
+                logs.add(logMessage);
+                position += RECORD_HEADER_BYTES + length;
+            }
+            return new Batch(logs, position);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void acknowledge(Batch batch) {
+        lock.lock();
+        try {
+            head = batch.nextHead();
+            buffer.putLong(0, head);
+            entries -= batch.logs().size();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 로그가 들어오거나 timeout 이 지날 때까지 기다린다.
+     */
+    void awaitNotEmpty(long timeout, TimeUnit unit) throws InterruptedException {
+        lock.lock();
+        try {
+            if (head == tail) {
+                notEmpty.await(timeout, unit);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 매핑한 파일의 변경을 디스크에 기록한다. 프로세스 종료에는 필요 없고, OS 장애까지 견디려면 호출한다.
+     */
+    void force() {
+        if (buffer instanceof MappedByteBuffer mapped) {
+            mapped.force();
+        }
+    }
+
+    int entries() {
+        lock.lock();
+        try {
+            return entries;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long usedBytes() {
+        lock.lock();
+        try {
+            return tail - head;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    private int countEntries() {
+        int count = 0;
+        long position = head;
+        while (position < tail) {
+            int offset = (int) (position % capacity);
+            int contiguous = capacity - offset;
+            if (contiguous < RECORD_HEADER_BYTES || buffer.getInt(HEADER_BYTES + offset) == PADDING) {
+                position += contiguous;
+                continue;
+            }
+            position += RECORD_HEADER_BYTES + buffer.getInt(HEADER_BYTES + offset);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @param nextHead acknowledge 하면 옮겨갈 head 위치
+     */
+    record Batch(List<Log> logs, long nextHead) {
+    }
+}
@@ -0,0 +1,370 @@
+package thespeace.springtx.propagation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * <h2>압축된 로그 아카이브 세그먼트 파일</h2>
+ * 한 번 쓰고 나면 변경하지 않는(append-only) 파일이다. 구조는 다음과 같다.
+ * <pre>
+ * [블록]...[블록] [인덱스] [블룸 필터] [인덱스 시작 위치(long)][블룸 필터 시작 위치(long)][MAGIC(int)]
+ *
+ * 블록   : [원본 길이(int)][압축 길이(int)][deflate 압축된 로그 레코드들]
+ * 레코드 : [id(long)][createdAt epoch millis(long)][bucket(int)][message 길이(int, null 이면 -1)][message UTF-8]
+ * 인덱스 : [블록 수(int)] ([블록 위치(long)][최소 message][최대 message])...
+ * 블룸   : {@link BloomFilter#writeTo} 형식. 세그먼트의 모든 message 를 담는다.
+ * </pre>
+ * 조회는 먼저 블룸 필터로 이 세그먼트에 없는 message 를 걸러낸다. 없는 message 는 블록을 하나도 읽지 않는다.<br>
+ * 인덱스는 블록마다 한 항목만 가지는 희소(sparse) 인덱스이다. message 로 찾을 때는 범위에 포함되는 블록만 압축을 푼다.
+ * 로그를 message 순서로 쓰면 범위가 겹치지 않으므로 블록 범위를 이진 탐색하고, 대부분 블록 하나만 읽으면 된다.
+ * 순서대로 쓰지 않은 세그먼트는 범위를 차례로 확인한다.<p>
+ *
+ * 한 세그먼트는 maxBytes(기본 {@link #MAX_BYTES}) 근처에서 끊는다. 매핑은 2GB를 넘을 수 없으므로, 남은 로그는 다음 세그먼트에 쓴다.<br>
+ * MAGIC 이 없는 예전 형식([인덱스 시작 위치(long)]로 끝나는 파일)은 열 때 블록을 모두 읽어 블룸 필터를 만든다.<p>
+ *
+ * 쓰기는 임시 파일에 {@link FileChannel} 로 기록하고 디스크에 동기화한 뒤 이름을 바꾼다. 따라서 완성된 세그먼트만 보인다.
+ * 읽기는 파일 전체를 {@link MappedByteBuffer} 로 매핑해서 사용한다.
+ */
+class LogSegment {
+
+    static final String SUFFIX = ".seg";
+    static final long MAX_BYTES = 1L << 30;
+    private static final int BLOCK_BYTES = 32 * 1024;
+    private static final int MAGIC = 0x4C534732; //"LSG2"
+    private static final int FOOTER_BYTES = 8 + 8 + 4;
+    private static final double BLOOM_FALSE_POSITIVE_RATE = 0.01;
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int[] blockOffsets;
+    private final String[] minKeys;
+    private final String[] maxKeys;
+    private final boolean sorted;
+    private final BloomFilter bloom;
+    private final LongAdder blockReads = new LongAdder();
+
+    private LogSegment(Path path, MappedByteBuffer buffer, int[] blockOffsets, String[] minKeys, String[] maxKeys,
+                       BloomFilter bloom) {
+        this.path = path;
+        this.buffer = buffer;
+        this.blockOffsets = blockOffsets;
+        this.minKeys = minKeys;
+        this.maxKeys = maxKeys;
+        this.sorted = sorted(minKeys, maxKeys);
+        this.bloom = bloom != null ? bloom : scanBloom();
+    }
+
+    /**
+     * 블록 범위가 겹치지 않고 오름차순이면 이진 탐색할 수 있다.
+     */
+    private static boolean sorted(String[] minKeys, String[] maxKeys) {
+        for (int i = 0; i < minKeys.length; i++) {
+            if (minKeys[i].compareTo(maxKeys[i]) > 0 || i > 0 && maxKeys[i - 1].compareTo(minKeys[i]) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    /**
+     * 로그를 세그먼트 파일로 기록한다. 파일이 maxBytes 를 넘으면 블록 경계에서 멈추고, 남은 로그는 logs 에 그대로 남는다.
+     *
+     * @return 기록한 로그 수
+     */
+    static int write(Path target, Iterator<Log> logs, long maxBytes) {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        List<Long> offsets = new ArrayList<>();
+        List<String[]> ranges = new ArrayList<>();
+        long[] hashes = new long[1024];
+        int hashCount = 0;
+        int count = 0;
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            ByteBuffer block = ByteBuffer.allocate(BLOCK_BYTES * 2);
+            String min = null;
+            String max = null;
+
+            while (logs.hasNext() && channel.position() < maxBytes) {
+                Log logMessage = logs.next();
+                byte[] message = logMessage.getMessage() == null ? null : logMessage.getMessage().getBytes(StandardCharsets.UTF_8);
+                int recordBytes = 8 + 8 + 4 + 4 + (message == null ? 0 : message.length);
+                if (block.position() > 0 && block.position() + recordBytes > BLOCK_BYTES) {
+                    offsets.add(channel.position());
+                    ranges.add(new String[]{min, max});
+                    writeBlock(channel, deflater, block);
+                    min = null;
+                    max = null;
+                }
+                if (recordBytes > block.remaining()) {
+                    block = grow(block, recordBytes);
+                }
+                block.putLong(logMessage.getId());
+                block.putLong(logMessage.getCreatedAt() == null ? 0 : logMessage.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli());
+                block.putInt(logMessage.getBucket());
+                block.putInt(message == null ? -1 : message.length);
+                if (message != null) {
+                    block.put(message);
+                    if (hashCount == hashes.length) {
+                        hashes = Arrays.copyOf(hashes, hashes.length * 2);
+                    }
+                    hashes[hashCount++] = BloomFilter.hash(logMessage.getMessage());
+                    min = min == null || logMessage.getMessage().compareTo(min) < 0 ? logMessage.getMessage() : min;
+                    max = max == null || logMessage.getMessage().compareTo(max) > 0 ? logMessage.getMessage() : max;
+                }
+                count++;
+            }
+            if (block.position() > 0) {
+                offsets.add(channel.position());
+                ranges.add(new String[]{min, max});
+                writeBlock(channel, deflater, block);
+            }
+            deflater.end();
+
+            long indexOffset = channel.position();
+            writeIndex(channel, offsets, ranges);
+
+            long bloomOffset = channel.position();
+            BloomFilter bloom = new BloomFilter(Math.max(1, hashCount), BLOOM_FALSE_POSITIVE_RATE);
+            for (int i = 0; i < hashCount; i++) {
+                bloom.putHash(hashes[i]);
+            }
+            ByteBuffer tail = ByteBuffer.allocate(bloom.serializedBytes() + FOOTER_BYTES);
+            bloom.writeTo(tail);
+            tail.putLong(indexOffset).putLong(bloomOffset).putInt(MAGIC).flip();
+            while (tail.hasRemaining()) {
+                channel.write(tail);
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("로그 세그먼트 기록 실패. path=" + target, e);
+        }
+
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("로그 세그먼트 이름 변경 실패. path=" + target, e);
+        }
+        return count;
+    }
+
+    private static ByteBuffer grow(ByteBuffer block, int recordBytes) {
+        ByteBuffer larger = ByteBuffer.allocate(block.capacity() + recordBytes);
+        return larger.put(block.flip());
+    }
+
+    private static void writeBlock(FileChannel channel, Deflater deflater, ByteBuffer block) throws IOException {
+        block.flip();
+        int rawLength = block.remaining();
+        deflater.reset();
+        deflater.setInput(block);
+        deflater.finish();
+
+        ByteBuffer compressed = ByteBuffer.allocate(rawLength + 64);
+        while (!deflater.finished()) {
+            if (!compressed.hasRemaining()) {
+                compressed = ByteBuffer.allocate(compressed.capacity() * 2).put(compressed.flip());
+            }
+            deflater.deflate(compressed);
+        }
+        compressed.flip();
+
+        ByteBuffer header = ByteBuffer.allocate(8).putInt(rawLength).putInt(compressed.remaining()).flip();
+        while (header.hasRemaining() || compressed.hasRemaining()) {
+            channel.write(new ByteBuffer[]{header, compressed});
+        }
+        block.clear();
+    }
+
+    private static void writeIndex(FileChannel channel, List<Long> offsets, List<String[]> ranges) throws IOException {
+        int size = 4;
+        List<byte[]> keys = new ArrayList<>();
+        for (String[] range : ranges) {
+            for (String key : range) {
+                byte[] bytes = key == null ? new byte[0] : key.getBytes(StandardCharsets.UTF_8);
+                keys.add(bytes);
+                size += 4 + bytes.length;
+            }
+            size += 8;
+        }
+
+        ByteBuffer index = ByteBuffer.allocate(size).putInt(offsets.size());
+        for (int i = 0; i < offsets.size(); i++) {
+            index.putLong(offsets.get(i));
+            for (byte[] key : List.of(keys.get(i * 2), keys.get(i * 2 + 1))) {
+                index.putInt(key.length).put(key);
+            }
+        }
+        index.flip();
+        while (index.hasRemaining()) {
+            channel.write(index);
+        }
+    }
+
+    /**
+     * 세그먼트 파일을 메모리에 매핑하고 희소 인덱스와 블룸 필터를 읽는다.
+     */
+    static LogSegment open(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("로그 세그먼트가 2GB를 넘어서 매핑할 수 없습니다. path=" + path + ", size=" + channel.size());
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            boolean current = buffer.limit() >= FOOTER_BYTES && buffer.getInt(buffer.limit() - 4) == MAGIC;
+            int indexOffset = Math.toIntExact(buffer.getLong(buffer.limit() - (current ? FOOTER_BYTES : 8)));
+            ByteBuffer index = buffer.duplicate().position(indexOffset);
+
+            int blocks = index.getInt();
+            int[] blockOffsets = new int[blocks];
+            String[] minKeys = new String[blocks];
+            String[] maxKeys = new String[blocks];
+            for (int i = 0; i < blocks; i++) {
+                blockOffsets[i] = Math.toIntExact(index.getLong());
+                minKeys[i] = readString(index, index.getInt());
+                maxKeys[i] = readString(index, index.getInt());
+            }
+            BloomFilter bloom = null;
+            if (current) {
+                int bloomOffset = Math.toIntExact(buffer.getLong(buffer.limit() - FOOTER_BYTES + 8));
+                bloom = BloomFilter.readFrom(buffer.duplicate().position(bloomOffset));
+            }
+            return new LogSegment(path, buffer, blockOffsets, minKeys, maxKeys, bloom);
+        } catch (IOException e) {
+            throw new UncheckedIOException("로그 세그먼트 열기 실패. path=" + path, e);
+        }
+    }
+
+    /**
+     * 블룸 필터가 없는 예전 형식의 세그먼트는 블록을 모두 읽어서 만든다.
+     */
+    private BloomFilter scanBloom() {
+        List<String> messages = new ArrayList<>();
+        for (int blockOffset : blockOffsets) {
+            ByteBuffer records = inflate(blockOffset);
+            while (records.hasRemaining()) {
+                records.position(records.position() + 8 + 8 + 4);
+                int length = records.getInt();
+                if (length >= 0) {
+                    messages.add(readString(records, length));
+                }
+            }
+        }
+        BloomFilter scanned = new BloomFilter(Math.max(1, messages.size()), BLOOM_FALSE_POSITIVE_RATE);
+        messages.forEach(scanned::put);
+        return scanned;
+    }
+
+    /**
+     * 압축을 푼 블록 수. 조회 비용을 확인하는 데 쓴다.
+     */
+    long blockReads() {
+        return blockReads.sum();
+    }
+
+    /**
+     * message 가 일치하는 로그를 찾는다. 블룸 필터가 없다고 답하면 블록을 읽지 않고,
+     * 있으면 인덱스 범위에 들어가는 블록만 압축을 푼다.
+     */
+    Optional<Log> find(String message) {
+        if (!bloom.mightContain(message)) {
+            return Optional.empty();
+        }
+        for (int i = sorted ? firstBlockNotBefore(message) : 0; i < blockOffsets.length; i++) {
+            if (message.compareTo(minKeys[i]) < 0) {
+                if (sorted) {
+                    break; //이후 블록은 모두 message 보다 크다.
+                }
+                continue;
+            }
+            if (message.compareTo(maxKeys[i]) > 0) {
+                continue;
+            }
+            ByteBuffer records = inflate(blockOffsets[i]);
+            while (records.hasRemaining()) {
+                long id = records.getLong();
+                long createdAt = records.getLong();
+                int bucket = records.getInt();
+                int length = records.getInt();
+                String recordMessage = length < 0 ? null : readString(records, length);
+                if (message.equals(recordMessage)) {
+                    Log found = new Log(recordMessage);
+                    found.setId(id);
+                    found.setCreatedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(createdAt), ZoneOffset.UTC));
+                    found.setBucket(bucket);
+                    return Optional.of(found);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 최대 message 가 message 이상인 첫 블록 (정렬된 세그먼트에서만 사용한다)
+     */
+    private int firstBlockNotBefore(String message) {
+        int low = 0;
+        int high = maxKeys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (maxKeys[mid].compareTo(message) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private ByteBuffer inflate(int blockOffset) {
+        blockReads.increment();
+        ByteBuffer block = buffer.duplicate().position(blockOffset);
+        int rawLength = block.getInt();
+        int compressedLength = block.getInt();
+        block.limit(block.position() + compressedLength);
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(block);
+            ByteBuffer records = ByteBuffer.allocate(rawLength);
+            while (records.hasRemaining() && !inflater.finished()) {
+                inflater.inflate(records);
+            }
+            return records.flip();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("로그 세그먼트가 손상되었습니다. path=" + path, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static String readString(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
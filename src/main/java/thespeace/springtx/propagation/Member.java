@@ -1,22 +1,39 @@
 package thespeace.springtx.propagation;
 
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import thespeace.springtx.cdc.ChangeCaptureListener;
+import thespeace.springtx.id.BlockSequence;
 
 /**
  * <h2>JPA를 통해 관리하는 회원 엔티티</h2>
+ * 저장, 변경된 username 은 {@link MemberExistenceListener} 가 블룸 필터에 추가하고, {@link MemberCacheListener} 가 캐시에서 지운다.<br>
+ * username 으로 조회하므로 username 에 인덱스를 둔다.
  */
 @Entity
+@EntityListeners({MemberExistenceListener.class, MemberCacheListener.class, ChangeCaptureListener.class})
+@Table(indexes = @Index(name = "idx_member_username", columnList = "username"))
 @Getter @Setter
 public class Member {
 
-    @Id @GeneratedValue
+    @Id @BlockSequence(name = "member_seq")
     private Long id;
     private String username;
 
+    /**
+     * 조회, 저장할 때의 username. 변경 감지로 username 이 바뀌면 이전 username 의 캐시를 지우는 데 쓴다.
+     */
+    @Transient
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    String loadedUsername;
+
     public Member() {
     }
 
@@ -0,0 +1,41 @@
+package thespeace.springtx.propagation;
+
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import thespeace.springtx.cache.CacheConfig;
+import thespeace.springtx.cache.InvalidationBus;
+
+/**
+ * <h2>회원 저장, 변경을 캐시 무효화 버스에 넘기는 엔티티 리스너</h2>
+ * 리포지토리를 거치지 않는 저장(예: {@link thespeace.springtx.tx.WriteBehind})과 변경 감지로 바뀐 회원도 무효화된다.
+ * 캐시를 사용하지 않으면(springtx.cache.enabled=false) 아무것도 하지 않는다.
+ * <ul>
+ *     <li>username 을 바꾸면 바꾸기 전 username 도 지운다. 조회, 저장할 때의 username 을 엔티티에 기억해 둔다.</li>
+ *     <li>무효화는 트랜잭션이 커밋된 뒤에 보낸다. ({@link InvalidationBus#invalidateAfterCommit(String, String)})</li>
+ * </ul>
+ */
+@RequiredArgsConstructor
+public class MemberCacheListener {
+
+    private final ObjectProvider<InvalidationBus> invalidationBus;
+
+    @PostLoad
+    void loaded(Member member) {
+        member.loadedUsername = member.getUsername();
+    }
+
+    @PostPersist
+    @PostUpdate
+    void changed(Member member) {
+        invalidationBus.ifAvailable(bus -> {
+            bus.invalidateAfterCommit(CacheConfig.MEMBER_VIEW, MemberRepository.cacheKey(member.getUsername()));
+            if (member.loadedUsername != null && !member.loadedUsername.equals(member.getUsername())) {
+                bus.invalidateAfterCommit(CacheConfig.MEMBER_VIEW, MemberRepository.cacheKey(member.loadedUsername));
+            }
+        });
+        member.loadedUsername = member.getUsername();
+    }
+}
@@ -0,0 +1,167 @@
+package thespeace.springtx.propagation;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import thespeace.springtx.tenant.TenantContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * <h2>username 존재 여부 사전 확인 (블룸 필터)</h2>
+ * 회원 가입 경로의 조회는 대부분 없는 username 이다. 필터가 "없다" 고 답하면 DB를 조회하지 않는다.
+ * <ul>
+ *     <li>테넌트(DB)마다 필터를 따로 둔다. 기본 DB 필터는 시작할 때, 나머지는 처음 조회할 때 회원 테이블을 스트리밍해서 만든다.</li>
+ *     <li>JPA로 저장, 변경한 회원의 username 은 엔티티 리스너({@link MemberExistenceListener})가 커밋 전에 추가한다.
+ *         커밋 후에 추가하면 커밋과 추가 사이에 다른 스레드가 "없다" 는 답을 받을 수 있다.
+ *         커밋 전에 추가하면 롤백되어도 오탐(있을 수 있다)만 늘어나고 잘못된 "없다" 는 생기지 않는다.</li>
+ *     <li>필터를 만드는 동안 저장된 username 도 빠지지 않도록, 필터는 스트리밍 전에 등록하고 스트리밍이 끝난 뒤부터 사용한다.</li>
+ * </ul>
+ * 필터는 이 JVM이 JPA로 저장한 회원만 안다. 엔티티를 거치지 않고 넣은 회원(JDBC, 벌크 연산)이나 같은 DB를 쓰는 다른 인스턴스가
+ * 저장한 회원은 DB에 있어도 "없다" 고 답한다. 그래서 기본값은 꺼져 있고(springtx.member.bloom.enabled=false),
+ * 한 인스턴스만 JPA로 회원을 쓰는 배포에서만 켠다. 그 밖의 경로로 회원을 넣었으면 {@link #rebuild()} 해야 한다.<br>
+ * 크기는 springtx.member.bloom.expected-insertions, false-positive-rate 로 정하고, 메모리 사용량과 오탐률 추정치는 {@link #metrics()} 로 확인한다.
+ */
+@Slf4j
+@Component
+public class MemberExistenceFilter {
+
+    private final EntityManager em;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final Map<String, TenantFilter> filters = new ConcurrentHashMap<>();
+
+    public MemberExistenceFilter(EntityManager em, PlatformTransactionManager transactionManager,
+                                 @Value("${springtx.member.bloom.enabled:false}") boolean enabled,
+                                 @Value("${springtx.member.bloom.expected-insertions:100000}") long expectedInsertions,
+                                 @Value("${springtx.member.bloom.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.em = em;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildDefault() {
+        if (enabled) {
+            ready(TenantContext.DEFAULT_TENANT);
+        }
+    }
+
+    /**
+     * @return false 이면 username 은 확실히 없다.
+     */
+    public boolean mightExist(String username) {
+        if (!enabled) {
+            return true;
+        }
+        TenantFilter filter = ready(TenantContext.current());
+        filter.checks.increment();
+        if (filter.bloom.mightContain(username)) {
+            return true;
+        }
+        filter.skipped.increment();
+        return false;
+    }
+
+    /**
+     * 현재 테넌트의 필터에 username 을 추가한다. 필터가 아직 만들어지는 중이어도 추가되므로 스트리밍이 놓친 username 도 남는다.
+     */
+    public void add(String username) {
+        if (enabled && username != null) {
+            filters.computeIfAbsent(TenantContext.current(), this::newFilter).bloom.put(username);
+        }
+    }
+
+    /**
+     * 현재 테넌트의 필터를 새로 만든다.
+     */
+    public void rebuild() {
+        String tenant = TenantContext.current();
+        filters.put(tenant, newFilter(tenant));
+        ready(tenant);
+    }
+
+    public List<Metrics> metrics() {
+        return filters.entrySet().stream().map(entry -> {
+            BloomFilter bloom = entry.getValue().bloom;
+            return new Metrics(entry.getKey(), bloom.byteSize(), bloom.hashFunctions(), bloom.insertions(),
+                    falsePositiveRate, bloom.estimatedFalsePositiveRate(),
+                    entry.getValue().checks.sum(), entry.getValue().skipped.sum());
+        }).toList();
+    }
+
+    private TenantFilter ready(String tenant) {
+        TenantFilter filter = filters.computeIfAbsent(tenant, this::newFilter);
+        if (!filter.ready) {
+            synchronized (filter) {
+                if (!filter.ready) {
+                    build(tenant, filter);
+                }
+            }
+        }
+        return filter;
+    }
+
+    private TenantFilter newFilter(String tenant) {
+        return new TenantFilter(new BloomFilter(expectedInsertions, falsePositiveRate));
+    }
+
+    private void build(String tenant, TenantFilter filter) {
+        long start = System.nanoTime();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<String> usernames = em.createQuery("select m.username from Member m where m.username is not null", String.class)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, 1000)
+                    .getResultStream()) {
+                usernames.forEach(filter.bloom::put);
+            }
+        });
+        filter.ready = true;
+
+        BloomFilter bloom = filter.bloom;
+        log.info("회원 블룸 필터 생성 tenant={}, insertions={}, bytes={}, hashFunctions={}, estimatedFpp={}, elapsed={}ms",
+                tenant, bloom.insertions(), bloom.byteSize(), bloom.hashFunctions(),
+                "%.4f".formatted(bloom.estimatedFalsePositiveRate()), (System.nanoTime() - start) / 1_000_000);
+        if (bloom.estimatedFalsePositiveRate() > falsePositiveRate * 2) {
+            log.warn("회원 블룸 필터 오탐률이 설정값보다 높습니다. springtx.member.bloom.expected-insertions 를 늘리세요. tenant={}", tenant);
+        }
+    }
+
+    private static class TenantFilter {
+
+        private final BloomFilter bloom;
+        private final LongAdder checks = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+        private volatile boolean ready;
+
+        TenantFilter(BloomFilter bloom) {
+            this.bloom = bloom;
+        }
+    }
+
+    /**
+     * @param bytes                     비트 배열 메모리 사용량
+     * @param configuredFalsePositiveRate 설정한 오탐률
+     * @param estimatedFalsePositiveRate  현재 항목 수로 계산한 오탐률 추정치
+     * @param checks                    조회 전 확인 횟수
+     * @param skipped                   "없다" 로 DB 조회를 생략한 횟수
+     */
+    public record Metrics(String tenant, long bytes, int hashFunctions, long insertions,
+                          double configuredFalsePositiveRate, double estimatedFalsePositiveRate,
+                          long checks, long skipped) {
+    }
+}
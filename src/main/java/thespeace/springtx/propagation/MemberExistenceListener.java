@@ -0,0 +1,24 @@
+package thespeace.springtx.propagation;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * <h2>회원 저장, 변경을 블룸 필터에 반영하는 엔티티 리스너</h2>
+ * 리포지토리를 거치지 않는 저장(예: {@link thespeace.springtx.tx.WriteBehind})도 반영된다.<br>
+ * 하이버네이트가 스프링 빈 컨테이너로 생성한다. 리스너는 EntityManagerFactory 를 만드는 중에 생성되고,
+ * 필터는 EntityManager 가 필요하므로 필터는 처음 사용할 때 가져온다.
+ */
+@RequiredArgsConstructor
+public class MemberExistenceListener {
+
+    private final ObjectProvider<MemberExistenceFilter> existenceFilter;
+
+    @PostPersist
+    @PostUpdate
+    void added(Member member) {
+        existenceFilter.getObject().add(member.getUsername());
+    }
+}
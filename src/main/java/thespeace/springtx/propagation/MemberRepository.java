@@ -3,14 +3,38 @@ package thespeace.springtx.propagation;
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import thespeace.springtx.cache.InvalidationBus;
+import thespeace.springtx.cache.VersionedCache;
+import thespeace.springtx.tenant.TenantContext;
+import thespeace.springtx.tx.ReadOnlyQueries;
+import thespeace.springtx.tx.TransactionMemo;
+import thespeace.springtx.tx.TxPolicies;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
  * <h2>JPA를 사용하는 회원 리포지토리</h2>
- * 저장과 조회 기능을 제공한다.
+ * 저장과 조회 기능을 제공한다.<br>
+ * 조회는 읽기 전용 경로({@link ReadOnlyQueries})로 실행한다. 트랜잭션 안에서 호출해도 조회한 회원은 변경 감지 대상이 아니다.
+ * 데이터만 필요하면 엔티티 대신 {@link MemberView} 를 반환하는 {@link #findView(String)} 를 사용한다.<p>
+ *
+ * 같은 username 의 중복 조회는 DB에 한 번만 보낸다.
+ * <ul>
+ *     <li>트랜잭션 안: 결과를 트랜잭션 범위 메모({@link TransactionMemo})에 기억한다. 같은 트랜잭션에서 저장하면 해당 username 은 다시 조회한다.</li>
+ *     <li>트랜잭션 밖: 동시에 들어온 같은 username(테넌트별) 조회는 하나의 쿼리 결과를 함께 사용한다. ({@link SingleFlight})
+ *         이때 여러 호출자가 같은 준영속 엔티티를 받으므로 조회 결과를 수정하지 않아야 한다.</li>
+ *     <li>트랜잭션 밖: 블룸 필터({@link MemberExistenceFilter})를 켜면(springtx.member.bloom.enabled=true) 필터가 없다고 답한 username 은 DB를 조회하지 않는다.</li>
+ * </ul>
+ * 로컬 캐시를 사용하면(springtx.cache.enabled=true) 트랜잭션 밖의 {@link #findView(String)} 결과를 캐시한다.
+ * 회원 저장, 변경이 커밋되면 엔티티 리스너({@link MemberCacheListener})가 무효화 버스({@link InvalidationBus})로
+ * 모든 노드의 캐시에서 해당 username 을 지운다. 캐시 항목은 springtx.cache.member.ttl 이 지나면 다시 조회한다.
  */
 @Slf4j
 @Repository
@@ -18,16 +42,62 @@ import java.util.Optional;
 public class MemberRepository {
 
     private final EntityManager em;
+    private final TxPolicies txPolicies;
+    private final MemberExistenceFilter existenceFilter;
+    private final ObjectProvider<VersionedCache<MemberView>> memberViewCache;
+    private final SingleFlight<LookupKey, Optional<Member>> lookups = new SingleFlight<>();
 
-    @Transactional
+    @Transactional(timeoutString = "${springtx.tx.timeout.member-save:3}")
     public void save(Member member) {
         log.info("member 저장");
         em.persist(member);
+        TransactionMemo.of(this).remove(member.getUsername());
     }
 
     public Optional<Member> find(String username) {
-        return em.createQuery("select m from Member m where m.username = :username", Member.class)
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            Map<String, Optional<Member>> memo = TransactionMemo.of(this);
+            return memo.computeIfAbsent(username, this::query);
+        }
+        if (!existenceFilter.mightExist(username)) {
+            return Optional.empty();
+        }
+        return lookups.execute(new LookupKey(TenantContext.current(), username), () -> query(username));
+    }
+
+    private Optional<Member> query(String username) {
+        return txPolicies.apply("member.find", ReadOnlyQueries.apply(
+                        em.createQuery("select m from Member m where m.username = :username", Member.class)))
+                .setParameter("username", username)
+                .getResultList().stream().findAny();
+    }
+
+    public Optional<MemberView> findView(String username) {
+        VersionedCache<MemberView> cache = memberViewCache.getIfAvailable();
+        if (cache != null && !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return cache.get(cacheKey(username), key -> queryView(username));
+        }
+        return queryView(username);
+    }
+
+    private Optional<MemberView> queryView(String username) {
+        return txPolicies.apply("member.find", ReadOnlyQueries.apply(
+                        em.createQuery("select new thespeace.springtx.propagation.MemberView(m.id, m.username)"
+                                + " from Member m where m.username = :username", MemberView.class)))
                 .setParameter("username", username)
                 .getResultList().stream().findAny();
     }
+
+    public List<Member> findAll(Collection<String> usernames) {
+        return em.createQuery("select m from Member m where m.username in :usernames", Member.class)
+                .setParameter("usernames", usernames)
+                .getResultList();
+    }
+
+    static String cacheKey(String username) {
+        return TenantContext.current() + ":" + username;
+    }
+
+    private record LookupKey(String tenant, String username) {
+    }
 }
@@ -2,8 +2,12 @@ package thespeace.springtx.propagation;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import thespeace.springtx.limit.ConcurrencyLimit;
 
 /**
  * <h2>비즈니스 로직</h2>
@@ -16,6 +20,7 @@ public class MemberService {
 
     private final MemberRepository memberRepository;
     private final LogRepository logRepository;
+    private final ObjectProvider<AsyncLogWriter> asyncLogWriter;
 
     /**
      * <ul>
@@ -23,7 +28,8 @@ public class MemberService {
      *     <li>현재 별도의 트랜잭션은 설정하지 않는다.</li>
      * </ul>
      */
-    @Transactional
+    @ConcurrencyLimit
+    @Transactional(timeoutString = "${springtx.tx.timeout.member-join:5}")
     public void joinV1(String username) {
         Member member = new Member(username);
         Log logMessage = new Log(username);
@@ -44,7 +50,8 @@ public class MemberService {
      *     <li>현재 별도의 트랜잭션은 설정하지 않는다.</li>
      * </ul>
      */
-    @Transactional
+    @ConcurrencyLimit
+    @Transactional(timeoutString = "${springtx.tx.timeout.member-join:5}")
     public void joinV2(String username) {
         Member member = new Member(username);
         Log logMessage = new Log(username);
@@ -62,4 +69,29 @@ public class MemberService {
         }
         log.info("== logRepository 호출 종료 ==");
     }
+
+    /**
+     * <ul>
+     *     <li>회원만 트랜잭션으로 저장하고, 로그는 커밋 후에 대기열({@link AsyncLogWriter})로 넘겨서 따로 저장한다.</li>
+     *     <li>로그 저장이 느리거나 실패해도 회원 트랜잭션은 기다리거나 롤백되지 않는다.</li>
+     *     <li>대기열을 사용하지 않으면(springtx.log.queue.enabled=false) 커밋 후에 바로 저장한다.</li>
+     * </ul>
+     */
+    @ConcurrencyLimit
+    @Transactional(timeoutString = "${springtx.tx.timeout.member-join:5}")
+    public void joinV3(String username) {
+        memberRepository.save(new Member(username));
+
+        AsyncLogWriter writer = asyncLogWriter.getIfAvailable();
+        if (writer != null) {
+            writer.enqueueAfterCommit(username);
+        } else {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    logRepository.save(new Log(username));
+                }
+            });
+        }
+    }
 }
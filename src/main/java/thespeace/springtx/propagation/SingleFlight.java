@@ -0,0 +1,70 @@
+package thespeace.springtx.propagation;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * <h2>같은 키의 동시 조회를 하나로 합친다. (single-flight)</h2>
+ * 먼저 들어온 스레드(리더)만 조회를 실행하고, 그동안 같은 키로 들어온 스레드는 리더의 결과를 기다렸다가 함께 사용한다.
+ * 결과를 캐시하지 않는다. 리더의 조회가 끝나면 다음 호출은 다시 조회한다.<br>
+ * 리더의 조회가 실패하면 기다리던 스레드도 같은 예외를 받는다.
+ */
+class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = calls.putIfAbsent(key, mine);
+        if (inFlight != null) {
+            coalesced.increment();
+            return await(inFlight);
+        }
+
+        executed.increment();
+        try {
+            V value = call.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, mine);
+        }
+    }
+
+    /**
+     * 실제로 실행한 조회 수
+     */
+    long executed() {
+        return executed.sum();
+    }
+
+    /**
+     * 다른 스레드의 조회 결과를 함께 사용한 호출 수
+     */
+    long coalesced() {
+        return coalesced.sum();
+    }
+
+    private V await(CompletableFuture<V> inFlight) {
+        try {
+            return inFlight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package thespeace.springtx.shard;
+
+import org.springframework.beans.factory.DisposableBean;
+import thespeace.springtx.propagation.Member;
+import thespeace.springtx.propagation.MemberRepository;
+import thespeace.springtx.tenant.TenantContext;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * <h2>여러 샤드에 걸친 조회</h2>
+ * 샤드마다 별도 스레드에서 동시에 조회하고 결과를 합친다. 전체 지연 시간은 가장 느린 샤드 하나의 지연 시간이 된다.
+ */
+public class ShardFanOut implements DisposableBean {
+
+    private final ShardRouter router;
+    private final MemberRepository memberRepository;
+    private final ExecutorService executor;
+
+    public ShardFanOut(ShardRouter router, MemberRepository memberRepository) {
+        this.router = router;
+        this.memberRepository = memberRepository;
+        this.executor = Executors.newFixedThreadPool(router.shards().size(), runnable -> {
+            Thread thread = new Thread(runnable, "shard-fan-out");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 모든 샤드에서 task 를 실행한다.
+     *
+     * @return 샤드 이름별 결과 (샤드 등록 순서)
+     */
+    public <T> Map<String, T> onAllShards(Supplier<T> task) {
+        return gather(router.shards().stream()
+                .collect(Collectors.toMap(shard -> shard, shard -> task, (a, b) -> a, LinkedHashMap::new)));
+    }
+
+    /**
+     * 여러 username 의 회원을 조회한다. username 을 샤드별로 나누어 샤드마다 한 번의 쿼리로 조회한다.
+     */
+    public List<Member> findMembers(Collection<String> usernames) {
+        Map<String, List<String>> byShard = usernames.stream()
+                .collect(Collectors.groupingBy(router::shardOf, LinkedHashMap::new, Collectors.toList()));
+        Map<String, Supplier<List<Member>>> tasks = new LinkedHashMap<>();
+        byShard.forEach((shard, keys) -> tasks.put(shard, () -> memberRepository.findAll(keys)));
+
+        List<Member> members = new ArrayList<>();
+        gather(tasks).values().forEach(members::addAll);
+        return members;
+    }
+
+    private <T> Map<String, T> gather(Map<String, Supplier<T>> tasks) {
+        Map<String, CompletableFuture<T>> futures = new LinkedHashMap<>();
+        tasks.forEach((shard, task) ->
+                futures.put(shard, CompletableFuture.supplyAsync(() -> TenantContext.call(shard, task), executor)));
+
+        Map<String, T> results = new LinkedHashMap<>();
+        try {
+            futures.forEach((shard, future) -> results.put(shard, future.join()));
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,54 @@
+package thespeace.springtx.shard;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * <h2>username 일관된 해시(consistent hash) 샤드 선택</h2>
+ * 샤드마다 virtualNodes 개의 가상 노드를 해시 링에 배치하고, username 의 해시 값 이후 첫 가상 노드의 샤드를 고른다.
+ * 샤드를 추가해도 새 샤드로 옮겨지는 username 만 샤드가 바뀐다. (약 1/샤드 수)
+ */
+public class ShardRouter {
+
+    private final List<String> shards;
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+
+    public ShardRouter(List<String> shards, int virtualNodes) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("샤드가 하나 이상 필요합니다.");
+        }
+        this.shards = List.copyOf(shards);
+        for (String shard : shards) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(shard + "#" + i), shard);
+            }
+        }
+    }
+
+    public String shardOf(String username) {
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(username));
+        return entry == null ? ring.firstEntry().getValue() : entry.getValue();
+    }
+
+    public List<String> shards() {
+        return shards;
+    }
+
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = hash << 8 | (digest[i] & 0xff);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
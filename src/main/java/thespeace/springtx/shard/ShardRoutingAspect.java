@@ -0,0 +1,100 @@
+package thespeace.springtx.shard;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.annotation.Order;
+import thespeace.springtx.propagation.Log;
+import thespeace.springtx.propagation.Member;
+import thespeace.springtx.tenant.TenantContext;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * <h2>username 으로 샤드를 골라서 호출한다.</h2>
+ * 트랜잭션 AOP 보다 먼저(바깥에서) 실행되어, 트랜잭션이 시작되기 전에 샤드({@link TenantContext})를 정한다.
+ * <ul>
+ *     <li>MemberService.join*(username) : 회원과 로그(message = username)는 같은 샤드에 있으므로,
+ *         REQUIRES_NEW 로그 트랜잭션까지 모두 한 샤드 안의 트랜잭션으로 실행된다.</li>
+ *     <li>MemberRepository.find/findView(username), LogRepository.find/findView(message) : 해당 샤드 하나만 조회한다.</li>
+ *     <li>MemberRepository.save(member), LogRepository.save(log) : username, message 의 샤드에 저장한다.
+ *         조회와 같은 샤드에 저장되므로 저장한 데이터를 find 로 다시 찾을 수 있다.</li>
+ *     <li>LogRepository.saveAll(logs) : message 의 샤드별로 나누어 샤드마다 한 트랜잭션으로 저장한다.</li>
+ * </ul>
+ * 이미 다른 샤드의 트랜잭션 안에서 호출하면 {@link TenantContext} 가 예외를 던진다.
+ */
+@Aspect
+@Order(0)
+@RequiredArgsConstructor
+public class ShardRoutingAspect {
+
+    private final ShardRouter router;
+
+    @Around("execution(* thespeace.springtx.propagation.MemberService.join*(String)) && args(username)")
+    public Object join(ProceedingJoinPoint joinPoint, String username) throws Throwable {
+        return route(joinPoint, username);
+    }
+
+    @Around("(execution(* thespeace.springtx.propagation.MemberRepository.find*(String))"
+            + " || execution(* thespeace.springtx.propagation.LogRepository.find*(String))) && args(key)")
+    public Object find(ProceedingJoinPoint joinPoint, String key) throws Throwable {
+        return route(joinPoint, key);
+    }
+
+    @Around("execution(* thespeace.springtx.propagation.MemberRepository.save(..)) && args(member)")
+    public Object saveMember(ProceedingJoinPoint joinPoint, Member member) throws Throwable {
+        return route(joinPoint, member.getUsername());
+    }
+
+    @Around("execution(* thespeace.springtx.propagation.LogRepository.save(..)) && args(logMessage)")
+    public Object saveLog(ProceedingJoinPoint joinPoint, Log logMessage) throws Throwable {
+        return route(joinPoint, logMessage.getMessage());
+    }
+
+    @Around("execution(* thespeace.springtx.propagation.LogRepository.saveAll(..)) && args(logs)")
+    public Object saveLogs(ProceedingJoinPoint joinPoint, List<Log> logs) throws Throwable {
+        Map<String, List<Log>> byShard = logs.stream()
+                .collect(Collectors.groupingBy(logMessage -> router.shardOf(logMessage.getMessage()),
+                        LinkedHashMap::new, Collectors.toList()));
+        for (Map.Entry<String, List<Log>> shard : byShard.entrySet()) {
+            proceedOn(shard.getKey(), () -> joinPoint.proceed(new Object[]{shard.getValue()}));
+        }
+        return null;
+    }
+
+    private Object route(ProceedingJoinPoint joinPoint, String key) throws Throwable {
+        return proceedOn(router.shardOf(key), joinPoint::proceed);
+    }
+
+    private Object proceedOn(String shard, Invocation invocation) throws Throwable {
+        try {
+            return TenantContext.call(shard, () -> {
+                try {
+                    return invocation.proceed();
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new CheckedExceptionHolder(e);
+                }
+            });
+        } catch (CheckedExceptionHolder e) {
+            throw e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Invocation {
+        Object proceed() throws Throwable;
+    }
+
+    private static class CheckedExceptionHolder extends RuntimeException {
+
+        CheckedExceptionHolder(Throwable cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package thespeace.springtx.shard;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import thespeace.springtx.propagation.MemberRepository;
+import thespeace.springtx.tenant.TenantDataSources;
+
+import java.util.List;
+
+/**
+ * <h2>샤딩 설정</h2>
+ * springtx.shard.enabled=true 일 때만 적용된다.
+ * 샤드는 테넌트 라우팅(springtx.tenant)에 등록된 DB를 사용한다. 즉, 샤드 이름은 springtx.tenant.tenants 의 이름이어야 한다.
+ * <pre>
+ * springtx.shard.enabled=true
+ * springtx.shard.shards=s0,s1,s2
+ * </pre>
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.shard.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean
+    ShardRouter shardRouter(@Value("${springtx.shard.shards}") List<String> shards,
+                            @Value("${springtx.shard.virtual-nodes:128}") int virtualNodes,
+                            TenantDataSources tenantDataSources) {
+        for (String shard : shards) {
+            tenantDataSources.get(shard); //등록되지 않은 샤드면 예외
+        }
+        return new ShardRouter(shards, virtualNodes);
+    }
+
+    @Bean
+    ShardRoutingAspect shardRoutingAspect(ShardRouter shardRouter) {
+        return new ShardRoutingAspect(shardRouter);
+    }
+
+    @Bean
+    ShardFanOut shardFanOut(ShardRouter shardRouter, MemberRepository memberRepository) {
+        return new ShardFanOut(shardRouter, memberRepository);
+    }
+}
@@ -0,0 +1,31 @@
+package thespeace.springtx.tenant;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * <h2>테넌트들이 함께 쓰는 커넥션 예산</h2>
+ * 공정(fair) 세마포어라서 먼저 기다린 요청이 먼저 커넥션을 받는다.
+ * 각 테넌트는 자신의 상한을 먼저 통과해야 예산을 기다릴 수 있으므로, 한 테넌트가 대기열을 독차지하지 못한다.
+ */
+class ConnectionBudget {
+
+    private final int size;
+    private final Semaphore permits;
+
+    ConnectionBudget(int size) {
+        this.size = size;
+        this.permits = new Semaphore(size, true);
+    }
+
+    Semaphore permits() {
+        return permits;
+    }
+
+    int inUse() {
+        return size - permits.availablePermits();
+    }
+
+    int waiting() {
+        return permits.getQueueLength();
+    }
+}
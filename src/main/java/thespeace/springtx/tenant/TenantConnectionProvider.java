@@ -0,0 +1,27 @@
+package thespeace.springtx.tenant;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.jdbc.connections.spi.AbstractDataSourceBasedMultiTenantConnectionProviderImpl;
+
+import javax.sql.DataSource;
+
+/**
+ * <h2>하이버네이트 멀티 테넌트 커넥션 제공자</h2>
+ * 세션의 테넌트 식별자로 {@link TenantDataSources} 에서 DataSource 를 고른다.
+ * 테넌트가 정해지지 않은 커넥션 요청(스키마 생성 등)은 {@link TenantContext} 의 현재 테넌트를 사용한다.
+ */
+@RequiredArgsConstructor
+class TenantConnectionProvider extends AbstractDataSourceBasedMultiTenantConnectionProviderImpl<String> {
+
+    private final TenantDataSources dataSources;
+
+    @Override
+    protected DataSource selectAnyDataSource() {
+        return dataSources.get(TenantContext.current());
+    }
+
+    @Override
+    protected DataSource selectDataSource(String tenantIdentifier) {
+        return dataSources.get(tenantIdentifier);
+    }
+}
@@ -0,0 +1,53 @@
+package thespeace.springtx.tenant;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * <h2>호출 스레드의 테넌트 식별자</h2>
+ * 하이버네이트가 세션(EntityManager)을 열 때 이 값으로 테넌트 DB 커넥션을 고른다.
+ * 테넌트를 지정하지 않으면 {@value #DEFAULT_TENANT} 테넌트(기존 spring.datasource)를 사용한다.<p>
+ *
+ * 세션은 트랜잭션이 시작될 때 테넌트가 정해지므로, 트랜잭션 안에서 다른 테넌트로 바꾸면 예외가 발생한다.
+ * 다른 테넌트 작업은 트랜잭션 밖에서 시작해야 한다.
+ */
+public final class TenantContext {
+
+    public static final String DEFAULT_TENANT = "default";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    public static String current() {
+        String tenant = CURRENT.get();
+        return tenant == null ? DEFAULT_TENANT : tenant;
+    }
+
+    public static void run(String tenant, Runnable task) {
+        call(tenant, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public static <T> T call(String tenant, Supplier<T> task) {
+        String previous = CURRENT.get();
+        if (!Objects.equals(current(), tenant) && TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("트랜잭션 안에서는 테넌트를 바꿀 수 없습니다. current=" + current() + ", tenant=" + tenant);
+        }
+        CURRENT.set(tenant);
+        try {
+            return task.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package thespeace.springtx.tenant;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <h2>테넌트 하나의 DataSource</h2>
+ * 커넥션을 얻을 때 다음 순서로 허가를 받는다. 커넥션을 닫으면 둘 다 반납한다.
+ * <ol>
+ *     <li>테넌트 상한(maxConnections): 시끄러운 테넌트의 요청은 여기서 자기들끼리 기다린다.</li>
+ *     <li>공유 예산({@link ConnectionBudget}): 상한을 통과한 요청만 테넌트 구분 없이 도착 순서대로 기다린다.</li>
+ * </ol>
+ * 기다리는 시간의 합이 acquireTimeout 을 넘으면 HikariCP 와 같은 {@link SQLTransientConnectionException} 을 던진다.
+ */
+@Slf4j
+class TenantDataSource extends DelegatingDataSource {
+
+    private final String tenant;
+    private final Semaphore cap;
+    private final ConnectionBudget budget;
+    private final Duration acquireTimeout;
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+
+    TenantDataSource(String tenant, DataSource target, int maxConnections, ConnectionBudget budget, Duration acquireTimeout) {
+        super(target);
+        this.tenant = tenant;
+        this.cap = new Semaphore(maxConnections, true);
+        this.budget = budget;
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long deadline = System.nanoTime() + acquireTimeout.toNanos();
+        acquire(cap, deadline, "테넌트 커넥션 상한");
+        try {
+            acquire(budget.permits(), deadline, "공유 커넥션 예산");
+        } catch (SQLException e) {
+            cap.release();
+            throw e;
+        }
+
+        try {
+            Connection connection = obtainTargetDataSource().getConnection();
+            peak.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+            return releaseOnClose(connection);
+        } catch (SQLException | RuntimeException e) {
+            budget.permits().release();
+            cap.release();
+            throw e;
+        }
+    }
+
+    private void acquire(Semaphore semaphore, long deadline, String what) throws SQLException {
+        try {
+            if (!semaphore.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                throw new SQLTransientConnectionException(
+                        what + "을 기다리다 시간이 초과되었습니다. tenant=" + tenant + ", timeout=" + acquireTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("커넥션 대기 중 인터럽트되었습니다. tenant=" + tenant, e);
+        }
+    }
+
+    private Connection releaseOnClose(Connection connection) {
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && closed.compareAndSet(false, true)) {
+                        try {
+                            connection.close();
+                        } finally {
+                            inUse.decrementAndGet();
+                            budget.permits().release();
+                            cap.release();
+                        }
+                        return null;
+                    }
+                    if (method.getName().equals("isClosed") && closed.get()) {
+                        return true;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    String getTenant() {
+        return tenant;
+    }
+
+    /**
+     * 현재 사용 중인 커넥션 수
+     */
+    int getInUse() {
+        return inUse.get();
+    }
+
+    /**
+     * 동시에 사용한 커넥션 수의 최대값
+     */
+    int getPeak() {
+        return peak.get();
+    }
+}
@@ -0,0 +1,80 @@
+package thespeace.springtx.tenant;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <h2>테넌트별 DataSource 목록</h2>
+ * 테넌트마다 커넥션 상한 크기의 HikariCP 풀을 만들고, 모든 테넌트가 하나의 {@link ConnectionBudget} 을 공유한다.
+ * {@value TenantContext#DEFAULT_TENANT} 테넌트는 기존 spring.datasource 를 그대로 사용하고 예산에 포함하지 않는다.
+ */
+@Slf4j
+public class TenantDataSources implements DisposableBean {
+
+    private final DataSource defaultDataSource;
+    private final ConnectionBudget budget;
+    private final Map<String, TenantDataSource> tenants = new LinkedHashMap<>();
+
+    public TenantDataSources(DataSource defaultDataSource, TenantProperties properties) {
+        this.defaultDataSource = defaultDataSource;
+        this.budget = new ConnectionBudget(properties.getBudget());
+        properties.getTenants().forEach((tenant, config) -> {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("tenant-" + tenant);
+            pool.setJdbcUrl(config.getUrl());
+            pool.setUsername(config.getUsername());
+            pool.setPassword(config.getPassword());
+            pool.setMaximumPoolSize(config.getMaxConnections());
+            tenants.put(tenant, new TenantDataSource(tenant, pool, config.getMaxConnections(), budget, properties.getAcquireTimeout()));
+        });
+        log.info("테넌트 DataSource 등록 tenants={}, budget={}", tenants.keySet(), properties.getBudget());
+    }
+
+    public DataSource get(String tenant) {
+        if (TenantContext.DEFAULT_TENANT.equals(tenant)) {
+            return defaultDataSource;
+        }
+        TenantDataSource dataSource = tenants.get(tenant);
+        if (dataSource == null) {
+            throw new IllegalArgumentException("등록되지 않은 테넌트입니다. tenant=" + tenant);
+        }
+        return dataSource;
+    }
+
+    public Set<String> tenants() {
+        return Collections.unmodifiableSet(tenants.keySet());
+    }
+
+    /**
+     * 테넌트가 현재 사용 중인 커넥션 수
+     */
+    public int inUse(String tenant) {
+        return ((TenantDataSource) get(tenant)).getInUse();
+    }
+
+    /**
+     * 테넌트가 동시에 사용한 커넥션 수의 최대값
+     */
+    public int peak(String tenant) {
+        return ((TenantDataSource) get(tenant)).getPeak();
+    }
+
+    /**
+     * 공유 예산에서 사용 중인 커넥션 수
+     */
+    public int budgetInUse() {
+        return budget.inUse();
+    }
+
+    @Override
+    public void destroy() {
+        tenants.values().forEach(dataSource -> ((HikariDataSource) dataSource.getTargetDataSource()).close());
+    }
+}
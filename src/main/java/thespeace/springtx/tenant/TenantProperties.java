@@ -0,0 +1,45 @@
+package thespeace.springtx.tenant;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <h2>테넌트 설정 (springtx.tenant)</h2>
+ * <pre>
+ * springtx.tenant.enabled=true
+ * springtx.tenant.budget=8                     #모든 테넌트가 함께 쓰는 커넥션 수
+ * springtx.tenant.acquire-timeout=3s
+ * springtx.tenant.initialize-schema=true       #테넌트 DB에 없는 테이블을 만든다. (기존 데이터 유지)
+ * springtx.tenant.tenants.a.url=jdbc:h2:mem:tenant_a;DB_CLOSE_DELAY=-1
+ * springtx.tenant.tenants.a.max-connections=4  #테넌트 하나가 동시에 쓸 수 있는 커넥션 수
+ * </pre>
+ */
+@Getter
+@Setter
+@ConfigurationProperties("springtx.tenant")
+public class TenantProperties {
+
+    private boolean enabled;
+    private int budget = 10;
+    private Duration acquireTimeout = Duration.ofSeconds(3);
+    /**
+     * true 이면 기동 시점에 테넌트 DB마다 버전별 DDL(springtx.schema.locations)을 실행한다. 없는 테이블만 만들고 데이터는 지우지 않는다.
+     */
+    private boolean initializeSchema;
+    private Map<String, Tenant> tenants = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Tenant {
+
+        private String url;
+        private String username = "sa";
+        private String password = "";
+        private int maxConnections = 2;
+    }
+}
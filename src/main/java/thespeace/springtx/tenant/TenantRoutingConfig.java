@@ -0,0 +1,62 @@
+package thespeace.springtx.tenant;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+
+import static org.hibernate.cfg.AvailableSettings.MULTI_TENANT_CONNECTION_PROVIDER;
+import static org.hibernate.cfg.AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER;
+
+/**
+ * <h2>테넌트 라우팅 설정</h2>
+ * springtx.tenant.enabled=true 일 때만 적용된다.
+ * <ul>
+ *     <li>하이버네이트 멀티 테넌시(DATABASE 방식)를 켜서, 트랜잭션이 시작될 때 {@link TenantContext} 의 테넌트 DB 커넥션을 사용한다.</li>
+ *     <li>리포지토리는 하나의 공유 EntityManager 를 주입받으므로 트랜잭션 매니저는 하나(JpaTransactionManager)이고,
+ *         물리 트랜잭션은 테넌트 DB 커넥션 위에서 따로 열린다.</li>
+ *     <li>initialize-schema=true 이면 기동 시점에 테넌트 DB마다 버전별 DDL(springtx.schema.locations)을 실행한다.
+ *         스크립트는 IF NOT EXISTS 로 작성되어 있어서 없는 테이블, 시퀀스, 인덱스만 만들고 기존 데이터는 그대로 둔다.</li>
+ * </ul>
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "springtx.tenant.enabled", havingValue = "true")
+@EnableConfigurationProperties(TenantProperties.class)
+public class TenantRoutingConfig {
+
+    @Bean
+    TenantDataSources tenantDataSources(DataSource dataSource, TenantProperties properties) {
+        return new TenantDataSources(dataSource, properties);
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer tenantHibernatePropertiesCustomizer(TenantDataSources tenantDataSources) {
+        return properties -> {
+            properties.put(MULTI_TENANT_CONNECTION_PROVIDER, new TenantConnectionProvider(tenantDataSources));
+            properties.put(MULTI_TENANT_IDENTIFIER_RESOLVER, new TenantIdentifierResolver());
+        };
+    }
+
+    @Bean
+    SmartInitializingSingleton tenantSchemaInitializer(TenantDataSources tenantDataSources, TenantProperties properties,
+                                                       @Value("${springtx.schema.locations}") Resource[] scripts) {
+        return () -> {
+            if (!properties.isInitializeSchema()) {
+                return;
+            }
+            for (String tenant : tenantDataSources.tenants()) {
+                new ResourceDatabasePopulator(scripts).execute(tenantDataSources.get(tenant));
+                log.info("테넌트 스키마 적용 tenant={}, scripts={}", tenant, scripts.length);
+            }
+        };
+    }
+}
@@ -0,0 +1,81 @@
+package thespeace.springtx.tx;
+
+import jakarta.persistence.EntityTransaction;
+import org.springframework.lang.Nullable;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.ResourceHolderSupport;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * <h2>rollback-only 트랜잭션 참여를 즉시 거부하는 트랜잭션 매니저</h2>
+ * 내부 트랜잭션이 실패해서 물리 트랜잭션이 rollback-only 로 표시되면, 그 이후의 작업은 모두 롤백된다.
+ * 기본 동작에서는 호출자가 남은 로직(SQL, flush, 락 획득)을 모두 수행한 뒤 바깥 커밋 시점에
+ * UnexpectedRollbackException 으로 알게 된다.<p>
+ *
+ * 이 트랜잭션 매니저는 기존 트랜잭션에 참여하는 호출(REQUIRED, SUPPORTS, MANDATORY, NESTED)이 들어왔을 때
+ * 현재 물리 트랜잭션이 이미 rollback-only 이면 {@link RollbackOnlyFailFastException} 을 던진다.
+ * REQUIRES_NEW, NOT_SUPPORTED 처럼 기존 트랜잭션과 분리되는 호출은 그대로 실행한다.
+ */
+public class FailFastTransactionManager implements PlatformTransactionManager {
+
+    private final PlatformTransactionManager delegate;
+
+    public FailFastTransactionManager(PlatformTransactionManager delegate) {
+        this.delegate = delegate;
+    }
+
+    public PlatformTransactionManager getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public TransactionStatus getTransaction(@Nullable TransactionDefinition definition) throws TransactionException {
+        TransactionDefinition def = definition != null ? definition : TransactionDefinition.withDefaults();
+        if (participates(def.getPropagationBehavior()) && isCurrentTransactionRollbackOnly()) {
+            throw new RollbackOnlyFailFastException("이미 rollback-only 로 표시된 트랜잭션입니다. name=" + def.getName());
+        }
+        return delegate.getTransaction(definition);
+    }
+
+    @Override
+    public void commit(TransactionStatus status) throws TransactionException {
+        delegate.commit(status);
+    }
+
+    @Override
+    public void rollback(TransactionStatus status) throws TransactionException {
+        delegate.rollback(status);
+    }
+
+    private static boolean participates(int propagation) {
+        return propagation == TransactionDefinition.PROPAGATION_REQUIRED
+                || propagation == TransactionDefinition.PROPAGATION_SUPPORTS
+                || propagation == TransactionDefinition.PROPAGATION_MANDATORY
+                || propagation == TransactionDefinition.PROPAGATION_NESTED;
+    }
+
+    /**
+     * 트랜잭션에 바인딩된 리소스(JDBC 커넥션, JPA 엔티티 매니저)가 rollback-only 로 표시되었는지 확인한다.
+     */
+    static boolean isCurrentTransactionRollbackOnly() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return false;
+        }
+        for (Object resource : TransactionSynchronizationManager.getResourceMap().values()) {
+            if (resource instanceof ResourceHolderSupport holder && holder.isRollbackOnly()) {
+                return true;
+            }
+            if (resource instanceof EntityManagerHolder holder) {
+                EntityTransaction transaction = holder.getEntityManager().getTransaction();
+                if (transaction.isActive() && transaction.getRollbackOnly()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,36 @@
+package thespeace.springtx.tx;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * <h2>테스트용 span 저장소</h2>
+ * 내보낸 span 을 메모리에 모아 두고 검증할 수 있게 한다.
+ */
+public class InMemoryTxSpanExporter implements TxSpanExporter {
+
+    private final List<TxSpan> spans = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void export(TxSpan span) {
+        spans.add(span);
+    }
+
+    public List<TxSpan> getSpans() {
+        return List.copyOf(spans);
+    }
+
+    /**
+     * traceId 가 같은 span 을 시작 순서로 반환한다.
+     */
+    public List<TxSpan> getTrace(long traceId) {
+        return spans.stream()
+                .filter(span -> span.getTraceId() == traceId)
+                .sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+                .toList();
+    }
+
+    public void clear() {
+        spans.clear();
+    }
+}
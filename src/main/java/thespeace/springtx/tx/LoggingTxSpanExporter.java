@@ -0,0 +1,15 @@
+package thespeace.springtx.tx;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 트랜잭션 span 을 DEBUG 로그로 남긴다.
+ */
+@Slf4j
+public class LoggingTxSpanExporter implements TxSpanExporter {
+
+    @Override
+    public void export(TxSpan span) {
+        log.debug("{}", span);
+    }
+}
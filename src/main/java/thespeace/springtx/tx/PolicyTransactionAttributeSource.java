@@ -0,0 +1,75 @@
+package thespeace.springtx.tx;
+
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.MethodClassKey;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.transaction.interceptor.DefaultTransactionAttribute;
+import org.springframework.transaction.interceptor.RuleBasedTransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <h2>{@link TxPolicy} 설정을 덧씌우는 트랜잭션 속성 소스</h2>
+ * 원래 속성 소스(@Transactional 해석)의 결과에 springtx.tx.policy 의 격리 수준, 읽기 전용 여부를 덮어쓴다.
+ * 롤백 여부는 {@link RollbackRuleEngine} 규칙으로 판단하도록 감싼다. ({@link RuleEngineTransactionAttribute})<br>
+ * 트랜잭션 인터셉터는 호출마다 속성을 조회하므로 메서드별 결과를 캐시한다.
+ * 그래서 격리 수준, 읽기 전용 여부는 메서드를 처음 호출할 때의 설정으로 고정되고, 실행 중에 설정을 바꿔도 반영되지 않는다.
+ */
+class PolicyTransactionAttributeSource implements TransactionAttributeSource {
+
+    private final TransactionAttributeSource delegate;
+    private final TxPolicyProperties properties;
+    private final RollbackRuleEngine rollbackRules;
+    private final Map<MethodClassKey, Optional<TransactionAttribute>> cache = new ConcurrentHashMap<>();
+
+    PolicyTransactionAttributeSource(TransactionAttributeSource delegate, TxPolicyProperties properties,
+                                     RollbackRuleEngine rollbackRules) {
+        this.delegate = delegate;
+        this.properties = properties;
+        this.rollbackRules = rollbackRules;
+    }
+
+    @Override
+    public boolean isCandidateClass(Class<?> targetClass) {
+        return delegate.isCandidateClass(targetClass);
+    }
+
+    @Override
+    public TransactionAttribute getTransactionAttribute(Method method, Class<?> targetClass) {
+        return cache.computeIfAbsent(new MethodClassKey(method, targetClass),
+                key -> Optional.ofNullable(resolve(method, targetClass))).orElse(null);
+    }
+
+    private TransactionAttribute resolve(Method method, Class<?> targetClass) {
+        TransactionAttribute attribute = delegate.getTransactionAttribute(method, targetClass);
+        if (attribute == null) {
+            return null;
+        }
+        return new RuleEngineTransactionAttribute(applyPolicy(attribute, method, targetClass), rollbackRules);
+    }
+
+    private TransactionAttribute applyPolicy(TransactionAttribute attribute, Method method, Class<?> targetClass) {
+        Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+        TxPolicy txPolicy = AnnotatedElementUtils.findMergedAnnotation(specificMethod, TxPolicy.class);
+        TxPolicyProperties.Operation policy = txPolicy == null ? null : properties.getOperations().get(txPolicy.value());
+        if (policy == null) {
+            return attribute;
+        }
+
+        DefaultTransactionAttribute overridden = attribute instanceof RuleBasedTransactionAttribute ruleBased
+                ? new RuleBasedTransactionAttribute(ruleBased)
+                : new DefaultTransactionAttribute(attribute);
+        if (policy.getIsolation() != null) {
+            overridden.setIsolationLevel(policy.getIsolation().value());
+        }
+        if (policy.getReadOnly() != null) {
+            overridden.setReadOnly(policy.getReadOnly());
+        }
+        return overridden;
+    }
+}
@@ -0,0 +1,30 @@
+package thespeace.springtx.tx;
+
+import jakarta.persistence.Query;
+import org.hibernate.FlushMode;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * <h2>읽기 전용 조회 경로</h2>
+ * 조회 결과를 수정하지 않는 쿼리에 적용한다.
+ * <ul>
+ *     <li>읽기 전용 힌트: 조회한 엔티티의 스냅샷을 만들지 않으므로 변경 감지(dirty checking) 대상에서 빠진다.</li>
+ *     <li>{@link FlushMode#MANUAL}: 쿼리 전에 영속성 컨텍스트를 플러시하지 않는다.</li>
+ * </ul>
+ * 쓰기 트랜잭션 안에서는 플러시 모드를 그대로 둔다. 같은 트랜잭션에서 방금 저장한 데이터도 조회 결과에 포함되어야 하기 때문이다.
+ */
+public final class ReadOnlyQueries {
+
+    private ReadOnlyQueries() {
+    }
+
+    public static <Q extends Query> Q apply(Q query) {
+        query.setHint(HibernateHints.HINT_READ_ONLY, true);
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            query.setHint(HibernateHints.HINT_FLUSH_MODE, FlushMode.MANUAL);
+        }
+        return query;
+    }
+}
@@ -0,0 +1,17 @@
+package thespeace.springtx.tx;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <h2>RETRY 규칙의 예외가 발생하면 다시 호출해도 되는 트랜잭션 메서드</h2>
+ * {@code @Transactional} 메서드에 함께 붙인다. 이 어노테이션이 있는 메서드만 {@link RollbackRetryAspect} 가 재시도한다.<br>
+ * 다시 호출하면 메서드 전체가 새 트랜잭션에서 한 번 더 실행되므로, 트랜잭션 밖의 부수 효과(외부 호출, 메시지 발행 등)가
+ * 없거나 여러 번 실행되어도 안전한 메서드에만 붙인다. 붙이지 않은 메서드에서 RETRY 규칙의 예외는 롤백만 한다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryableTx {
+}
@@ -0,0 +1,13 @@
+package thespeace.springtx.tx;
+
+/**
+ * <h2>예외, 비즈니스 결과에 대한 트랜잭션 처리 방법</h2>
+ * <ul>
+ *     <li>COMMIT : 예외가 발생해도 커밋한다.</li>
+ *     <li>ROLLBACK : 롤백한다.</li>
+ *     <li>RETRY : 롤백한 뒤 가장 바깥 트랜잭션 메서드가 {@link RetryableTx} 이면 다시 호출한다. ({@link RollbackRetryAspect})</li>
+ * </ul>
+ */
+public enum RollbackDecision {
+    COMMIT, ROLLBACK, RETRY
+}
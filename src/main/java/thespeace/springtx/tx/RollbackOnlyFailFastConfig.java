@@ -0,0 +1,55 @@
+package thespeace.springtx.tx;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+
+/**
+ * <h2>rollback-only 빠른 실패 설정</h2>
+ * springtx.tx.fail-fast-rollback-only=true 일 때만 적용된다.
+ * <ul>
+ *     <li>트랜잭션 매니저를 {@link FailFastTransactionManager} 로 감싸서 rollback-only 트랜잭션 참여를 즉시 거부한다.</li>
+ *     <li>failEarlyOnGlobalRollbackOnly 를 켜서, 참여 중인 내부 트랜잭션이 커밋될 때 이미 rollback-only 이면
+ *         바깥 커밋까지 기다리지 않고 바로 UnexpectedRollbackException 을 던진다.</li>
+ * </ul>
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.tx.fail-fast-rollback-only", havingValue = "true")
+public class RollbackOnlyFailFastConfig {
+
+    @Bean
+    TransactionManagerCustomizer<AbstractPlatformTransactionManager> failEarlyOnGlobalRollbackOnly() {
+        return transactionManager -> transactionManager.setFailEarlyOnGlobalRollbackOnly(true);
+    }
+
+    /**
+     * 다른 감싸기(예: 추적)보다 먼저 적용되어 실제 트랜잭션 매니저를 바로 감싼다.
+     */
+    @Bean
+    static BeanPostProcessor failFastTransactionManagerPostProcessor() {
+        return new FailFastPostProcessor();
+    }
+
+    static class FailFastPostProcessor implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof PlatformTransactionManager transactionManager
+                    && !(bean instanceof FailFastTransactionManager)
+                    && !(bean instanceof TracingTransactionManager)) {
+                return new FailFastTransactionManager(transactionManager);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package thespeace.springtx.tx;
+
+import org.springframework.transaction.UnexpectedRollbackException;
+
+/**
+ * 이미 rollback-only 로 표시된 트랜잭션에 참여하려고 할 때 발생한다.
+ * 어차피 롤백될 트랜잭션이므로 SQL을 실행하기 전에 바로 실패한다.
+ */
+public class RollbackOnlyFailFastException extends UnexpectedRollbackException {
+
+    public RollbackOnlyFailFastException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,44 @@
+package thespeace.springtx.tx;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * <h2>RETRY 규칙의 예외가 발생하면 트랜잭션 메서드를 다시 호출한다.</h2>
+ * {@link RetryableTx} 를 붙인 메서드만 재시도한다. 재시도는 메서드 전체를 다시 실행하므로 메서드마다 명시적으로 선택한다.<br>
+ * 트랜잭션 AOP 바깥에서 실행되므로 다시 호출할 때마다 새 트랜잭션이 시작된다.<br>
+ * 이미 트랜잭션 안에서 호출된 경우(참여한 트랜잭션)는 재시도하지 않는다. 바깥 트랜잭션이 롤백 전용이 되었기 때문에
+ * 재시도는 가장 바깥 트랜잭션 메서드에서만 의미가 있다.
+ */
+@Slf4j
+@Aspect
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@RequiredArgsConstructor
+public class RollbackRetryAspect {
+
+    private final RollbackRuleEngine engine;
+
+    @Around("execution(public * thespeace.springtx..*(..)) && @annotation(thespeace.springtx.tx.RetryableTx)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (Throwable ex) {
+                if (attempt >= engine.maxRetries() || engine.decide(ex) != RollbackDecision.RETRY) {
+                    throw ex;
+                }
+                log.info("트랜잭션 재시도 method={}, attempt={}, cause={}",
+                        joinPoint.getSignature().toShortString(), attempt + 1, ex.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package thespeace.springtx.tx;
+
+import org.springframework.util.ClassUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <h2>예외 타입별 커밋, 롤백 규칙</h2>
+ * 설정({@link RollbackRuleProperties})의 클래스 이름은 시작할 때 한 번만 로딩한다. 잘못된 이름이면 애플리케이션이 시작되지 않는다.<br>
+ * 예외 클래스마다 상위 타입을 따라가며 규칙을 찾는 작업은 처음 한 번만 하고, 결과를 예외 클래스를 키로 캐시한다.
+ * 이후 같은 타입의 예외는 맵 조회 한 번으로 결정된다.
+ */
+public class RollbackRuleEngine {
+
+    private final Map<Class<?>, RollbackDecision> rules = new LinkedHashMap<>();
+    private final Map<String, RollbackDecision> statuses;
+    private final int maxRetries;
+    private final Map<Class<?>, RollbackDecision> decisions = new ConcurrentHashMap<>();
+
+    public RollbackRuleEngine(RollbackRuleProperties properties) {
+        ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+        properties.getExceptions().forEach((className, decision) -> {
+            Class<?> type = ClassUtils.resolveClassName(className, classLoader);
+            if (!Throwable.class.isAssignableFrom(type)) {
+                throw new IllegalArgumentException("예외 타입이 아닙니다. class=" + className);
+            }
+            rules.put(type, decision);
+        });
+        properties.getStatuses().forEach((status, decision) -> {
+            if (decision == RollbackDecision.RETRY) {
+                throw new IllegalArgumentException("비즈니스 결과는 재시도할 수 없습니다. status=" + status);
+            }
+        });
+        this.statuses = Map.copyOf(properties.getStatuses());
+        this.maxRetries = properties.getMaxRetries();
+    }
+
+    public RollbackDecision decide(Throwable ex) {
+        return decisions.computeIfAbsent(ex.getClass(), this::resolve);
+    }
+
+    /**
+     * 예외 없이 끝난 비즈니스 결과(status)의 처리 방법. 규칙이 없으면 커밋한다.
+     */
+    public RollbackDecision decideStatus(String status) {
+        return decideStatus(status, RollbackDecision.COMMIT);
+    }
+
+    /**
+     * 비즈니스 결과(status)의 처리 방법. 규칙이 없으면 호출한 쪽이 정한 기본값(fallback)을 따른다.
+     */
+    public RollbackDecision decideStatus(String status, RollbackDecision fallback) {
+        return statuses.getOrDefault(status, fallback);
+    }
+
+    public int maxRetries() {
+        return maxRetries;
+    }
+
+    private RollbackDecision resolve(Class<?> type) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            RollbackDecision decision = rules.get(current);
+            if (decision != null) {
+                return decision;
+            }
+        }
+        return RuntimeException.class.isAssignableFrom(type) || Error.class.isAssignableFrom(type)
+                ? RollbackDecision.ROLLBACK : RollbackDecision.COMMIT;
+    }
+}
@@ -0,0 +1,29 @@
+package thespeace.springtx.tx;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <h2>예외별 커밋, 롤백 규칙 설정 (springtx.tx.rollback)</h2>
+ * <pre>
+ * springtx.tx.rollback.exceptions[thespeace.springtx.order.NotEnoughMoneyException]=commit
+ * springtx.tx.rollback.statuses[잔고부족]=commit
+ * springtx.tx.rollback.max-retries=2
+ * </pre>
+ * 예외는 가장 가까운 상위 타입의 규칙을 따른다. 규칙이 없으면 스프링 기본 규칙(언체크 예외 롤백, 체크 예외 커밋)을 따른다.
+ * 메서드의 rollbackFor, noRollbackFor 는 이 설정보다 우선한다.<br>
+ * retry 규칙은 {@link RetryableTx} 를 붙인 메서드에서만 재시도하고, 그 밖의 메서드에서는 롤백한다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties("springtx.tx.rollback")
+public class RollbackRuleProperties {
+
+    private Map<String, RollbackDecision> exceptions = new LinkedHashMap<>();
+    private Map<String, RollbackDecision> statuses = new LinkedHashMap<>();
+    private int maxRetries = 2;
+}
@@ -0,0 +1,51 @@
+package thespeace.springtx.tx;
+
+import org.springframework.transaction.interceptor.DelegatingTransactionAttribute;
+import org.springframework.transaction.interceptor.NoRollbackRuleAttribute;
+import org.springframework.transaction.interceptor.RollbackRuleAttribute;
+import org.springframework.transaction.interceptor.RuleBasedTransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <h2>규칙 엔진으로 롤백 여부를 정하는 트랜잭션 속성</h2>
+ * 메서드에 선언한 rollbackFor, noRollbackFor 중 일치하는 것이 있으면 그 규칙을, 없으면 {@link RollbackRuleEngine} 을 따른다.
+ * 결과는 예외 클래스별로 캐시하므로 같은 예외가 반복되어도 규칙 목록과 클래스 계층을 다시 훑지 않는다.
+ */
+class RuleEngineTransactionAttribute extends DelegatingTransactionAttribute {
+
+    private final transient List<RollbackRuleAttribute> declaredRules;
+    private final transient RollbackRuleEngine engine;
+    private final transient Map<Class<?>, Boolean> rollbackByType = new ConcurrentHashMap<>();
+
+    RuleEngineTransactionAttribute(TransactionAttribute attribute, RollbackRuleEngine engine) {
+        super(attribute);
+        this.declaredRules = attribute instanceof RuleBasedTransactionAttribute ruleBased
+                ? List.copyOf(ruleBased.getRollbackRules()) : List.of();
+        this.engine = engine;
+    }
+
+    @Override
+    public boolean rollbackOn(Throwable ex) {
+        return rollbackByType.computeIfAbsent(ex.getClass(), type -> resolve(ex));
+    }
+
+    private boolean resolve(Throwable ex) {
+        RollbackRuleAttribute winner = null;
+        int deepest = Integer.MAX_VALUE;
+        for (RollbackRuleAttribute rule : declaredRules) {
+            int depth = rule.getDepth(ex);
+            if (depth >= 0 && depth < deepest) {
+                deepest = depth;
+                winner = rule;
+            }
+        }
+        if (winner != null) {
+            return !(winner instanceof NoRollbackRuleAttribute);
+        }
+        return engine.decide(ex) != RollbackDecision.COMMIT;
+    }
+}
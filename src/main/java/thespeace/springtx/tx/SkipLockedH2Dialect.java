@@ -0,0 +1,41 @@
+package thespeace.springtx.tx;
+
+import org.hibernate.dialect.H2Dialect;
+
+/**
+ * <h2>SKIP LOCKED, NOWAIT 를 지원하는 H2 방언</h2>
+ * H2 2.2 는 SELECT ... FOR UPDATE SKIP LOCKED / NOWAIT 를 지원하지만, 하이버네이트 6.4 의 {@link H2Dialect} 는
+ * 락 타임아웃 힌트(-2, 0)를 무시하고 FOR UPDATE 만 만든다. 락 타임아웃 정책이 SQL에 반영되도록 이 방언을 사용한다.
+ */
+public class SkipLockedH2Dialect extends H2Dialect {
+
+    @Override
+    public boolean supportsSkipLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsNoWait() {
+        return true;
+    }
+
+    @Override
+    public String getForUpdateSkipLockedString() {
+        return " for update skip locked";
+    }
+
+    @Override
+    public String getForUpdateSkipLockedString(String aliases) {
+        return getForUpdateSkipLockedString();
+    }
+
+    @Override
+    public String getForUpdateNowaitString() {
+        return " for update nowait";
+    }
+
+    @Override
+    public String getForUpdateNowaitString(String aliases) {
+        return getForUpdateNowaitString();
+    }
+}
@@ -0,0 +1,186 @@
+package thespeace.springtx.tx;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * <h2>트랜잭션 전파를 span 으로 추적하는 트랜잭션 매니저</h2>
+ * 실제 트랜잭션 매니저를 감싸서 getTransaction() 호출(논리 트랜잭션)마다 span 을 만든다.
+ * <ul>
+ *     <li>새 물리 트랜잭션이 시작되면 물리 트랜잭션 span 을 추가로 만들고, 사용한 커넥션을 기록한다.</li>
+ *     <li>바깥 물리 트랜잭션이 있는데 새 물리 트랜잭션을 시작하거나 트랜잭션 없이 실행하면 바깥 물리 트랜잭션은 보류된 것으로 기록한다.</li>
+ *     <li>커밋, 롤백이 끝나면 span 을 종료하고 {@link TxSpanExporter} 로 내보낸다.</li>
+ * </ul>
+ * 논리 트랜잭션의 시작과 종료는 같은 스레드에서 스택 순서로 일어나므로 스레드 로컬 스택으로 부모 관계를 추적한다.
+ */
+@Slf4j
+public class TracingTransactionManager implements PlatformTransactionManager {
+
+    private final PlatformTransactionManager delegate;
+    private final List<TxSpanExporter> exporters;
+    private final ThreadLocal<Deque<Frame>> frames = ThreadLocal.withInitial(ArrayDeque::new);
+
+    public TracingTransactionManager(PlatformTransactionManager delegate, List<TxSpanExporter> exporters) {
+        this.delegate = delegate;
+        this.exporters = exporters;
+    }
+
+    public PlatformTransactionManager getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public TransactionStatus getTransaction(@Nullable TransactionDefinition definition) throws TransactionException {
+        TransactionDefinition def = definition != null ? definition : TransactionDefinition.withDefaults();
+        Deque<Frame> stack = frames.get();
+        Frame parent = stack.peek();
+        TxSpan activePhysical = parent == null ? null : parent.currentPhysical();
+
+        TransactionStatus status = delegate.getTransaction(definition);
+
+        TxSpan.Mode mode = modeOf(status);
+        String propagation = propagationName(def.getPropagationBehavior());
+        TxSpan logical = new TxSpan(parent == null ? null : parent.logical(), TxSpan.Type.LOGICAL, mode,
+                def.getName() == null ? "" : def.getName(), propagation,
+                mode == TxSpan.Mode.JOIN || mode == TxSpan.Mode.SAVEPOINT ? activePhysical : null, null);
+
+        TxSpan physical = null;
+        TxSpan suspended = null;
+        if (mode == TxSpan.Mode.NEW) {
+            physical = new TxSpan(logical, TxSpan.Type.PHYSICAL, mode, logical.getName(), propagation, null,
+                    currentConnection());
+            logical.attachPhysical(physical);
+        }
+        if ((mode == TxSpan.Mode.NEW || mode == TxSpan.Mode.NONE) && activePhysical != null) {
+            suspended = activePhysical;
+            suspended.suspend();
+        }
+        stack.push(new Frame(status, logical, physical, suspended,
+                mode == TxSpan.Mode.NONE ? null : physical != null ? physical : activePhysical));
+        return status;
+    }
+
+    @Override
+    public void commit(TransactionStatus status) throws TransactionException {
+        Frame frame = remove(status);
+        boolean committed = false;
+        try {
+            delegate.commit(status);
+            committed = !status.isRollbackOnly();
+        } finally {
+            finish(frame, committed ? TxSpan.Outcome.COMMIT : TxSpan.Outcome.ROLLBACK);
+        }
+    }
+
+    @Override
+    public void rollback(TransactionStatus status) throws TransactionException {
+        Frame frame = remove(status);
+        try {
+            delegate.rollback(status);
+        } finally {
+            finish(frame, TxSpan.Outcome.ROLLBACK);
+        }
+    }
+
+    @Nullable
+    private Frame remove(TransactionStatus status) {
+        Iterator<Frame> iterator = frames.get().iterator();
+        while (iterator.hasNext()) {
+            Frame frame = iterator.next();
+            if (frame.status() == status) {
+                iterator.remove();
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    private void finish(@Nullable Frame frame, TxSpan.Outcome outcome) {
+        if (frame == null) {
+            return;
+        }
+        if (frame.physical() != null) {
+            frame.physical().end(outcome);
+            export(frame.physical());
+        }
+        frame.logical().end(outcome);
+        export(frame.logical());
+        if (frame.suspended() != null) {
+            frame.suspended().resume();
+        }
+        if (frames.get().isEmpty()) {
+            frames.remove();
+        }
+    }
+
+    private void export(TxSpan span) {
+        for (TxSpanExporter exporter : exporters) {
+            try {
+                exporter.export(span);
+            } catch (RuntimeException e) {
+                log.warn("트랜잭션 span 내보내기 실패 exporter={}", exporter, e);
+            }
+        }
+    }
+
+    private static TxSpan.Mode modeOf(TransactionStatus status) {
+        if (status instanceof DefaultTransactionStatus defaultStatus && defaultStatus.hasSavepoint()) {
+            return TxSpan.Mode.SAVEPOINT;
+        }
+        if (status.isNewTransaction()) {
+            return TxSpan.Mode.NEW;
+        }
+        return status.hasTransaction() ? TxSpan.Mode.JOIN : TxSpan.Mode.NONE;
+    }
+
+    private static String propagationName(int behavior) {
+        return switch (behavior) {
+            case TransactionDefinition.PROPAGATION_REQUIRED -> "REQUIRED";
+            case TransactionDefinition.PROPAGATION_SUPPORTS -> "SUPPORTS";
+            case TransactionDefinition.PROPAGATION_MANDATORY -> "MANDATORY";
+            case TransactionDefinition.PROPAGATION_REQUIRES_NEW -> "REQUIRES_NEW";
+            case TransactionDefinition.PROPAGATION_NOT_SUPPORTED -> "NOT_SUPPORTED";
+            case TransactionDefinition.PROPAGATION_NEVER -> "NEVER";
+            case TransactionDefinition.PROPAGATION_NESTED -> "NESTED";
+            default -> String.valueOf(behavior);
+        };
+    }
+
+    /**
+     * 트랜잭션에 바인딩된 JDBC 커넥션을 찾는다. 풀의 프록시는 매번 바뀌므로 프록시가 감싼 실제 커넥션의 식별 해시를 사용한다.
+     * 같은 물리 커넥션을 다시 사용하면 같은 값이 나온다.
+     */
+    @Nullable
+    private static String currentConnection() {
+        for (Object resource : TransactionSynchronizationManager.getResourceMap().values()) {
+            if (resource instanceof ConnectionHolder holder && holder.getConnectionHandle() != null) {
+                Connection connection = holder.getConnection();
+                try {
+                    connection = connection.unwrap(Connection.class);
+                } catch (SQLException e) {
+                    //감싸지 않은 커넥션이면 그대로 사용한다.
+                }
+                return "conn@" + Integer.toHexString(System.identityHashCode(connection));
+            }
+        }
+        return null;
+    }
+
+    private record Frame(TransactionStatus status, TxSpan logical, @Nullable TxSpan physical,
+                         @Nullable TxSpan suspended, @Nullable TxSpan currentPhysical) {
+    }
+}
@@ -0,0 +1,51 @@
+package thespeace.springtx.tx;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <h2>트랜잭션 범위 메모 맵</h2>
+ * 같은 트랜잭션 안에서 반복되는 조회 결과를 기억한다. 맵은 트랜잭션 동기화로 등록되고, 트랜잭션이 끝나면(커밋, 롤백) 비워진다.<br>
+ * 동기화 목록은 물리 트랜잭션마다 따로 관리되므로 REQUIRES_NEW 내부 트랜잭션은 바깥 트랜잭션의 메모를 보지 않는다.
+ * 트랜잭션은 한 스레드에서만 실행되므로 맵은 동기화하지 않는다.
+ */
+public final class TransactionMemo {
+
+    private TransactionMemo() {
+    }
+
+    /**
+     * 현재 트랜잭션에서 owner 가 사용하는 맵. 처음 호출하면 만들어서 등록한다.
+     *
+     * @throws IllegalStateException 트랜잭션 동기화가 활성화되어 있지 않은 경우
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> Map<K, V> of(Object owner) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Memo memo && memo.owner == owner) {
+                return (Map<K, V>) memo.values;
+            }
+        }
+        Memo memo = new Memo(owner);
+        TransactionSynchronizationManager.registerSynchronization(memo);
+        return (Map<K, V>) memo.values;
+    }
+
+    private static class Memo implements TransactionSynchronization {
+
+        private final Object owner;
+        private final Map<Object, Object> values = new HashMap<>();
+
+        Memo(Object owner) {
+            this.owner = owner;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            values.clear();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package thespeace.springtx.tx;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * <h2>트랜잭션 추적 설정</h2>
+ * springtx.tx.tracing.enabled=true 이면 등록된 모든 {@link PlatformTransactionManager} 를
+ * {@link TracingTransactionManager} 로 감싼다. span 은 등록된 모든 {@link TxSpanExporter} 빈으로 내보낸다.
+ * 기본으로 {@link LoggingTxSpanExporter} 를 등록하고, 테스트에서는 {@link InMemoryTxSpanExporter} 를 추가로 등록해서 검증한다.<br>
+ * 감싼 트랜잭션 매니저는 JpaTransactionManager 등 원래 타입으로 조회되지 않고, 트랜잭션마다 span 을 만드는 비용이 들므로 기본으로는 꺼져 있다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.tx.tracing.enabled", havingValue = "true")
+public class TransactionTracingConfig {
+
+    @Bean
+    LoggingTxSpanExporter loggingTxSpanExporter() {
+        return new LoggingTxSpanExporter();
+    }
+
+    @Bean
+    static BeanPostProcessor tracingTransactionManagerPostProcessor(ObjectProvider<TxSpanExporter> exporters) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof PlatformTransactionManager transactionManager
+                        && !(bean instanceof TracingTransactionManager)) {
+                    return new TracingTransactionManager(transactionManager, exporters.orderedStream().toList());
+                }
+                return bean;
+            }
+        };
+    }
+}
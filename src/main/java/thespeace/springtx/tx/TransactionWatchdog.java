@@ -0,0 +1,231 @@
+package thespeace.springtx.tx;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * <h2>오래 열려 있는 트랜잭션 감시</h2>
+ * 트랜잭션 매니저의 {@link TransactionExecutionListener} 로 등록되어 물리 트랜잭션의 시작과 종료를 추적한다.
+ * (스프링 부트는 TransactionExecutionListener 빈을 자동으로 트랜잭션 매니저에 등록한다.)
+ * <ul>
+ *     <li>별도의 감시 스레드가 interval 마다 열려 있는 트랜잭션을 확인한다.</li>
+ *     <li>threshold 보다 오래 열려 있으면 트랜잭션 이름, 경과 시간, 전파 체인, 실행 중인 스레드의 스택을 로그로 남긴다.</li>
+ *     <li>전파 체인은 같은 스레드에서 먼저 시작되어 보류(suspend)된 바깥 물리 트랜잭션부터 나열한다.
+ *         예) MemberService.joinV1 -> LogRepository.save(REQUIRES_NEW)</li>
+ *     <li>cancel 옵션을 켜면 트랜잭션이 시작할 때 바인딩된 커넥션을 {@link Connection#abort} 로 끊는다.
+ *         실행 중인 쿼리는 바로 실패하고, 이후 쿼리와 커밋도 실패해서 트랜잭션은 롤백으로 끝난다.
+ *         rollback-only 표시만으로는 다른 스레드에서 실행 중인 작업이 멈추지 않기 때문이다.
+ *         HikariCP 풀의 커넥션이면 끊기 전에 풀에서 제거(evict)해서 끊긴 커넥션이 다시 쓰이지 않게 한다.</li>
+ * </ul>
+ * 기존 트랜잭션에 참여하는 논리 트랜잭션은 커넥션을 새로 잡지 않으므로 추적하지 않는다.
+ */
+@Slf4j
+@Component
+public class TransactionWatchdog implements TransactionExecutionListener {
+
+    private static final int MAX_REPORTS = 100;
+
+    private final Duration threshold;
+    private final Duration interval;
+    private final boolean cancel;
+
+    private final Map<TransactionExecution, ActiveTransaction> active = new ConcurrentHashMap<>();
+    private final ThreadLocal<Deque<ActiveTransaction>> chain = ThreadLocal.withInitial(ArrayDeque::new);
+    private final Deque<SlowTransaction> reports = new ConcurrentLinkedDeque<>();
+    private ScheduledExecutorService executor;
+
+    public TransactionWatchdog(@Value("${springtx.tx.watchdog.threshold:5s}") Duration threshold,
+                               @Value("${springtx.tx.watchdog.interval:1s}") Duration interval,
+                               @Value("${springtx.tx.watchdog.cancel:false}") boolean cancel) {
+        this.threshold = threshold;
+        this.interval = interval;
+        this.cancel = cancel;
+    }
+
+    @PostConstruct
+    void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tx-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::inspect, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, @Nullable Throwable beginFailure) {
+        if (beginFailure != null || !transaction.isNewTransaction()) {
+            return;
+        }
+        Deque<ActiveTransaction> current = chain.get();
+        List<String> outer = current.stream().map(ActiveTransaction::name).collect(Collectors.toCollection(ArrayList::new));
+        ActiveTransaction started = new ActiveTransaction(transaction, Thread.currentThread(), System.nanoTime(), outer);
+        if (cancel) {
+            bindConnection(started, current);
+        }
+        current.push(started);
+        active.put(transaction, started);
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, @Nullable Throwable commitFailure) {
+        complete(transaction);
+    }
+
+    @Override
+    public void afterRollback(TransactionExecution transaction, @Nullable Throwable rollbackFailure) {
+        complete(transaction);
+    }
+
+    private void complete(TransactionExecution transaction) {
+        ActiveTransaction completed = active.remove(transaction);
+        if (completed != null) {
+            chain.get().remove(completed);
+        }
+    }
+
+    void inspect() {
+        long now = System.nanoTime();
+        for (ActiveTransaction transaction : active.values()) {
+            Duration age = Duration.ofNanos(now - transaction.startedAt());
+            if (age.compareTo(threshold) < 0 || transaction.reported) {
+                continue;
+            }
+            transaction.reported = true;
+
+            List<String> propagation = new ArrayList<>(transaction.outer());
+            propagation.add(transaction.name());
+            SlowTransaction report = new SlowTransaction(transaction.name(), propagation, age,
+                    transaction.thread().getName(), transaction.thread().getStackTrace());
+            log.warn("오래 열려 있는 트랜잭션 name={}, age={}ms, thread={}, chain={}\n{}",
+                    report.name(), age.toMillis(), report.threadName(), String.join(" -> ", propagation),
+                    Arrays.stream(report.stackTrace()).map(element -> "\tat " + element).collect(Collectors.joining("\n")));
+
+            if (cancel) {
+                abort(transaction);
+            }
+            reports.addFirst(report);
+            while (reports.size() > MAX_REPORTS) {
+                reports.pollLast();
+            }
+        }
+    }
+
+    /**
+     * 트랜잭션 매니저가 시작하면서 바인딩한 커넥션을 찾는다. 같은 스레드의 바깥 트랜잭션(다른 트랜잭션 매니저)이
+     * 이미 가진 커넥션은 제외한다.
+     */
+    private void bindConnection(ActiveTransaction started, Deque<ActiveTransaction> outer) {
+        TransactionSynchronizationManager.getResourceMap().forEach((key, value) -> {
+            if (started.connection == null && key instanceof DataSource dataSource
+                    && value instanceof ConnectionHolder holder && holder.getConnectionHandle() != null) {
+                Connection connection = holder.getConnection();
+                if (outer.stream().noneMatch(transaction -> transaction.connection == connection)) {
+                    started.dataSource = dataSource;
+                    started.connection = connection;
+                }
+            }
+        });
+    }
+
+    private void abort(ActiveTransaction transaction) {
+        Connection connection = transaction.connection;
+        if (connection == null) {
+            log.warn("바인딩된 커넥션이 없어 트랜잭션을 취소하지 못했습니다. name={}", transaction.name());
+            return;
+        }
+        log.warn("트랜잭션 커넥션을 끊습니다. name={}", transaction.name());
+        try {
+            if (transaction.dataSource.isWrapperFor(HikariDataSource.class)) {
+                transaction.dataSource.unwrap(HikariDataSource.class).evictConnection(connection);
+            }
+            connection.abort(executor);
+        } catch (SQLException e) {
+            log.warn("트랜잭션 커넥션을 끊지 못했습니다. name={}", transaction.name(), e);
+        }
+    }
+
+    /**
+     * 최근에 감지된 오래 열린 트랜잭션 (최근 순)
+     */
+    public List<SlowTransaction> recentReports() {
+        return List.copyOf(reports);
+    }
+
+    public int activeCount() {
+        return active.size();
+    }
+
+    public record SlowTransaction(String name, List<String> chain, Duration age, String threadName,
+                                  StackTraceElement[] stackTrace) {
+    }
+
+    private static final class ActiveTransaction {
+
+        private final TransactionExecution execution;
+        private final Thread thread;
+        private final long startedAt;
+        private final List<String> outer;
+        private volatile boolean reported;
+        private volatile DataSource dataSource;
+        private volatile Connection connection;
+
+        ActiveTransaction(TransactionExecution execution, Thread thread, long startedAt, List<String> outer) {
+            this.execution = execution;
+            this.thread = thread;
+            this.startedAt = startedAt;
+            this.outer = outer;
+        }
+
+        TransactionExecution execution() {
+            return execution;
+        }
+
+        Thread thread() {
+            return thread;
+        }
+
+        long startedAt() {
+            return startedAt;
+        }
+
+        List<String> outer() {
+            return outer;
+        }
+
+        String name() {
+            return execution.getTransactionName();
+        }
+    }
+}
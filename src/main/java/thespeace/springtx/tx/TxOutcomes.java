@@ -0,0 +1,75 @@
+package thespeace.springtx.tx;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * <h2>예외 없이 비즈니스 결과를 트랜잭션에 남긴다.</h2>
+ * 잔고 부족처럼 자주 발생하는 결과를 예외로 던지면 호출마다 스택 트레이스를 만든다.
+ * 대신 트랜잭션 안에서 결과(status)를 표시하고 정상 반환한다.
+ * <ul>
+ *     <li>springtx.tx.rollback.statuses 규칙이 COMMIT(기본값)이면 결과만 기록하고 커밋한다.</li>
+ *     <li>ROLLBACK 이면 현재 트랜잭션을 롤백 전용으로 표시한다. 예외를 던지지 않아도 롤백된다.</li>
+ *     <li>{@link #mark(String, RollbackDecision)} 는 규칙이 없는 결과의 기본값을 호출한 쪽이 정한다.
+ *         (예: 시스템 오류 결과는 규칙이 없어도 롤백)</li>
+ * </ul>
+ * 표시한 결과는 트랜잭션이 끝날 때까지 {@link #current()} 로 조회할 수 있다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class TxOutcomes {
+
+    private final RollbackRuleEngine engine;
+
+    public RollbackDecision mark(String status) {
+        return mark(status, RollbackDecision.COMMIT);
+    }
+
+    public RollbackDecision mark(String status, RollbackDecision fallback) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("트랜잭션 안에서만 결과를 표시할 수 있습니다. status=" + status);
+        }
+        RollbackDecision decision = engine.decideStatus(status, fallback);
+        if (decision == RollbackDecision.ROLLBACK) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+        }
+
+        Outcome outcome = outcome();
+        if (outcome == null) {
+            outcome = new Outcome();
+            TransactionSynchronizationManager.registerSynchronization(outcome);
+        }
+        outcome.status = status;
+        return decision;
+    }
+
+    public String current() {
+        Outcome outcome = TransactionSynchronizationManager.isSynchronizationActive() ? outcome() : null;
+        return outcome == null ? null : outcome.status;
+    }
+
+    /**
+     * 동기화 목록은 트랜잭션마다 따로 관리되므로(REQUIRES_NEW 는 바깥 목록을 보류한다) 결과도 물리 트랜잭션 단위로 남는다.
+     */
+    private static Outcome outcome() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Outcome outcome) {
+                return outcome;
+            }
+        }
+        return null;
+    }
+
+    private static class Outcome implements TransactionSynchronization {
+
+        private String status;
+
+        @Override
+        public void afterCompletion(int completionStatus) {
+            log.debug("트랜잭션 결과 status={}, committed={}", status, completionStatus == STATUS_COMMITTED);
+        }
+    }
+}
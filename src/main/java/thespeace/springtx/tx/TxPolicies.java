@@ -0,0 +1,33 @@
+package thespeace.springtx.tx;
+
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.SpecHints;
+
+/**
+ * <h2>작업별 락 모드와 쿼리 힌트 적용</h2>
+ * 리포지토리가 쿼리를 만든 뒤 작업 이름과 함께 호출한다. 설정이 없으면 쿼리를 그대로 둔다.<br>
+ * 락 모드, 락 타임아웃, 힌트는 호출할 때마다 읽으므로 실행 중에 바꾼 값도 다음 쿼리부터 적용된다.
+ * 격리 수준과 읽기 전용 여부는 다르다. {@link PolicyTransactionAttributeSource} 가 메서드를 처음 호출할 때 정해서 캐시하므로,
+ * 이후에 바꾼 값은 애플리케이션을 다시 시작해야 적용된다.
+ */
+@RequiredArgsConstructor
+public class TxPolicies {
+
+    private final TxPolicyProperties properties;
+
+    public <Q extends Query> Q apply(String operation, Q query) {
+        TxPolicyProperties.Operation policy = properties.getOperations().get(operation);
+        if (policy == null) {
+            return query;
+        }
+        if (policy.getLockMode() != null) {
+            query.setLockMode(policy.getLockMode());
+        }
+        if (policy.getLockTimeout() != null) {
+            query.setHint(SpecHints.HINT_SPEC_LOCK_TIMEOUT, policy.getLockTimeout());
+        }
+        policy.getHints().forEach(query::setHint);
+        return query;
+    }
+}
@@ -0,0 +1,18 @@
+package thespeace.springtx.tx;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <h2>트랜잭션 정책 이름</h2>
+ * {@code @Transactional} 메서드에 붙이면 springtx.tx.policy.operations[이름] 설정의 격리 수준, 읽기 전용 여부가
+ * 어노테이션 값보다 우선 적용된다. 같은 이름으로 {@link TxPolicies#apply} 를 호출하면 락 모드와 쿼리 힌트도 적용된다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface TxPolicy {
+
+    String value();
+}
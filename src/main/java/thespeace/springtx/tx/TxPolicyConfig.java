@@ -0,0 +1,55 @@
+package thespeace.springtx.tx;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+
+/**
+ * <h2>작업별 트랜잭션 정책 설정</h2>
+ * 트랜잭션 인터셉터의 속성 소스를 {@link PolicyTransactionAttributeSource} 로 감싸고, 쿼리용 {@link TxPolicies} 를 등록한다.
+ * 예외별 커밋, 롤백, 재시도 규칙({@link RollbackRuleEngine})도 여기서 등록한다.<br>
+ * 트랜잭션 속성 소스는 인프라 빈이라서 일반 BeanPostProcessor 보다 먼저 만들어진다.
+ * 그래서 빈을 감싸지 않고, 싱글톤 생성이 끝난 뒤 인터셉터의 속성 소스를 교체한다.
+ * (어드바이저는 속성 소스를 포인트컷 판단에만 사용하고, 감싼 속성 소스도 같은 메서드에 대해 속성을 반환한다.)
+ */
+@Configuration
+@EnableConfigurationProperties({TxPolicyProperties.class, RollbackRuleProperties.class})
+public class TxPolicyConfig {
+
+    @Bean
+    TxPolicies txPolicies(TxPolicyProperties properties) {
+        return new TxPolicies(properties);
+    }
+
+    @Bean
+    RollbackRuleEngine rollbackRuleEngine(RollbackRuleProperties properties) {
+        return new RollbackRuleEngine(properties);
+    }
+
+    @Bean
+    TxOutcomes txOutcomes(RollbackRuleEngine rollbackRuleEngine) {
+        return new TxOutcomes(rollbackRuleEngine);
+    }
+
+    @Bean
+    RollbackRetryAspect rollbackRetryAspect(RollbackRuleEngine rollbackRuleEngine) {
+        return new RollbackRetryAspect(rollbackRuleEngine);
+    }
+
+    @Bean
+    SmartInitializingSingleton policyTransactionAttributeSourceInstaller(ObjectProvider<TransactionInterceptor> interceptors,
+                                                                         TxPolicyProperties properties,
+                                                                         RollbackRuleEngine rollbackRuleEngine) {
+        return () -> interceptors.forEach(interceptor -> {
+            if (interceptor.getTransactionAttributeSource() != null
+                    && !(interceptor.getTransactionAttributeSource() instanceof PolicyTransactionAttributeSource)) {
+                interceptor.setTransactionAttributeSource(
+                        new PolicyTransactionAttributeSource(interceptor.getTransactionAttributeSource(), properties,
+                                rollbackRuleEngine));
+            }
+        });
+    }
+}
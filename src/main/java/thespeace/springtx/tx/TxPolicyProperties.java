@@ -0,0 +1,40 @@
+package thespeace.springtx.tx;
+
+import jakarta.persistence.LockModeType;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.transaction.annotation.Isolation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <h2>작업별 트랜잭션 정책 설정 (springtx.tx.policy)</h2>
+ * <pre>
+ * springtx.tx.policy.operations[order.scan-pending].isolation=READ_COMMITTED
+ * springtx.tx.policy.operations[order.scan-pending].lock-mode=PESSIMISTIC_WRITE
+ * springtx.tx.policy.operations[order.scan-pending].lock-timeout=-2      #-2: SKIP LOCKED, 0: NOWAIT, 밀리초
+ * springtx.tx.policy.operations[member.find].hints[org.hibernate.readOnly]=true
+ * </pre>
+ * 설정하지 않은 값은 @Transactional 어노테이션과 쿼리의 기본값을 그대로 사용한다.<br>
+ * isolation, read-only 는 메서드를 처음 호출할 때 고정된다. lock-mode, lock-timeout, hints 는 쿼리마다 다시 읽는다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties("springtx.tx.policy")
+public class TxPolicyProperties {
+
+    private Map<String, Operation> operations = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Operation {
+
+        private Isolation isolation;
+        private Boolean readOnly;
+        private LockModeType lockMode;
+        private Integer lockTimeout;
+        private Map<String, String> hints = new LinkedHashMap<>();
+    }
+}
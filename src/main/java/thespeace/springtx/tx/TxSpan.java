@@ -0,0 +1,102 @@
+package thespeace.springtx.tx;
+
+import lombok.Getter;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <h2>트랜잭션 추적 span</h2>
+ * <ul>
+ *     <li>LOGICAL : @Transactional 호출 하나(논리 트랜잭션). 부모는 바깥 논리 트랜잭션이다.</li>
+ *     <li>PHYSICAL : 실제 DB 트랜잭션(물리 트랜잭션). 부모는 이 트랜잭션을 시작한 논리 트랜잭션이다.</li>
+ * </ul>
+ * 논리 트랜잭션의 {@link Mode} 로 신규 트랜잭션인지, 기존 트랜잭션에 참여했는지, 세이브포인트인지 구분한다.
+ * 물리 트랜잭션이 REQUIRES_NEW 등으로 보류(suspend)되었으면 suspended 가 표시되고 보류된 시간이 기록된다.
+ */
+@Getter
+public class TxSpan {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    public enum Type {LOGICAL, PHYSICAL}
+
+    public enum Mode {
+        /** 새로운 물리 트랜잭션을 시작했다. */
+        NEW,
+        /** 기존 물리 트랜잭션에 참여했다. */
+        JOIN,
+        /** 기존 물리 트랜잭션 안에서 세이브포인트를 만들었다. (NESTED) */
+        SAVEPOINT,
+        /** 트랜잭션 없이 실행되었다. (SUPPORTS, NOT_SUPPORTED, NEVER) */
+        NONE
+    }
+
+    public enum Outcome {COMMIT, ROLLBACK}
+
+    private final long id = SEQUENCE.incrementAndGet();
+    private final long traceId;
+    @Nullable
+    private final Long parentId;
+    private final Type type;
+    private final Mode mode;
+    private final String name;
+    private final String propagation;
+    @Nullable
+    private Long physicalId;
+    @Nullable
+    private final String connection;
+    private final long startNanos = System.nanoTime();
+    private long endNanos;
+    private Outcome outcome;
+    private boolean suspended;
+    private long suspendedNanos;
+    private long suspendedAt;
+
+    TxSpan(@Nullable TxSpan parent, Type type, Mode mode, String name, String propagation,
+           @Nullable TxSpan physical, @Nullable String connection) {
+        this.traceId = parent == null ? id : parent.traceId;
+        this.parentId = parent == null ? null : parent.id;
+        this.type = type;
+        this.mode = mode;
+        this.name = name;
+        this.propagation = propagation;
+        this.physicalId = type == Type.PHYSICAL ? Long.valueOf(id) : physical == null ? null : physical.id;
+        this.connection = connection;
+    }
+
+    void attachPhysical(TxSpan physical) {
+        this.physicalId = physical.id;
+    }
+
+    void suspend() {
+        suspended = true;
+        suspendedAt = System.nanoTime();
+    }
+
+    void resume() {
+        suspendedNanos += System.nanoTime() - suspendedAt;
+    }
+
+    void end(Outcome outcome) {
+        this.outcome = outcome;
+        this.endNanos = System.nanoTime();
+    }
+
+    public Duration getDuration() {
+        return Duration.ofNanos(endNanos - startNanos);
+    }
+
+    public Duration getSuspendedDuration() {
+        return Duration.ofNanos(suspendedNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "TxSpan{id=" + id + ", parentId=" + parentId + ", traceId=" + traceId + ", type=" + type
+                + ", mode=" + mode + ", name=" + name + ", propagation=" + propagation + ", physicalId=" + physicalId
+                + ", connection=" + connection + ", outcome=" + outcome + ", duration=" + getDuration().toNanos() / 1000 + "us"
+                + (suspended ? ", suspended=" + getSuspendedDuration().toNanos() / 1000 + "us" : "") + "}";
+    }
+}
@@ -0,0 +1,9 @@
+package thespeace.springtx.tx;
+
+/**
+ * 종료된 트랜잭션 span 을 내보낸다. 자식 span 이 부모보다 먼저 전달된다.
+ */
+public interface TxSpanExporter {
+
+    void export(TxSpan span);
+}
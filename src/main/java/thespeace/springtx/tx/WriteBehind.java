@@ -0,0 +1,72 @@
+package thespeace.springtx.tx;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <h2>커밋 직전에 저장하는 쓰기 지연(write-behind)</h2>
+ * 새 엔티티를 persist 한 뒤에 값을 바꾸면, 하이버네이트는 persist 시점의 상태로 INSERT 하고
+ * 커밋 시점에 변경 감지로 UPDATE 를 한 번 더 실행한다.<p>
+ *
+ * {@link #persistBeforeCommit(Object)} 로 등록한 엔티티는 트랜잭션 커밋 직전(flush 전)에 persist 된다.
+ * 그 사이의 변경은 모두 INSERT 하나에 반영된다.
+ * <ul>
+ *     <li>식별자는 커밋 직전에 할당되므로 트랜잭션 안에서는 getId()가 null 이다.</li>
+ *     <li>트랜잭션이 롤백되면 persist 하지 않는다.</li>
+ *     <li>트랜잭션 동기화가 활성화되어 있지 않으면 바로 persist 한다.</li>
+ *     <li>등록은 현재 물리 트랜잭션의 동기화 목록에 둔다. REQUIRES_NEW 내부 트랜잭션에서 등록한 엔티티는 내부 트랜잭션이 커밋될 때 persist 된다.</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+public class WriteBehind {
+
+    private final EntityManager em;
+
+    public void persistBeforeCommit(Object entity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            em.persist(entity);
+            return;
+        }
+        pendingPersist().entities.add(entity);
+    }
+
+    /**
+     * 동기화 목록은 트랜잭션이 보류되면 함께 보류되므로, 리소스로 바인딩하지 않고 동기화 목록에서 찾는다.
+     */
+    private PendingPersist pendingPersist() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingPersist pending && pending.owner() == this) {
+                return pending;
+            }
+        }
+        PendingPersist pending = new PendingPersist();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private class PendingPersist implements TransactionSynchronization {
+
+        private final List<Object> entities = new ArrayList<>();
+
+        WriteBehind owner() {
+            return WriteBehind.this;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            entities.forEach(em::persist);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            entities.clear();
+        }
+    }
+}
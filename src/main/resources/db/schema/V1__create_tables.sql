@@ -0,0 +1,39 @@
+-- V1: 엔티티(Member, Log, Order) 기본 스키마. 여러 번 실행해도 결과가 같도록 IF NOT EXISTS 를 사용한다.
+-- 시퀀스 증가값은 spring.jpa.properties.springtx.id.block-size 와 같아야 한다.
+create table if not exists schema_version (
+    version     integer      not null,
+    description varchar(255) not null,
+    applied_at  timestamp(6) not null,
+    primary key (version)
+);
+
+create sequence if not exists member_seq start with 1 increment by 50;
+create sequence if not exists log_seq start with 1 increment by 50;
+create sequence if not exists orders_seq start with 1 increment by 50;
+
+create table if not exists member (
+    id       bigint not null,
+    username varchar(255),
+    primary key (id)
+);
+
+create table if not exists log (
+    id         bigint  not null,
+    message    varchar(255),
+    created_at timestamp(6),
+    bucket     integer not null,
+    primary key (id)
+);
+
+create table if not exists orders (
+    id         bigint not null,
+    username   varchar(255),
+    pay_status varchar(255),
+    created_at timestamp(6),
+    primary key (id)
+);
+
+create index if not exists idx_log_message on log (message);
+create index if not exists idx_log_bucket on log (bucket);
+
+merge into schema_version key (version) values (1, 'create tables', current_timestamp);
@@ -0,0 +1,8 @@
+-- V2: 조회 조건에 쓰는 컬럼 인덱스
+-- member.username : MemberRepository.find, 블룸 필터 재구성
+-- orders.pay_status, orders.created_at : OrderBulkJob, PendingOrderProcessor
+create index if not exists idx_member_username on member (username);
+create index if not exists idx_orders_pay_status on orders (pay_status);
+create index if not exists idx_orders_created_at on orders (created_at);
+
+merge into schema_version key (version) values (2, 'add indexes', current_timestamp);
@@ -0,0 +1,167 @@
+package thespeace.springtx.audit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <h1>벤치마크: 체인 트랜잭션(1PC) vs 2단계 커밋</h1>
+ * 같은 작업(회원 INSERT 1건, 감사 로그 INSERT 1건)을 같은 트랜잭션 매니저(DataSourceTransactionManager) 위에서 두 방식으로 실행한다.
+ * <ul>
+ *     <li>1PC : 저널 INSERT(+ 앞선 트랜잭션의 저널 DELETE, 기본 DB 트랜잭션 안) → 기본 DB 커밋 → 감사 DB 커밋</li>
+ *     <li>2PC : 두 DB PREPARE COMMIT → 코디네이터 로그 INSERT → 두 DB 커밋 → 코디네이터 로그 DELETE</li>
+ * </ul>
+ * 커밋 비용이 드러나도록 두 DB 모두 bench 프로필과 같은 H2 파일 모드(WRITE_DELAY=0, 커밋마다 디스크 기록)를 사용한다.
+ * 실행할 때마다 빈 임시 디렉터리에 DB 파일을 만들고, DB 파일이 닫히도록 컨텍스트를 캐시에 남기지 않는다. (@DirtiesContext)
+ */
+@Slf4j
+@ActiveProfiles("bench")
+@DirtiesContext
+@SpringBootTest(properties = {
+        "springtx.audit.enabled=true",
+        "springtx.audit.url=jdbc:h2:file:${springtx.bench.dir}/audit;WRITE_DELAY=0;DB_CLOSE_ON_EXIT=FALSE"
+})
+class ChainedTransactionBenchmarkTest {
+
+    @TempDir
+    static Path benchDir;
+
+    @Autowired AuditLogRepository auditLogRepository;
+    @Autowired AuditDatabase auditDatabase;
+    @Autowired AuditJournal auditJournal;
+    @Autowired DataSource dataSource;
+
+    /**
+     * 테스트 AOT 처리(processTestAot)는 JUnit 밖에서 조건만 평가하므로 @TempDir 이 주입되지 않는다.
+     * 이때는 DB에 연결하지 않으니 bench 프로필의 기본 위치를 넘긴다.
+     */
+    @DynamicPropertySource
+    static void benchDir(DynamicPropertyRegistry registry) {
+        registry.add("springtx.bench.dir", () -> benchDir != null ? benchDir.toString()
+                : Path.of(System.getProperty("java.io.tmpdir"), "springtx", "bench").toString());
+    }
+
+    /**
+     * 1PC 는 트랜잭션마다 커밋 2번(기본 DB, 감사 DB), 2PC 는 PREPARE 2번과 커밋 4번(두 DB, 코디네이터 로그 INSERT, DELETE)이다.
+     * 먼저 실행하는 쪽이 유리하거나 불리하지 않도록 라운드마다 순서를 바꾸고 시간을 합산한다.
+     */
+    @Test
+    void onePhaseIsFasterThanTwoPhase() {
+        JdbcTemplate primary = new JdbcTemplate(dataSource);
+        primary.execute("create table if not exists bench_member (username varchar(255))");
+        primary.execute("create table if not exists bench_xa_log (xid varchar(36) primary key)");
+        DataSourceTransactionManager primaryTransactionManager = new DataSourceTransactionManager(dataSource);
+        DataSourceTransactionManager auditTransactionManager = auditDatabase.transactionManager();
+        ChainedTransactionCoordinator coordinator =
+                new ChainedTransactionCoordinator(primaryTransactionManager, auditTransactionManager, auditJournal);
+        int rounds = 4;
+        int iterations = 250;
+
+        //JIT 예열
+        onePhase(coordinator, primary, "warmup", iterations);
+        twoPhase(primaryTransactionManager, auditTransactionManager, primary, "warmup", iterations);
+
+        long onePhaseNanos = 0;
+        long twoPhaseNanos = 0;
+        for (int round = 0; round < rounds; round++) {
+            String prefix = "round" + round;
+            if (round % 2 == 0) {
+                onePhaseNanos += onePhase(coordinator, primary, prefix, iterations);
+                twoPhaseNanos += twoPhase(primaryTransactionManager, auditTransactionManager, primary, prefix, iterations);
+            } else {
+                twoPhaseNanos += twoPhase(primaryTransactionManager, auditTransactionManager, primary, prefix, iterations);
+                onePhaseNanos += onePhase(coordinator, primary, prefix, iterations);
+            }
+        }
+        long operations = (long) rounds * iterations;
+        long onePhaseOps = operations * TimeUnit.SECONDS.toNanos(1) / onePhaseNanos;
+        long twoPhaseOps = operations * TimeUnit.SECONDS.toNanos(1) / twoPhaseNanos;
+        log.info("체인 트랜잭션(1PC) {} ops/s, 2단계 커밋 {} ops/s", onePhaseOps, twoPhaseOps);
+
+        assertThat(primary.queryForObject("select count(*) from bench_member", Long.class))
+                .isEqualTo((operations + iterations) * 2);
+        assertThat(primary.queryForObject("select count(*) from bench_xa_log", Long.class)).isZero();
+        assertThat(auditJournal.pending()).isEmpty();
+        assertThat(onePhaseOps).isGreaterThan(twoPhaseOps);
+    }
+
+    private long onePhase(ChainedTransactionCoordinator coordinator, JdbcTemplate primary, String prefix, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            String username = "bench_1pc_" + prefix + "_" + i;
+            coordinator.execute(txId -> {
+                primary.update("insert into bench_member (username) values (?)", username);
+                auditLogRepository.save(username);
+            });
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long twoPhase(PlatformTransactionManager primaryTransactionManager,
+                          PlatformTransactionManager auditTransactionManager, JdbcTemplate primary,
+                          String prefix, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            String username = "bench_2pc_" + prefix + "_" + i;
+            twoPhaseCommit(primaryTransactionManager, auditTransactionManager, () -> {
+                primary.update("insert into bench_member (username) values (?)", username);
+                auditDatabase.jdbcTemplate().update("insert into audit_log (tx_id, message, created_at) values (?, ?, ?)",
+                        UUID.randomUUID().toString(), username, new Timestamp(System.currentTimeMillis()));
+            });
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void twoPhaseCommit(PlatformTransactionManager primaryTransactionManager,
+                                PlatformTransactionManager auditTransactionManager, Runnable work) {
+        String xid = "x" + UUID.randomUUID().toString().replace("-", "");
+        TransactionStatus auditStatus = auditTransactionManager.getTransaction(TransactionDefinition.withDefaults());
+        TransactionStatus primaryStatus = primaryTransactionManager.getTransaction(TransactionDefinition.withDefaults());
+        work.run();
+
+        //1단계: 모든 자원 prepare, 코디네이터 로그에 커밋 결정 기록
+        new JdbcTemplate(dataSource).execute("prepare commit p" + xid);
+        auditDatabase.jdbcTemplate().execute("prepare commit a" + xid);
+        writeCoordinatorLog("insert into bench_xa_log (xid) values (?)", xid);
+
+        //2단계: 모든 자원 커밋, 코디네이터 로그 삭제
+        primaryTransactionManager.commit(primaryStatus);
+        auditTransactionManager.commit(auditStatus);
+        writeCoordinatorLog("delete from bench_xa_log where xid = ?", xid);
+    }
+
+    /**
+     * 코디네이터 로그는 자원 트랜잭션과 별개의 커넥션에서 바로 커밋한다.
+     */
+    private void writeCoordinatorLog(String sql, String xid) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, xid);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
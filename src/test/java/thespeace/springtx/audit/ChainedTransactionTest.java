@@ -0,0 +1,144 @@
+package thespeace.springtx.audit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.TransactionSystemException;
+import thespeace.springtx.propagation.Member;
+import thespeace.springtx.propagation.MemberRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * <h1>감사 로그 DB 분리와 체인 트랜잭션</h1>
+ * <ul>
+ *     <li>joinV1, joinV2 의 롤백 결과는 같은 DB를 사용할 때와 같다.</li>
+ *     <li>기본 DB만 커밋되고 감사 DB 커밋이 실패하면, 복구 단계에서 감사 로그를 다시 쓴다.</li>
+ *     <li>완료된 저널 기록은 별도 커밋 없이 다음 체인 트랜잭션에서 지운다.</li>
+ * </ul>
+ */
+@SpringBootTest(properties = {
+        "springtx.audit.enabled=true",
+        "springtx.audit.url=jdbc:h2:mem:audit_test;DB_CLOSE_DELAY=-1"
+})
+class ChainedTransactionTest {
+
+    @Autowired ChainedMemberService chainedMemberService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired AuditLogRepository auditLogRepository;
+    @Autowired AuditDatabase auditDatabase;
+    @Autowired AuditJournal auditJournal;
+    @Autowired AuditRecovery auditRecovery;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    void commitBoth() {
+        chainedMemberService.joinV1("chained_commit");
+
+        assertThat(memberRepository.find("chained_commit")).isPresent();
+        assertThat(auditLogRepository.exists("chained_commit")).isTrue();
+        assertThat(auditJournal.pending()).isEmpty();
+    }
+
+    @Test
+    void joinV1RollbackBoth() {
+        assertThatThrownBy(() -> chainedMemberService.joinV1("로그예외_chained_v1"))
+                .isInstanceOf(RuntimeException.class);
+
+        assertThat(memberRepository.find("로그예외_chained_v1")).isEmpty();
+        assertThat(auditLogRepository.exists("로그예외_chained_v1")).isFalse();
+        assertThat(auditJournal.pending()).isEmpty();
+    }
+
+    @Test
+    void joinV2Recover() {
+        chainedMemberService.joinV2("로그예외_chained_v2");
+
+        assertThat(memberRepository.find("로그예외_chained_v2")).isPresent();
+        assertThat(auditLogRepository.exists("로그예외_chained_v2")).isFalse();
+    }
+
+    @Test
+    void recoverPartialFailure() {
+        //given: 감사 DB 커밋이 실패하는 코디네이터
+        ChainedTransactionCoordinator coordinator = new ChainedTransactionCoordinator(
+                transactionManager, new CommitFailingTransactionManager(auditDatabase.transactionManager()), auditJournal);
+
+        //when
+        coordinator.execute(txId -> {
+            memberRepository.save(new Member("chained_partial"));
+            auditLogRepository.save("chained_partial");
+        });
+
+        //then: 회원은 커밋되고 감사 로그는 없다. 저널에 기록이 남는다.
+        assertThat(coordinator.partialFailures()).isEqualTo(1);
+        assertThat(memberRepository.find("chained_partial")).isPresent();
+        assertThat(auditLogRepository.exists("chained_partial")).isFalse();
+        assertThat(auditJournal.pending()).extracting(AuditJournal.Entry::message).containsExactly("chained_partial");
+
+        //복구하면 감사 로그를 다시 쓰고, 다시 실행해도 중복되지 않는다.
+        assertThat(auditRecovery.recover()).isEqualTo(1);
+        assertThat(auditRecovery.recover()).isZero();
+        assertThat(auditLogRepository.exists("chained_partial")).isTrue();
+        assertThat(auditJournal.pending()).isEmpty();
+    }
+
+    @Test
+    void cannotStartInsideTransaction() {
+        TransactionStatus status = transactionManager.getTransaction(TransactionDefinition.withDefaults());
+        try {
+            assertThatThrownBy(() -> chainedMemberService.joinV1("chained_nested"))
+                    .isInstanceOf(IllegalStateException.class);
+        } finally {
+            transactionManager.rollback(status);
+        }
+    }
+
+    /**
+     * 감사 DB까지 커밋된 저널 기록은 다음 체인 트랜잭션의 기본 DB 트랜잭션에서 지워진다.
+     */
+    @Test
+    void completedJournalPurgedByNextTransaction() {
+        //given
+        chainedMemberService.joinV1("chained_purge_1");
+        assertThat(auditJournal.entries()).extracting(AuditJournal.Entry::message).contains("chained_purge_1");
+        assertThat(auditJournal.pending()).isEmpty();
+
+        //when
+        chainedMemberService.joinV1("chained_purge_2");
+
+        //then
+        assertThat(auditJournal.entries()).extracting(AuditJournal.Entry::message)
+                .doesNotContain("chained_purge_1")
+                .contains("chained_purge_2");
+    }
+
+    static class CommitFailingTransactionManager implements PlatformTransactionManager {
+
+        private final PlatformTransactionManager delegate;
+
+        CommitFailingTransactionManager(PlatformTransactionManager delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return delegate.getTransaction(definition);
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            delegate.rollback(status);
+            throw new TransactionSystemException("감사 DB 커밋 실패");
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            delegate.rollback(status);
+        }
+    }
+}
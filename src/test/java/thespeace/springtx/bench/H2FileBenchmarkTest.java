@@ -0,0 +1,32 @@
+package thespeace.springtx.bench;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+
+/**
+ * <h1>H2 파일 모드(MVStore) 벤치마크</h1>
+ * 실행할 때마다 빈 임시 디렉터리에 DB 파일을 만들고, 클래스가 끝나면 디렉터리를 지운다.<br>
+ * 디렉터리를 지우기 전에 DB 파일이 닫히도록 컨텍스트를 캐시에 남기지 않는다. (@DirtiesContext)
+ */
+@ActiveProfiles("bench")
+@DirtiesContext
+class H2FileBenchmarkTest extends SchemaProfileBenchmark {
+
+    @TempDir
+    static Path benchDir;
+
+    /**
+     * 테스트 AOT 처리(processTestAot)는 JUnit 밖에서 조건만 평가하므로 @TempDir 이 주입되지 않는다.
+     * 이때는 DB에 연결하지 않으니 bench 프로필의 기본 위치를 넘긴다.
+     */
+    @DynamicPropertySource
+    static void benchDir(DynamicPropertyRegistry registry) {
+        registry.add("springtx.bench.dir", () -> benchDir != null ? benchDir.toString()
+                : Path.of(System.getProperty("java.io.tmpdir"), "springtx", "bench").toString());
+    }
+}
@@ -0,0 +1,10 @@
+package thespeace.springtx.bench;
+
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * <h1>H2 PostgreSQL 호환 모드 벤치마크</h1>
+ */
+@ActiveProfiles("bench-pgmode")
+class H2PostgresModeBenchmarkTest extends SchemaProfileBenchmark {
+}
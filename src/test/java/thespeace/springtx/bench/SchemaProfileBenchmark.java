@@ -0,0 +1,75 @@
+package thespeace.springtx.bench;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import thespeace.springtx.order.NotEnoughMoneyException;
+import thespeace.springtx.order.Order;
+import thespeace.springtx.order.OrderService;
+import thespeace.springtx.propagation.MemberService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <h1>벤치마크 프로필 공통 테스트</h1>
+ * 하위 클래스가 프로필(bench, bench-pgmode)을 지정한다.
+ * <ul>
+ *     <li>스키마는 ddl-auto 가 아니라 버전별 DDL 로 만들어지고, 인덱스가 모두 있어야 한다.</li>
+ *     <li>같은 OrderService, MemberService 흐름의 처리량을 측정해서 로그로 남긴다.</li>
+ * </ul>
+ */
+@Slf4j
+@SpringBootTest
+abstract class SchemaProfileBenchmark {
+
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+
+    @Test
+    void versionedSchemaApplied() {
+        List<Integer> versions = jdbcTemplate.queryForList("select version from schema_version order by version", Integer.class);
+        assertThat(versions).containsExactly(1, 2);
+
+        List<String> indexes = jdbcTemplate.queryForList(
+                "select lower(index_name) from information_schema.indexes where lower(index_name) like 'idx_%'", String.class);
+        assertThat(indexes).contains("idx_log_message", "idx_log_bucket", "idx_member_username",
+                "idx_orders_pay_status", "idx_orders_created_at");
+    }
+
+    @Test
+    void flowBenchmark() throws NotEnoughMoneyException {
+        int count = 500;
+        orders(100, "warmup"); //워밍업
+        joins(100, "warmup");
+
+        long orders = orders(count, "bench");
+        long joins = joins(count, "bench");
+        log.info("{} 처리량(/s) order={}, joinV1={}", getClass().getSimpleName(), orders, joins);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from orders where username like 'bench_%'", Long.class))
+                .isGreaterThanOrEqualTo(count);
+    }
+
+    private long orders(int count, String prefix) throws NotEnoughMoneyException {
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            Order order = new Order();
+            order.setUsername(prefix + "_" + i);
+            orderService.order(order);
+        }
+        return count * TimeUnit.SECONDS.toNanos(1) / (System.nanoTime() - start);
+    }
+
+    private long joins(int count, String prefix) {
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            memberService.joinV1(prefix + "_member_" + i);
+        }
+        return count * TimeUnit.SECONDS.toNanos(1) / (System.nanoTime() - start);
+    }
+}
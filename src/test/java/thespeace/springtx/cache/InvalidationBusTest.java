@@ -0,0 +1,127 @@
+package thespeace.springtx.cache;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import thespeace.springtx.propagation.Member;
+import thespeace.springtx.propagation.MemberRepository;
+import thespeace.springtx.propagation.MemberView;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <h1>트랜잭션을 인식하는 캐시 무효화</h1>
+ * 한 JVM 에서 두 번째 노드(remote)를 만들고 기본 전송 방식인 {@link LoopbackTransport} 로 연결한다.
+ * <ul>
+ *     <li>회원 저장이 커밋된 뒤에만 이 노드와 다른 노드의 캐시에서 지운다.</li>
+ *     <li>변경 감지로 username 을 바꿔도 이전, 새 username 모두 지운다.</li>
+ *     <li>롤백되면 무효화 메시지를 보내지 않는다.</li>
+ *     <li>트랜잭션 하나의 무효화는 메시지 하나로 보낸다.</li>
+ * </ul>
+ */
+@SpringBootTest(properties = {
+        "springtx.cache.enabled=true",
+        "springtx.cache.node-id=local"
+})
+class InvalidationBusTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired InvalidationBus invalidationBus;
+    @Autowired VersionedCache<MemberView> memberViewCache;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired EntityManager em;
+
+    VersionedCache<String> remoteCache;
+    InvalidationBus remote;
+
+    @BeforeEach
+    void startRemote() {
+        remoteCache = new VersionedCache<>(CacheConfig.MEMBER_VIEW, 100, Duration.ofMinutes(10), Duration.ofMillis(50), Duration.ofSeconds(60));
+        remote = new InvalidationBus("remote", invalidationBus.transport());
+        remote.register(remoteCache);
+        remote.start();
+    }
+
+    @AfterEach
+    void stopRemote() {
+        remote.stop();
+    }
+
+    @Test
+    void loopbackTransportByDefault() {
+        assertThat(invalidationBus.transport()).isInstanceOf(LoopbackTransport.class);
+    }
+
+    @Test
+    void localCacheEvictedAfterCommit() {
+        //given: 없는 회원도 캐시된다.
+        assertThat(memberRepository.findView("cache_local")).isEmpty();
+        assertThat(memberViewCache.size()).isPositive();
+
+        //when
+        memberRepository.save(new Member("cache_local"));
+
+        //then
+        assertThat(memberRepository.findView("cache_local")).isPresent();
+    }
+
+    @Test
+    void remoteEvictedOnlyAfterCommit() throws InterruptedException {
+        //given
+        remoteCache.get("default:cache_remote", key -> Optional.empty());
+        long published = invalidationBus.published();
+
+        //when: 롤백
+        transactionTemplate.executeWithoutResult(status -> {
+            memberRepository.save(new Member("cache_remote"));
+            status.setRollbackOnly();
+        });
+
+        //then
+        assertThat(invalidationBus.published()).isEqualTo(published);
+        assertThat(remoteCache.size()).isOne();
+
+        //when: 커밋
+        transactionTemplate.executeWithoutResult(status -> {
+            memberRepository.save(new Member("cache_remote"));
+            memberRepository.save(new Member("cache_remote_2"));
+            assertThat(remote.applied()).isZero(); //커밋 전에는 보내지 않는다.
+        });
+
+        //then
+        awaitApplied(1);
+        assertThat(invalidationBus.published()).isEqualTo(published + 1);
+        assertThat(remoteCache.size()).isZero();
+    }
+
+    @Test
+    void dirtyCheckedRenameEvictsBothUsernames() {
+        //given
+        Member member = new Member("cache_rename_before");
+        memberRepository.save(member);
+        assertThat(memberRepository.findView("cache_rename_before")).isPresent();
+        assertThat(memberRepository.findView("cache_rename_after")).isEmpty();
+
+        //when: 리포지토리를 거치지 않고 변경 감지로 바꾼다.
+        transactionTemplate.executeWithoutResult(status ->
+                em.find(Member.class, member.getId()).setUsername("cache_rename_after"));
+
+        //then
+        assertThat(memberRepository.findView("cache_rename_before")).isEmpty();
+        assertThat(memberRepository.findView("cache_rename_after")).isPresent();
+    }
+
+    private void awaitApplied(long count) throws InterruptedException {
+        for (int i = 0; i < 100 && remote.applied() < count; i++) {
+            Thread.sleep(20);
+        }
+        assertThat(remote.applied()).isEqualTo(count);
+    }
+}
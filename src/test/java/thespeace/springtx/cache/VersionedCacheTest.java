@@ -0,0 +1,99 @@
+package thespeace.springtx.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <h1>버전 캐시</h1>
+ * <ul>
+ *     <li>적재하는 동안 무효화된 값은 캐시하지 않는다.</li>
+ *     <li>적재보다 오래된 변경의 무효화가 늦게 도착하면 항목을 지우지 않는다.</li>
+ *     <li>가득 차면 오래된 항목을 지우고 새 항목을 캐시한다.</li>
+ *     <li>ttl 이 지난 항목은 다시 적재한다.</li>
+ * </ul>
+ */
+class VersionedCacheTest {
+
+    private final VersionedCache<String> cache = new VersionedCache<>("test", 100, Duration.ofMinutes(10), Duration.ofMillis(50), Duration.ofSeconds(60));
+
+    @Test
+    void evictRemovesEntry() {
+        cache.get("key", key -> Optional.of("v1"));
+
+        cache.evict(List.of("key"), VersionedCache.now());
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.get("key", key -> Optional.of("v2"))).contains("v2");
+    }
+
+    @Test
+    void evictOldestWhenFull() {
+        //given
+        VersionedCache<String> small = new VersionedCache<>("small", 3, Duration.ofMinutes(10), Duration.ofMillis(50), Duration.ofSeconds(60));
+        for (int i = 0; i < 10; i++) {
+            small.get("key" + i, key -> Optional.of(key));
+        }
+
+        //when: 가득 찬 뒤에 적재한 항목도 캐시된다.
+        small.get("latest", key -> Optional.of("v1"));
+
+        //then
+        assertThat(small.size()).isEqualTo(3);
+        assertThat(small.get("latest", key -> Optional.of("v2"))).contains("v1");
+    }
+
+    @Test
+    void expiredEntryIsReloaded() throws InterruptedException {
+        //given
+        VersionedCache<String> shortLived = new VersionedCache<>("short", 100, Duration.ofMillis(30), Duration.ofMillis(50), Duration.ofSeconds(60));
+        shortLived.get("key", key -> Optional.of("v1"));
+        assertThat(shortLived.get("key", key -> Optional.of("v2"))).contains("v1");
+
+        //when
+        Thread.sleep(40);
+
+        //then
+        assertThat(shortLived.get("key", key -> Optional.of("v2"))).contains("v2");
+        assertThat(shortLived.get("key", key -> Optional.of("v3"))).contains("v2");
+    }
+
+    @Test
+    void loadInvalidatedWhileLoadingIsNotCached() throws InterruptedException {
+        Optional<String> loaded = cache.get("key", key -> {
+            cache.evict(List.of(key), VersionedCache.now()); //다른 노드의 변경이 적재 중에 커밋되었다.
+            return Optional.of("stale");
+        });
+
+        assertThat(loaded).contains("stale");
+        assertThat(cache.size()).isZero();
+        assertThat(cache.get("key", key -> Optional.of("fresh"))).contains("fresh");
+
+        //시계 차이(50ms)가 지나면 다시 캐시한다.
+        Thread.sleep(60);
+        cache.get("key", key -> Optional.of("fresh"));
+        assertThat(cache.size()).isOne();
+    }
+
+    @Test
+    void lateInvalidationKeepsNewerEntry() {
+        long committedBeforeLoad = VersionedCache.now() - Duration.ofSeconds(1).toNanos() / 1000;
+        cache.get("key", key -> Optional.of("fresh"));
+
+        cache.evict(List.of("key"), committedBeforeLoad);
+
+        assertThat(cache.size()).isOne();
+        assertThat(cache.get("key", key -> Optional.of("other"))).contains("fresh");
+    }
+
+    @Test
+    void emptyResultIsCached() {
+        cache.get("missing", key -> Optional.empty());
+
+        assertThat(cache.get("missing", key -> Optional.of("loaded"))).isEmpty();
+    }
+}
@@ -0,0 +1,231 @@
+package thespeace.springtx.cdc;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import thespeace.springtx.order.NotEnoughMoneyException;
+import thespeace.springtx.order.Order;
+import thespeace.springtx.order.OrderBulkJob;
+import thespeace.springtx.order.OrderRepository;
+import thespeace.springtx.order.OrderService;
+import thespeace.springtx.order.OrderView;
+import thespeace.springtx.propagation.LogView;
+import thespeace.springtx.propagation.Member;
+import thespeace.springtx.propagation.MemberRepository;
+import thespeace.springtx.propagation.MemberService;
+import thespeace.springtx.propagation.MemberView;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * <h1>커밋된 변경 피드</h1>
+ * <ul>
+ *     <li>커밋된 저장, 변경만 발행 순서대로 번호를 붙여 피드에 들어간다. 한 트랜잭션의 변경은 번호가 연속된다.</li>
+ *     <li>롤백된 변경("예외" 주문, "로그예외" 회원)은 나타나지 않는다.</li>
+ *     <li>구독자는 지정한 번호부터 지난 변경을 받고, 이후 새 변경도 받는다.</li>
+ *     <li>벌크 수정, 삭제는 청크가 커밋될 때마다 id 로 발행된다.</li>
+ *     <li>밀려난 번호는 다시 읽을 수 없다.</li>
+ * </ul>
+ */
+@SpringBootTest(properties = "springtx.cdc.enabled=true")
+class ChangeFeedTest {
+
+    @Autowired ChangeFeed changeFeed;
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired OrderService orderService;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired OrderRepository orderRepository;
+    @Autowired OrderBulkJob orderBulkJob;
+
+    @Test
+    void committedChangesInPublishOrder() throws NotEnoughMoneyException {
+        //given
+        long from = changeFeed.lastSequence() + 1;
+
+        //when
+        memberService.joinV1("cdc_member");
+        orderService.order(order("정상"));
+
+        //then: 로그는 REQUIRES_NEW 로 회원보다 먼저 커밋된다.
+        List<ChangeEvent> events = changeFeed.replay(from);
+        assertThat(events).extracting(ChangeEvent::entity).containsExactly("Log", "Member", "Order");
+        assertThat(events).extracting(ChangeEvent::sequence).containsExactly(from, from + 1, from + 2);
+        assertThat(events).extracting(ChangeEvent::type).containsOnly(ChangeType.INSERT);
+        assertThat(((LogView) events.get(0).state()).message()).isEqualTo("cdc_member");
+        assertThat(((MemberView) events.get(1).state()).username()).isEqualTo("cdc_member");
+        assertThat(((OrderView) events.get(2).state()).payStatus()).isEqualTo("완료");
+    }
+
+    /**
+     * 여러 스레드가 동시에 커밋해도 번호는 빠짐없이 이어지고, 한 트랜잭션의 변경은 연속된 번호를 받는다.
+     */
+    @Test
+    void concurrentCommitsGetContiguousSequences() throws Exception {
+        //given
+        int threads = 8;
+        int transactions = 25;
+        long from = changeFeed.lastSequence() + 1;
+
+        //when: 트랜잭션마다 회원 2명을 저장한다.
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                String prefix = "cdc_concurrent_" + t + "_";
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < transactions; i++) {
+                        String username = prefix + i;
+                        transactionTemplate.executeWithoutResult(status -> {
+                            memberRepository.save(new Member(username + "_a"));
+                            memberRepository.save(new Member(username + "_b"));
+                        });
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        //then
+        List<ChangeEvent> events = changeFeed.replay(from);
+        assertThat(events).hasSize(threads * transactions * 2);
+        for (int i = 0; i < events.size(); i++) {
+            assertThat(events.get(i).sequence()).isEqualTo(from + i);
+        }
+        for (int i = 0; i < events.size(); i += 2) {
+            String first = ((MemberView) events.get(i).state()).username();
+            String second = ((MemberView) events.get(i + 1).state()).username();
+            assertThat(first).endsWith("_a");
+            assertThat(second).isEqualTo(first.substring(0, first.length() - 2) + "_b");
+        }
+    }
+
+    @Test
+    void rolledBackChangesNeverAppear() {
+        //given
+        long from = changeFeed.lastSequence() + 1;
+
+        //when
+        assertThatThrownBy(() -> memberService.joinV1("로그예외_cdc")).isInstanceOf(RuntimeException.class);
+        assertThatThrownBy(() -> orderService.order(order("예외"))).isInstanceOf(RuntimeException.class);
+        assertThatThrownBy(() -> orderService.order(order("잔고부족"))).isInstanceOf(NotEnoughMoneyException.class);
+
+        //then: 잔고 부족 주문만 커밋된다.
+        List<ChangeEvent> events = changeFeed.replay(from);
+        assertThat(events).hasSize(1);
+        assertThat(((OrderView) events.get(0).state()).username()).isEqualTo("잔고부족");
+    }
+
+    @Test
+    void insertAndUpdateInOneTransactionIsOneChange() {
+        //given
+        long from = changeFeed.lastSequence() + 1;
+
+        //when
+        Order saved = transactionTemplate.execute(status -> {
+            Order order = order("정상");
+            try {
+                orderService.order(order);
+            } catch (NotEnoughMoneyException e) {
+                throw new IllegalStateException(e);
+            }
+            order.setPayStatus("취소");
+            return order;
+        });
+
+        //then
+        List<ChangeEvent> events = changeFeed.replay(from);
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).type()).isEqualTo(ChangeType.INSERT);
+        assertThat(events.get(0).state()).isEqualTo(OrderView.of(saved));
+        assertThat(((OrderView) events.get(0).state()).payStatus()).isEqualTo("취소");
+    }
+
+    /**
+     * 벌크 작업은 엔티티 리스너를 거치지 않지만, 청크가 커밋될 때마다 청크의 id 로 변경이 발행된다.
+     */
+    @Test
+    void bulkChangesArePublishedPerChunk() {
+        //given
+        LocalDateTime cutoff = LocalDateTime.of(1990, 1, 1, 0, 0);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Order order = order("정상");
+            order.setPayStatus("cdc_bulk_대기");
+            order.setCreatedAt(cutoff.minusDays(1));
+            ids.add(orderRepository.save(order).getId());
+        }
+        long from = changeFeed.lastSequence() + 1;
+
+        //when
+        orderBulkJob.updateStatus("cdc_bulk_대기", "cdc_bulk_만료", 2);
+        orderBulkJob.deleteCreatedBefore(cutoff, 2);
+
+        //then
+        List<ChangeEvent> events = changeFeed.replay(from);
+        assertThat(events).extracting(ChangeEvent::type).containsExactly(
+                ChangeType.UPDATE, ChangeType.UPDATE, ChangeType.UPDATE,
+                ChangeType.DELETE, ChangeType.DELETE, ChangeType.DELETE);
+        assertThat(events).extracting(ChangeEvent::entity).containsOnly("Order");
+        assertThat(events.subList(0, 3)).extracting(ChangeEvent::id).containsExactlyElementsOf(ids);
+        assertThat(events.subList(3, 6)).extracting(ChangeEvent::id).containsExactlyElementsOf(ids);
+        assertThat(events).extracting(ChangeEvent::state).containsOnlyNulls();
+    }
+
+    @Test
+    void subscribeReplaysThenReceivesNewChanges() throws InterruptedException {
+        //given
+        long from = changeFeed.lastSequence() + 1;
+        memberService.joinV1("cdc_subscribe_before");
+
+        //when
+        List<ChangeEvent> received = new CopyOnWriteArrayList<>();
+        try (ChangeFeed.Subscription subscription = changeFeed.subscribe(from, received::add)) {
+            memberService.joinV1("cdc_subscribe_after");
+            for (int i = 0; i < 100 && subscription.nextSequence() < from + 4; i++) {
+                Thread.sleep(20);
+            }
+
+            //then
+            assertThat(subscription.failure()).isNull();
+        }
+        assertThat(received).extracting(ChangeEvent::sequence).containsExactly(from, from + 1, from + 2, from + 3);
+    }
+
+    @Test
+    void replayFromDroppedSequenceFails() {
+        ChangeFeed feed = new ChangeFeed(3);
+        for (int i = 0; i < 5; i++) {
+            feed.capture(ChangeType.INSERT, member((long) i));
+        }
+
+        assertThat(feed.replay(3)).extracting(ChangeEvent::id).containsExactly(2L, 3L, 4L);
+        assertThatThrownBy(() -> feed.replay(2)).isInstanceOf(ChangeFeedGapException.class);
+    }
+
+    private Order order(String username) {
+        Order order = new Order();
+        order.setUsername(username);
+        return order;
+    }
+
+    private Member member(Long id) {
+        Member member = new Member("cdc_" + id);
+        member.setId(id);
+        return member;
+    }
+}
@@ -0,0 +1,221 @@
+package thespeace.springtx.id;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.PooledOptimizer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import thespeace.springtx.propagation.Member;
+import thespeace.springtx.propagation.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <h1>블록 단위 ID 할당</h1>
+ * 여러 노드가 같은 DB 시퀀스를 사용해도 ID가 겹치지 않는지, 그리고 기존 생성기(pooled)와 비교해서 처리량이 어떤지 확인한다.
+ */
+@Slf4j
+@SpringBootTest
+class BlockIdOptimizerTest {
+
+    static final int BLOCK_SIZE = 50;
+
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired MemberRepository memberRepository;
+
+    /**
+     * 노드 2개(옵티마이저 2개)가 하나의 시퀀스를 공유하고, 노드마다 여러 스레드가 동시에 ID를 요청한다.
+     */
+    @Test
+    void uniqueAcrossNodesAndThreads() throws InterruptedException, ExecutionException {
+        AtomicLong sequence = new AtomicLong(1 - BLOCK_SIZE);
+        AccessCallback callback = callback(() -> sequence.addAndGet(BLOCK_SIZE));
+        Optimizer node1 = new BlockIdOptimizer(Long.class, BLOCK_SIZE);
+        Optimizer node2 = new BlockIdOptimizer(Long.class, BLOCK_SIZE);
+
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Optimizer node = i % 2 == 0 ? node1 : node2;
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    assertThat(ids.add((Long) node.generate(callback))).isTrue();
+                }
+            }));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        for (Future<?> future : futures) {
+            future.get(); //스레드 안에서 실패한 검증을 드러낸다.
+        }
+
+        //중복 없이 모두 발급되었다. 버려진 블록이 있으면 구멍이 생기므로 최대값은 개수보다 클 수 있다.
+        assertThat(ids).hasSize(80_000);
+        assertThat(ids.stream().mapToLong(Long::longValue).min().getAsLong()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void reserveBlockPerSequenceCall() {
+        AtomicLong calls = new AtomicLong();
+        AccessCallback callback = callback(() -> 1 + calls.getAndIncrement() * BLOCK_SIZE);
+        Optimizer optimizer = new BlockIdOptimizer(Long.class, BLOCK_SIZE);
+
+        for (int i = 1; i <= 120; i++) {
+            assertThat(optimizer.generate(callback)).isEqualTo((long) i);
+        }
+        assertThat(calls.get()).isEqualTo(3); //[1,51), [51,101), [101,151)
+    }
+
+    /**
+     * 여러 스레드가 동시에 블록 소진을 보아도 시퀀스는 한 번만 호출하고, 모두 같은 새 블록에서 ID를 받는다.
+     */
+    @Test
+    void singleSequenceCallOnConcurrentExhaustion() throws Exception {
+        //given: 시퀀스 호출이 느려서 그동안 다른 스레드가 모두 소진된 블록을 본다.
+        int threads = 16;
+        AtomicLong calls = new AtomicLong();
+        AccessCallback callback = callback(() -> {
+            long lo = 1 + calls.getAndIncrement() * BLOCK_SIZE;
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return lo;
+        });
+        Optimizer optimizer = new BlockIdOptimizer(Long.class, BLOCK_SIZE);
+
+        //when
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return (Long) optimizer.generate(callback);
+            }));
+        }
+        start.countDown();
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        for (Future<Long> future : futures) {
+            ids.add(future.get());
+        }
+        executor.shutdown();
+
+        //then
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(ids).hasSize(threads).allMatch(id -> id >= 1 && id <= threads);
+    }
+
+    /**
+     * 실제 엔티티 저장: Member 는 @BlockSequence(member_seq) 를 사용한다.
+     */
+    @Test
+    void saveMemberWithBlockSequence() {
+        Member member1 = new Member("blockSequence1");
+        Member member2 = new Member("blockSequence2");
+        memberRepository.save(member1);
+        memberRepository.save(member2);
+
+        assertThat(member2.getId()).isGreaterThan(member1.getId());
+        Long increment = jdbcTemplate.queryForObject(
+                "select increment from information_schema.sequences where sequence_name = 'MEMBER_SEQ'", Long.class);
+        assertThat(increment).isEqualTo(BLOCK_SIZE);
+    }
+
+    /**
+     * <h2>벤치마크: 기존 생성기(pooled) vs 블록 할당</h2>
+     * 같은 H2 시퀀스 조건(increment by 50)에서 16개 스레드로 처리량을 측정해서 로그로 남긴다.
+     * <ul>
+     *     <li>ID 발급: 옵티마이저와 시퀀스 호출만 측정한다. pooled 는 ID 하나마다 락을 잡고, 블록 할당은 블록이 소진될 때만 시퀀스를 호출한다.</li>
+     *     <li>저장: 발급한 ID로 로우를 하나씩 INSERT(자동 커밋)한다. 저장 비용이 더해지면 차이가 얼마나 남는지 확인한다.</li>
+     * </ul>
+     */
+    @Test
+    void benchmark() throws Exception {
+        jdbcTemplate.execute("create sequence if not exists bench_pooled_seq start with 1 increment by " + BLOCK_SIZE);
+        jdbcTemplate.execute("create sequence if not exists bench_block_seq start with 1 increment by " + BLOCK_SIZE);
+        jdbcTemplate.execute("create table if not exists bench_insert (id bigint primary key, name varchar(255))");
+
+        try {
+            long pooled = throughput(new PooledOptimizer(Long.class, BLOCK_SIZE), "bench_pooled_seq", 50_000, id -> {
+            });
+            long block = throughput(new BlockIdOptimizer(Long.class, BLOCK_SIZE), "bench_block_seq", 50_000, id -> {
+            });
+            log.info("ID 발급 처리량(ops/s) pooled={}, block={}", pooled, block);
+
+            //저장: 두 방식이 같은 테이블에 쓰므로 ID가 겹치지 않도록 시퀀스를 나누어 시작한다.
+            jdbcTemplate.execute("alter sequence bench_block_seq restart with 100000001");
+            long pooledInsert = throughput(new PooledOptimizer(Long.class, BLOCK_SIZE), "bench_pooled_seq", 2_000, this::insert);
+            long blockInsert = throughput(new BlockIdOptimizer(Long.class, BLOCK_SIZE), "bench_block_seq", 2_000, this::insert);
+            log.info("저장 처리량(rows/s) pooled={}, block={}", pooledInsert, blockInsert);
+        } finally {
+            jdbcTemplate.execute("drop table bench_insert");
+        }
+    }
+
+    private void insert(long id) {
+        jdbcTemplate.update("insert into bench_insert (id, name) values (?, ?)", id, "bench_" + id);
+    }
+
+    private long throughput(Optimizer optimizer, String sequenceName, int perThread, LongConsumer work) throws Exception {
+        AccessCallback callback = callback(
+                () -> jdbcTemplate.queryForObject("select next value for " + sequenceName, Long.class));
+        int threads = 16;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < perThread; j++) {
+                    work.accept((Long) optimizer.generate(callback));
+                }
+            }));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+        long elapsed = System.nanoTime() - start;
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        return (long) threads * perThread * TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+
+    private static AccessCallback callback(SequenceCall sequence) {
+        return new AccessCallback() {
+            @Override
+            public IntegralDataTypeHolder getNextValue() {
+                return IdentifierGeneratorHelper.getIntegralDataTypeHolder(Long.class).initialize(sequence.next());
+            }
+
+            @Override
+            public String getTenantIdentifier() {
+                return null;
+            }
+        };
+    }
+
+    interface SequenceCall {
+        long next();
+    }
+}
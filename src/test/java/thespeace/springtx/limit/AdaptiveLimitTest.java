@@ -0,0 +1,131 @@
+package thespeace.springtx.limit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import thespeace.springtx.order.Order;
+import thespeace.springtx.order.OrderService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <h1>적응형 동시 실행 제한 - 과부하</h1>
+ * DB가 느려진 상황(쿼리 하나에 60ms)에서 커넥션 풀(5개)보다 훨씬 많은 호출이 몰린다.
+ * 한도가 줄어들어 넘치는 호출은 바로 거절되고, 통과한 호출은 커넥션 획득 타임아웃 없이 일정한 지연 시간 안에 끝나야 한다.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "springtx.limit.enabled=true",
+        "springtx.limit.initial-limit=5",
+        "springtx.limit.latency-threshold=40ms",
+        "spring.datasource.hikari.maximum-pool-size=5",
+        "spring.datasource.hikari.connection-timeout=1000"
+})
+class AdaptiveLimitTest {
+
+    @Autowired SlowService slowService;
+    @Autowired OrderService orderService;
+    @Autowired ConcurrencyLimiters limiters;
+
+    @Test
+    void shedLoadUnderSlowDatabase() throws Exception {
+        int threads = 32;
+        int perThread = 10;
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger poolTimeouts = new AtomicInteger();
+        List<Long> latencies = new ArrayList<>();
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<List<Long>>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                List<Long> mine = new ArrayList<>();
+                for (int j = 0; j < perThread; j++) {
+                    long begin = System.nanoTime();
+                    try {
+                        slowService.query();
+                        mine.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+                    } catch (LimitExceededException e) {
+                        rejected.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        poolTimeouts.incrementAndGet();
+                    }
+                }
+                return mine;
+            }));
+        }
+        start.countDown();
+        for (Future<List<Long>> future : futures) {
+            latencies.addAll(future.get(60, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        ConcurrencyLimiter.LimitMetrics metrics = limiters.get("SlowService.query").metrics();
+        long maxLatency = latencies.stream().mapToLong(Long::longValue).max().orElse(0);
+        log.info("과부하 결과 {}, completed={}, maxLatency={}ms", metrics, latencies.size(), maxLatency);
+
+        assertThat(rejected.get()).isPositive();
+        assertThat(poolTimeouts.get()).isZero();
+        assertThat(metrics.limit()).isLessThan(5);
+        assertThat(metrics.inFlight()).isZero();
+        assertThat(maxLatency).isLessThan(1000); //커넥션 획득 타임아웃보다 짧다.
+    }
+
+    @Test
+    void serviceMethodsAreLimited() throws Exception {
+        Order order = new Order();
+        order.setUsername("정상");
+        orderService.order(order);
+
+        assertThat(limiters.metrics())
+                .anySatisfy(metrics -> assertThat(metrics.name()).isEqualTo("OrderService.order"));
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        SlowService slowService(JdbcTemplate jdbcTemplate) {
+            return new SlowService(jdbcTemplate);
+        }
+    }
+
+    static class SlowService {
+
+        private final JdbcTemplate jdbcTemplate;
+
+        SlowService(JdbcTemplate jdbcTemplate) {
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        /**
+         * 느려진 DB를 흉내낸다. 커넥션을 잡은 상태로 60ms 동안 쿼리를 실행한다.
+         */
+        @ConcurrencyLimit
+        @Transactional
+        public void query() {
+            jdbcTemplate.queryForObject("select count(*) from member", Long.class);
+            try {
+                Thread.sleep(60);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package thespeace.springtx.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * <h1>AIMD 동시 실행 한도</h1>
+ */
+class ConcurrencyLimiterTest {
+
+    static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+    static final long THRESHOLD = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test
+    void increaseWhenFastAndUtilized() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("fast", properties(4, Duration.ZERO));
+
+        //한도를 모두 사용하는 상태로 빠른 호출을 반복하면 한도가 늘어난다.
+        for (int i = 0; i < 100; i++) {
+            int limit = limiter.metrics().limit();
+            for (int j = 0; j < limit; j++) {
+                limiter.acquire();
+            }
+            for (int j = 0; j < limit; j++) {
+                limiter.release(FAST, false);
+            }
+        }
+        assertThat(limiter.metrics().limit()).isGreaterThan(4);
+    }
+
+    @Test
+    void decreaseWhenSlowOrOverloaded() {
+        AtomicLong clock = new AtomicLong();
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("slow", properties(20, Duration.ZERO), clock::get);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire();
+            limiter.release(SLOW, false);
+            clock.addAndGet(THRESHOLD);
+        }
+        assertThat(limiter.metrics().limit()).isLessThan(20);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire();
+            limiter.release(FAST, true);
+            clock.addAndGet(THRESHOLD);
+        }
+        assertThat(limiter.metrics().limit()).isEqualTo(1); //min-limit
+    }
+
+    @Test
+    void backOffOncePerWindow() throws Exception {
+        //given: 한도 20을 모두 사용하는 호출이 같은 과부하로 동시에 느려진다.
+        AtomicLong clock = new AtomicLong();
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("batch", properties(20, Duration.ZERO), clock::get);
+        for (int i = 0; i < 20; i++) {
+            limiter.acquire();
+        }
+
+        //when
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(20);
+        List<Future<?>> releases = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            releases.add(executor.submit(() -> {
+                start.await();
+                limiter.release(SLOW, false);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> release : releases) {
+            release.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        //then: 20 * 0.9 = 18, 호출마다 줄였다면 20 * 0.9^20 = 2
+        assertThat(limiter.metrics().limit()).isEqualTo(18);
+        assertThat(limiter.metrics().inFlight()).isZero();
+
+        //다음 구간의 과부하 신호는 다시 한도를 줄인다.
+        clock.addAndGet(THRESHOLD);
+        limiter.acquire();
+        limiter.release(SLOW, false);
+        assertThat(limiter.metrics().limit()).isEqualTo(16);
+    }
+
+    @Test
+    void rejectWithoutWaiting() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("reject", properties(1, Duration.ZERO));
+        limiter.acquire();
+
+        assertThatThrownBy(limiter::acquire).isInstanceOf(LimitExceededException.class);
+        assertThat(limiter.metrics().rejected()).isEqualTo(1);
+        assertThat(limiter.metrics().inFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void queueUntilReleased() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("queue", properties(1, Duration.ofSeconds(5)));
+        limiter.acquire();
+
+        CompletableFuture<Void> waiting = CompletableFuture.runAsync(limiter::acquire);
+        Thread.sleep(50);
+        assertThat(waiting).isNotDone();
+
+        limiter.release(FAST, false);
+        waiting.get(5, TimeUnit.SECONDS);
+        assertThat(limiter.metrics().inFlight()).isEqualTo(1);
+    }
+
+    private LimitProperties properties(int initialLimit, Duration maxWait) {
+        LimitProperties properties = new LimitProperties();
+        properties.setInitialLimit(initialLimit);
+        properties.setLatencyThreshold(Duration.ofNanos(THRESHOLD));
+        properties.setMaxWait(maxWait);
+        return properties;
+    }
+}
@@ -0,0 +1,99 @@
+package thespeace.springtx.order;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * <h1>주문 벌크 상태 변경, 삭제</h1>
+ * 엔티티를 조회하지 않고 청크 단위 트랜잭션으로 변경, 삭제한다.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class OrderBulkJobTest {
+
+    @Autowired OrderBulkJob orderBulkJob;
+    @Autowired OrderRepository orderRepository;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired EntityManagerFactory emf;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    void updateStatusInChunks() {
+        //given: 다른 테스트의 주문과 섞이지 않도록 전용 상태를 사용한다.
+        for (int i = 0; i < 25; i++) {
+            save("bulk_대기", null);
+        }
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        //when
+        int updated = orderBulkJob.updateStatus("bulk_대기", "bulk_만료", 10);
+
+        //then: 청크 3개 + 빈 조회 1번, 엔티티는 한 건도 로딩하지 않는다.
+        assertThat(updated).isEqualTo(25);
+        assertThat(statistics.getTransactionCount()).isEqualTo(4);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(orderBulkJob.countByStatus("bulk_대기")).isZero();
+        assertThat(orderBulkJob.countByStatus("bulk_만료")).isEqualTo(25);
+    }
+
+    @Test
+    void deleteCreatedBefore() {
+        //given
+        LocalDateTime cutoff = LocalDateTime.of(2000, 1, 1, 0, 0);
+        Order old1 = save("bulk_old", cutoff.minusDays(10));
+        Order old2 = save("bulk_old", cutoff.minusSeconds(1));
+        Order recent = save("bulk_old", cutoff);
+
+        //when
+        int deleted = orderBulkJob.deleteCreatedBefore(cutoff, 1);
+
+        //then
+        assertThat(deleted).isEqualTo(2);
+        assertThat(orderRepository.findById(old1.getId())).isEmpty();
+        assertThat(orderRepository.findById(old2.getId())).isEmpty();
+        assertThat(orderRepository.findById(recent.getId())).isPresent();
+    }
+
+    /**
+     * 청크 id 조회는 pay_status, created_at 인덱스를 사용한다. 인덱스가 없으면 청크마다 테이블 전체를 읽는다.
+     */
+    @Test
+    void chunkSelectorsUseIndexes() {
+        String byStatus = jdbcTemplate.queryForObject(
+                "explain select id from orders where pay_status = 'bulk_대기' order by id limit 10", String.class);
+        String byAge = jdbcTemplate.queryForObject(
+                "explain select id from orders where created_at < timestamp '2000-01-01 00:00:00' order by id limit 10", String.class);
+
+        assertThat(byStatus).containsIgnoringCase("idx_orders_pay_status");
+        assertThat(byAge).containsIgnoringCase("idx_orders_created_at");
+    }
+
+    /**
+     * 청크 트랜잭션을 따로 커밋하므로 바깥 트랜잭션 안에서는 실행하지 않는다.
+     */
+    @Test
+    void rejectInsideTransaction() {
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(
+                status -> orderBulkJob.updateStatus("bulk_대기", "bulk_만료", 10)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private Order save(String payStatus, LocalDateTime createdAt) {
+        Order order = new Order();
+        order.setUsername("정상");
+        order.setPayStatus(payStatus);
+        order.setCreatedAt(createdAt);
+        return orderRepository.save(order);
+    }
+}
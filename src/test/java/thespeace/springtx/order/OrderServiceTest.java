@@ -4,9 +4,16 @@ import lombok.extern.slf4j.Slf4j;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import thespeace.springtx.tx.TxOutcomes;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -57,6 +64,8 @@ class OrderServiceTest {
 
     @Autowired OrderService orderService;
     @Autowired OrderRepository orderRepository;
+    @Autowired TxOutcomes txOutcomes;
+    @Autowired TransactionTemplate transactionTemplate;
 
     /**
      * 사용자 이름을 정상 으로 설정했다. 모든 프로세스가 정상 수행된다.
@@ -117,4 +126,113 @@ class OrderServiceTest {
         Order findOrder = orderRepository.findById(order.getId()).get();
         assertThat(findOrder.getPayStatus()).isEqualTo("대기"); //데이터가 대기 상태로 잘 저장 되었는지 검증.
     }
-}
\ No newline at end of file
+
+    /**
+     * 결과 타입 API: 예외를 던지지 않고, 커밋과 롤백은 {@link #complete()} ~ {@link #bizException()} 과 같다.
+     */
+    @Test
+    void placeOrderResults() {
+        //given
+        Order completed = orderOf("정상");
+        Order pending = orderOf("잔고부족");
+        Order failed = orderOf("예외");
+
+        //when
+        OrderResult completedResult = orderService.placeOrder(completed);
+        OrderResult pendingResult = orderService.placeOrder(pending);
+        OrderResult failedResult = orderService.placeOrder(failed);
+
+        //then
+        assertThat(completedResult).isInstanceOf(OrderResult.Completed.class);
+        assertThat(orderRepository.findById(completed.getId()).get().getPayStatus()).isEqualTo("완료");
+
+        assertThat(pendingResult).isInstanceOf(OrderResult.PendingInsufficientFunds.class);
+        assertThat(orderRepository.findById(pending.getId()).get().getPayStatus()).isEqualTo("대기");
+
+        assertThat(failedResult).isEqualTo(new OrderResult.Failed(failed, "시스템 예외"));
+        assertThat(orderRepository.findById(failed.getId())).isEmpty();
+    }
+
+    /**
+     * 결과 타입 API 도 결과를 {@link TxOutcomes} 로 트랜잭션에 남긴다.
+     */
+    @Test
+    void placeOrderMarksOutcome() {
+        //given
+        List<String> statuses = new ArrayList<>();
+        Order order = orderOf("잔고부족");
+
+        //when
+        transactionTemplate.executeWithoutResult(status -> {
+            orderService.placeOrder(order);
+            statuses.add(txOutcomes.current());
+        });
+
+        //then
+        assertThat(statuses).containsExactly("잔고부족");
+    }
+
+    /**
+     * <h2>벤치마크: 잔고 부족 처리량, 체크 예외 vs 결과 타입</h2>
+     * 같은 수의 잔고 부족 주문을 두 방식으로 처리하고 처리량을 로그로 남긴다. 둘 다 주문 한 건마다 트랜잭션 하나를 커밋한다.
+     * <ul>
+     *     <li>예외와 결과 타입의 차이만 재도록 측정하는 동안 OrderService 로그를 끈다. (두 방식의 로그 줄 수가 다르다.)</li>
+     *     <li>먼저 실행하는 쪽이 유리하거나 불리하지 않도록 라운드마다 순서를 바꾸고 시간을 합산한다.</li>
+     * </ul>
+     */
+    @Test
+    void declineBenchmark() {
+        int rounds = 6;
+        int orders = 500;
+        LoggingSystem loggingSystem = LoggingSystem.get(getClass().getClassLoader());
+        loggingSystem.setLogLevel(OrderService.class.getName(), LogLevel.WARN);
+        try {
+            declineByException(200); //워밍업
+            declineByResult(200);
+
+            long exceptionNanos = 0;
+            long resultNanos = 0;
+            for (int round = 0; round < rounds; round++) {
+                if (round % 2 == 0) {
+                    exceptionNanos += declineByException(orders);
+                    resultNanos += declineByResult(orders);
+                } else {
+                    resultNanos += declineByResult(orders);
+                    exceptionNanos += declineByException(orders);
+                }
+            }
+            long total = (long) rounds * orders * TimeUnit.SECONDS.toNanos(1);
+            log.info("잔고 부족 처리량(orders/s) exception={}, result={}", total / exceptionNanos, total / resultNanos);
+        } finally {
+            loggingSystem.setLogLevel(OrderService.class.getName(), null);
+        }
+    }
+
+    private long declineByException(int orders) {
+        long start = System.nanoTime();
+        for (int i = 0; i < orders; i++) {
+            try {
+                orderService.order(orderOf("잔고부족"));
+            } catch (NotEnoughMoneyException e) {
+                //잔고 부족 안내
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long declineByResult(int orders) {
+        long start = System.nanoTime();
+        for (int i = 0; i < orders; i++) {
+            if (orderService.placeOrder(orderOf("잔고부족")) instanceof OrderResult.PendingInsufficientFunds) {
+                //잔고 부족 안내
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private Order orderOf(String username) {
+        Order order = new Order();
+        order.setUsername(username);
+        return order;
+    }
+}
@@ -0,0 +1,100 @@
+package thespeace.springtx.order;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import thespeace.springtx.propagation.Member;
+import thespeace.springtx.propagation.MemberRepository;
+import thespeace.springtx.tx.WriteBehind;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * <h1>주문 한 건당 실행되는 SQL 수</h1>
+ * 결제 상태를 결정한 뒤 저장하므로 주문 한 건은 INSERT 한 번으로 끝나야 한다. (UPDATE 없음)
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class OrderStatementCountTest {
+
+    @Autowired OrderService orderService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired WriteBehind writeBehind;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired EntityManagerFactory emf;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void clear() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void completeIsSingleInsert() throws NotEnoughMoneyException {
+        Order order = new Order();
+        order.setUsername("정상");
+
+        orderService.order(order);
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+    }
+
+    @Test
+    void bizExceptionIsSingleInsert() {
+        Order order = new Order();
+        order.setUsername("잔고부족");
+
+        assertThatThrownBy(() -> orderService.order(order)).isInstanceOf(NotEnoughMoneyException.class);
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+    }
+
+    /**
+     * 커밋 직전에 persist 하므로 등록 이후의 변경도 INSERT 하나에 반영된다.
+     */
+    @Test
+    void writeBehindMergesLaterChanges() {
+        Member member = new Member("writeBehind_before");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            writeBehind.persistBeforeCommit(member);
+            member.setUsername("writeBehind_after");
+        });
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+        assertThat(member.getId()).isNotNull();
+        assertThat(memberRepository.find("writeBehind_after")).isPresent();
+    }
+
+    /**
+     * REQUIRES_NEW 내부 트랜잭션에서 등록한 엔티티는 내부 트랜잭션과 함께 커밋되고, 바깥 트랜잭션의 롤백과 무관하다.
+     */
+    @Test
+    void writeBehindInRequiresNewCommitsWithInner() {
+        Member inner = new Member("writeBehind_inner");
+        Member outer = new Member("writeBehind_outer");
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            writeBehind.persistBeforeCommit(outer);
+            requiresNew.executeWithoutResult(innerStatus -> writeBehind.persistBeforeCommit(inner));
+            assertThat(inner.getId()).isNotNull(); //내부 트랜잭션 커밋 시점에 저장되었다.
+            status.setRollbackOnly();
+        });
+
+        assertThat(memberRepository.find("writeBehind_inner")).isPresent();
+        assertThat(memberRepository.find("writeBehind_outer")).isEmpty();
+    }
+}
@@ -0,0 +1,108 @@
+package thespeace.springtx.order;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import thespeace.springtx.tx.TxPolicyProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <h1>결제 대기 주문 처리 - SKIP LOCKED</h1>
+ * 여러 처리기가 동시에 대기 주문을 처리해도 같은 주문을 두 번 처리하지 않는다.
+ * 벤치마크는 같은 조건에서 FOR UPDATE(대기)와 FOR UPDATE SKIP LOCKED 의 처리량을 비교한다.
+ */
+@Slf4j
+@SpringBootTest
+class PendingOrderProcessorTest {
+
+    static final int WORKERS = 8;
+    static final int BATCH_SIZE = 10;
+
+    @Autowired PendingOrderProcessor processor;
+    @Autowired OrderRepository orderRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired TxPolicyProperties txPolicyProperties;
+
+    @AfterEach
+    void restorePolicy() {
+        txPolicyProperties.getOperations().get("order.scan-pending").setLockTimeout(-2);
+    }
+
+    @Test
+    void skipLockedProcessesEachOrderOnce() throws Exception {
+        //given: 같은 컨텍스트의 다른 테스트가 남긴 대기 주문도 함께 처리된다.
+        savePending(500);
+        long pending = countPending();
+
+        //when
+        int processed = runWorkers();
+
+        //then
+        assertThat(processed).isEqualTo(pending);
+        assertThat(countPending()).isZero();
+    }
+
+    @Test
+    void benchmark() throws Exception {
+        TxPolicyProperties.Operation policy = txPolicyProperties.getOperations().get("order.scan-pending");
+
+        policy.setLockTimeout(null); //FOR UPDATE: 앞선 처리기의 커밋을 기다린다.
+        savePending(2000);
+        long start = System.nanoTime();
+        runWorkers();
+        long blocking = System.nanoTime() - start;
+
+        policy.setLockTimeout(-2); //FOR UPDATE SKIP LOCKED
+        savePending(2000);
+        start = System.nanoTime();
+        runWorkers();
+        long skipLocked = System.nanoTime() - start;
+
+        log.info("대기 주문 처리량(orders/s) FOR UPDATE={}, SKIP LOCKED={}",
+                2000 * TimeUnit.SECONDS.toNanos(1) / blocking, 2000 * TimeUnit.SECONDS.toNanos(1) / skipLocked);
+    }
+
+    private int runWorkers() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(WORKERS);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < WORKERS; i++) {
+            results.add(executor.submit(() -> {
+                int total = 0;
+                for (int count = processor.completePending(BATCH_SIZE); count > 0; count = processor.completePending(BATCH_SIZE)) {
+                    total += count;
+                }
+                return total;
+            }));
+        }
+        int processed = 0;
+        for (Future<Integer> result : results) {
+            processed += result.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        return processed;
+    }
+
+    private void savePending(int count) {
+        for (int i = 0; i < count; i++) {
+            Order order = new Order();
+            order.setUsername("잔고부족");
+            order.setPayStatus("대기");
+            orderRepository.save(order);
+        }
+    }
+
+    private long countPending() {
+        return jdbcTemplate.queryForObject("select count(*) from orders where pay_status = '대기'", Long.class);
+    }
+}
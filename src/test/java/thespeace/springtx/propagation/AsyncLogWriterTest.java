@@ -0,0 +1,162 @@
+package thespeace.springtx.propagation;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <h1>커밋 후 대기열을 거쳐 저장되는 로그</h1>
+ * <ul>
+ *     <li>joinV3 는 회원만 트랜잭션으로 저장하고 로그는 쓰기 스레드가 나중에 저장한다.</li>
+ *     <li>롤백된 트랜잭션의 로그는 대기열에 들어가지 않는다.</li>
+ *     <li>저장할 수 없는 로그는 재시도 후 데드레터로 보내고, 같은 배치의 나머지 로그는 저장한다.</li>
+ *     <li>대기열이 가득 차면 설정(LogOverflowPolicy)에 따라 호출 스레드에서 바로 저장하거나 자리가 날 때까지 기다린다.</li>
+ * </ul>
+ */
+@SpringBootTest(properties = {
+        "springtx.log.queue.enabled=true",
+        "springtx.log.queue.capacity=1MB",
+        "springtx.log.queue.max-batch-retries=2"
+})
+class AsyncLogWriterTest {
+
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired LogRepository logRepository;
+    @Autowired AsyncLogWriter asyncLogWriter;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @Test
+    void logSavedAfterCommit() throws InterruptedException {
+        //when
+        for (int i = 0; i < 50; i++) {
+            memberService.joinV3("asyncLog_" + i);
+        }
+
+        //then
+        assertThat(memberRepository.find("asyncLog_0")).isPresent();
+        awaitDrained();
+        assertThat(logRepository.find("asyncLog_0")).isPresent();
+        assertThat(logRepository.find("asyncLog_49")).isPresent();
+        assertThat(asyncLogWriter.written()).isGreaterThanOrEqualTo(50);
+    }
+
+    @Test
+    void rolledBackLogIsNotQueued() throws InterruptedException {
+        //when
+        transactionTemplate.executeWithoutResult(status -> {
+            memberService.joinV3("asyncLog_rollback");
+            status.setRollbackOnly();
+        });
+
+        //then
+        awaitDrained();
+        assertThat(memberRepository.find("asyncLog_rollback")).isEmpty();
+        assertThat(logRepository.find("asyncLog_rollback")).isEmpty();
+    }
+
+    @Test
+    void poisonLogIsDeadLettered() throws InterruptedException {
+        //given: message 컬럼(255자)보다 긴 로그가 같은 배치에 섞여 있다.
+        long deadLettered = asyncLogWriter.deadLettered();
+        String tooLong = "asyncLog_poison_" + "x".repeat(300);
+
+        //when
+        transactionTemplate.executeWithoutResult(status -> {
+            asyncLogWriter.enqueueAfterCommit("asyncLog_poison_before");
+            asyncLogWriter.enqueueAfterCommit(tooLong);
+            asyncLogWriter.enqueueAfterCommit("asyncLog_poison_after");
+        });
+
+        //then: 재시도(500ms 간격 2번) 후 한 건씩 저장된다.
+        awaitDrained();
+        assertThat(asyncLogWriter.deadLettered()).isEqualTo(deadLettered + 1);
+        assertThat(logRepository.find("asyncLog_poison_before")).isPresent();
+        assertThat(logRepository.find("asyncLog_poison_after")).isPresent();
+    }
+
+    /**
+     * 레코드(12 + 8 바이트) 2개만 들어가는 대기열. 쓰기 스레드를 시작하지 않아서 세 번째 로그부터 가득 찬다.
+     */
+    @Test
+    void callerRunsWhenFull() {
+        //given
+        AsyncLogWriter writer = new AsyncLogWriter(LogRingBuffer.direct(50), logRepository, 10, 2,
+                LogOverflowPolicy.CALLER_RUNS, Duration.ofSeconds(5));
+
+        //when
+        writer.enqueueAfterCommit("ovf_c_01");
+        writer.enqueueAfterCommit("ovf_c_02");
+        writer.enqueueAfterCommit("ovf_c_03");
+
+        //then: 세 번째 로그는 호출 스레드에서 바로 저장된다.
+        assertThat(writer.pending()).isEqualTo(2);
+        assertThat(writer.overflowed()).isEqualTo(1);
+        assertThat(writer.blocked()).isZero();
+        assertThat(logRepository.find("ovf_c_03")).isPresent();
+    }
+
+    @Test
+    void blockUntilWriterMakesRoom() throws Exception {
+        //given
+        AsyncLogWriter writer = new AsyncLogWriter(LogRingBuffer.direct(50), logRepository, 10, 2,
+                LogOverflowPolicy.BLOCK, Duration.ofSeconds(5));
+        writer.enqueueAfterCommit("ovf_b_01");
+        writer.enqueueAfterCommit("ovf_b_02");
+
+        //when
+        CompletableFuture<Void> waiting = CompletableFuture.runAsync(() -> writer.enqueueAfterCommit("ovf_b_03"));
+        Thread.sleep(100);
+        assertThat(waiting).isNotDone();
+        writer.start();
+
+        //then: 쓰기 스레드가 자리를 만들면 대기열에 들어가고, 호출 스레드에서는 저장하지 않는다.
+        try {
+            waiting.get(5, TimeUnit.SECONDS);
+            awaitDrained(writer);
+            assertThat(writer.overflowed()).isZero();
+            assertThat(writer.blocked()).isEqualTo(1);
+            assertThat(writer.written()).isEqualTo(3);
+            assertThat(logRepository.find("ovf_b_03")).isPresent();
+        } finally {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void blockFallsBackToCallerAfterWait() {
+        //given
+        AsyncLogWriter writer = new AsyncLogWriter(LogRingBuffer.direct(50), logRepository, 10, 2,
+                LogOverflowPolicy.BLOCK, Duration.ofMillis(100));
+        writer.enqueueAfterCommit("ovf_w_01");
+        writer.enqueueAfterCommit("ovf_w_02");
+
+        //when
+        long start = System.nanoTime();
+        writer.enqueueAfterCommit("ovf_w_03");
+
+        //then: 기다려도 자리가 나지 않으면 버리지 않고 바로 저장한다.
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(100));
+        assertThat(writer.blocked()).isEqualTo(1);
+        assertThat(writer.overflowed()).isEqualTo(1);
+        assertThat(logRepository.find("ovf_w_03")).isPresent();
+    }
+
+    private void awaitDrained() throws InterruptedException {
+        awaitDrained(asyncLogWriter);
+    }
+
+    private void awaitDrained(AsyncLogWriter writer) throws InterruptedException {
+        for (int i = 0; i < 100 && writer.pending() > 0; i++) {
+            Thread.sleep(50);
+        }
+        assertThat(writer.pending()).isZero();
+    }
+}
@@ -0,0 +1,41 @@
+package thespeace.springtx.propagation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * <h1>블룸 필터 크기와 오탐률</h1>
+ */
+class BloomFilterTest {
+
+    @Test
+    void noFalseNegativeAndConfiguredFalsePositiveRate() {
+        int n = 100_000;
+        BloomFilter filter = new BloomFilter(n, 0.01);
+        for (int i = 0; i < n; i++) {
+            filter.put("member" + i);
+        }
+
+        //추가한 값은 항상 있다고 답한다.
+        for (int i = 0; i < n; i++) {
+            assertThat(filter.mightContain("member" + i)).isTrue();
+        }
+
+        //추가하지 않은 값의 오탐률은 설정값 근처이다.
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("absent" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat((double) falsePositives / probes).isCloseTo(0.01, within(0.005));
+        assertThat(filter.estimatedFalsePositiveRate()).isCloseTo(0.01, within(0.002));
+
+        //m = -n·ln(p)/(ln2)² ≈ 958,506 비트 ≈ 117KB, k = 7
+        assertThat(filter.byteSize()).isBetween(119_000L, 121_000L);
+        assertThat(filter.hashFunctions()).isEqualTo(7);
+    }
+}
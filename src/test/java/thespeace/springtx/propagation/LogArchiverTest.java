@@ -0,0 +1,122 @@
+package thespeace.springtx.propagation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <h1>로그 콜드 아카이브</h1>
+ * <ul>
+ *     <li>오래된 로그를 세그먼트 파일로 옮긴 뒤에도 LogRepository.find 로 조회할 수 있어야 한다.</li>
+ *     <li>아카이브에 없는 message 는 세그먼트의 블룸 필터에서 걸러져서 블록을 거의 읽지 않는다.</li>
+ *     <li>보관 기간이 지나면 아카이브에서도 지워진다.</li>
+ * </ul>
+ */
+@SpringBootTest
+@DirtiesContext
+class LogArchiverTest {
+
+    @TempDir
+    static Path archiveDir;
+
+    @Autowired LogArchiver logArchiver;
+    @Autowired LogArchive logArchive;
+    @Autowired LogRetentionJob logRetentionJob;
+    @Autowired LogRepository logRepository;
+
+    /**
+     * 테스트 AOT 처리(processTestAot)에서는 @TempDir 이 주입되지 않는다. 이때는 디렉토리를 쓰지 않으므로 임의의 경로를 넘긴다.
+     */
+    @DynamicPropertySource
+    static void archiveDir(DynamicPropertyRegistry registry) {
+        registry.add("springtx.log.archive-dir", () -> archiveDir != null ? archiveDir.toString() : "build/log-archive-test");
+    }
+
+    @Test
+    void archiveAndFindFromSegment() {
+        //given: 여러 블록이 만들어지도록 충분히 많은 로그를 저장한다.
+        LocalDate today = LocalDate.of(2024, 6, 30);
+        for (int i = 0; i < 3000; i++) {
+            logRepository.save(logAt("archive_old_" + i, today.minusDays(10 + i % 3)));
+        }
+        Log recent = logAt("archive_recent", today.minusDays(1));
+        logRepository.save(recent);
+        Log old = logRepository.find("archive_old_1234").get();
+
+        //when
+        int archived = logArchiver.archiveBefore(today.minusDays(7));
+
+        //then: DB에서는 삭제되고 아카이브에서 조회된다.
+        assertThat(archived).isEqualTo(3000);
+        assertThat(logRepository.findBucketsBefore(Log.bucketOf(today.minusDays(7)))).isEmpty();
+
+        Log found = logRepository.find("archive_old_1234").get();
+        assertThat(found.getId()).isEqualTo(old.getId());
+        assertThat(found.getCreatedAt()).isEqualTo(old.getCreatedAt());
+        assertThat(found.getBucket()).isEqualTo(old.getBucket());
+        assertThat(logRepository.find("archive_old_2999")).isPresent();
+
+        //없는 message 는 블룸 필터에서 걸러진다. (세그먼트 3개, 오탐률 1%)
+        long blockReads = logArchive.blockReads();
+        for (int i = 0; i < 100; i++) {
+            assertThat(logRepository.find("archive_missing_" + i)).isEmpty();
+        }
+        assertThat(logArchive.blockReads() - blockReads).isLessThan(10);
+
+        //보관 기간 안의 로그는 DB에 남아 있다.
+        assertThat(logRepository.find("archive_recent").get().getId()).isEqualTo(recent.getId());
+
+        //보관 기간이 지나면 아카이브에서도 지워진다.
+        logRetentionJob.purgeBefore(today.minusDays(10));
+        assertThat(logRepository.find("archive_old_1234")).isEmpty(); //10 + 1234 % 3 = 11일 전
+        assertThat(logRepository.find("archive_old_0")).isPresent(); //10일 전
+    }
+
+    /**
+     * 세그먼트 크기 제한을 넘는 버킷은 세그먼트 여러 개로 나뉘고, 정렬된 블록 범위는 이진 탐색으로 블록 하나만 읽는다.
+     */
+    @Test
+    void splitLargeBucketIntoSegments(@TempDir Path directory) {
+        //given
+        LogArchive archive = new LogArchive(directory, 64 * 1024);
+        List<Log> logs = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            Log logMessage = logAt("split_%06d".formatted(i), LocalDate.of(2024, 1, 1));
+            logMessage.setId((long) i);
+            logs.add(logMessage);
+        }
+
+        //when
+        int written = archive.write(20240101, logs.iterator());
+
+        //then
+        assertThat(written).isEqualTo(20_000);
+        assertThat(archive.segmentCount()).isGreaterThan(1);
+        long blockReads = archive.blockReads();
+        assertThat(archive.find("split_012345").get().getId()).isEqualTo(12345L);
+        assertThat(archive.blockReads() - blockReads).isOne();
+
+        //다시 열어도 같은 세그먼트를 읽는다.
+        LogArchive reopened = new LogArchive(directory, 64 * 1024);
+        assertThat(reopened.segmentCount()).isEqualTo(archive.segmentCount());
+        assertThat(reopened.find("split_000000")).isPresent();
+        assertThat(reopened.find("split_019999")).isPresent();
+    }
+
+    private Log logAt(String message, LocalDate date) {
+        Log logMessage = new Log(message);
+        logMessage.setCreatedAt(date.atStartOfDay());
+        return logMessage;
+    }
+}
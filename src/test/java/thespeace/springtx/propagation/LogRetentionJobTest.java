@@ -0,0 +1,57 @@
+package thespeace.springtx.propagation;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <h1>로그 버킷 보관 기간 정리</h1>
+ * 보관 기간이 지난 버킷은 청크(여기서는 2건)마다 나누어 모두 삭제되고, 보관 기간 안의 로그는 남아 있어야 한다.
+ */
+@SpringBootTest(properties = "springtx.log.retention-batch-size=2")
+class LogRetentionJobTest {
+
+    @Autowired LogRetentionJob logRetentionJob;
+    @Autowired LogRepository logRepository;
+
+    @Test
+    void purgeExpiredBuckets() {
+        //given
+        LocalDate today = LocalDate.of(2024, 5, 31);
+        logRepository.save(logAt("retention_old1", today.minusDays(40)));
+        logRepository.save(logAt("retention_old2", today.minusDays(40)));
+        logRepository.save(logAt("retention_old2b", today.minusDays(40)));
+        logRepository.save(logAt("retention_old3", today.minusDays(31)));
+        logRepository.save(logAt("retention_recent", today.minusDays(1)));
+
+        //when
+        int deleted = logRetentionJob.purgeBefore(today.minusDays(30));
+
+        //then: 오래된 버킷 2개(4건, 첫 버킷은 청크 2개)가 삭제되고 최근 로그는 남는다.
+        assertThat(deleted).isEqualTo(4);
+        assertTrue(logRepository.find("retention_old2b").isEmpty());
+        assertTrue(logRepository.find("retention_old1").isEmpty());
+        assertTrue(logRepository.find("retention_old3").isEmpty());
+        assertTrue(logRepository.find("retention_recent").isPresent());
+    }
+
+    @Test
+    void bucketIsAssignedOnSave() {
+        Log logMessage = new Log("retention_bucket");
+        logRepository.save(logMessage);
+
+        assertThat(logMessage.getCreatedAt()).isNotNull();
+        assertThat(logMessage.getBucket()).isEqualTo(Log.bucketOf(logMessage.getCreatedAt().toLocalDate()));
+    }
+
+    private Log logAt(String message, LocalDate date) {
+        Log logMessage = new Log(message);
+        logMessage.setCreatedAt(date.atStartOfDay());
+        return logMessage;
+    }
+}
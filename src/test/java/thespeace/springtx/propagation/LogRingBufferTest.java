@@ -0,0 +1,112 @@
+package thespeace.springtx.propagation;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <h1>off-heap 로그 링 버퍼</h1>
+ * <ul>
+ *     <li>acknowledge 하기 전까지 읽은 로그는 지워지지 않는다.</li>
+ *     <li>버퍼 끝을 넘어가면 처음으로 돌아가서 쓰고, 가득 차면 offer 가 false 를 반환한다.</li>
+ *     <li>timeout 을 준 offer 는 acknowledge 로 자리가 날 때까지 기다린다.</li>
+ *     <li>파일에 매핑하면 다시 열었을 때 acknowledge 하지 않은 로그가 남아 있다.</li>
+ * </ul>
+ */
+class LogRingBufferTest {
+
+    private final LocalDateTime createdAt = LocalDateTime.of(2024, 6, 30, 12, 0, 0);
+
+    @Test
+    void pollAndAcknowledge() {
+        LogRingBuffer queue = LogRingBuffer.direct(1024);
+        queue.offer("ring_a", createdAt);
+        queue.offer("ring_b", createdAt);
+
+        LogRingBuffer.Batch batch = queue.poll(10);
+        assertThat(batch.logs()).extracting(Log::getMessage).containsExactly("ring_a", "ring_b");
+        assertThat(batch.logs().get(0).getCreatedAt()).isEqualTo(createdAt);
+
+        //acknowledge 전에는 다시 읽힌다.
+        assertThat(queue.poll(10).logs()).hasSize(2);
+
+        queue.acknowledge(batch);
+        assertThat(queue.entries()).isZero();
+        assertThat(queue.usedBytes()).isZero();
+        assertThat(queue.poll(10).logs()).isEmpty();
+    }
+
+    @Test
+    void offerWaitsForAcknowledge() throws Exception {
+        //given: 레코드 2개로 가득 찬 버퍼
+        LogRingBuffer queue = LogRingBuffer.direct(50);
+        queue.offer("ring_001", createdAt);
+        queue.offer("ring_002", createdAt);
+        assertThat(queue.offer("ring_003", createdAt, 50, TimeUnit.MILLISECONDS)).isFalse();
+
+        //when
+        CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return queue.offer("ring_003", createdAt, 5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        assertThat(waiting).isNotDone();
+        queue.acknowledge(queue.poll(1));
+
+        //then
+        assertThat(waiting.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queue.poll(10).logs()).extracting(Log::getMessage).containsExactly("ring_002", "ring_003");
+    }
+
+    @Test
+    void wrapAroundAndFull() {
+        //레코드 하나는 12 + 8 = 20 바이트
+        LogRingBuffer queue = LogRingBuffer.direct(50);
+        assertThat(queue.offer("ring_001", createdAt)).isTrue();
+        assertThat(queue.offer("ring_002", createdAt)).isTrue();
+        assertThat(queue.offer("ring_003", createdAt)).isFalse();
+
+        queue.acknowledge(queue.poll(1));
+
+        //끝에 남은 10 바이트를 건너뛰고 처음부터 쓴다.
+        assertThat(queue.offer("ring_003", createdAt)).isTrue();
+        assertThat(queue.offer("ring_004", createdAt)).isFalse();
+        assertThat(queue.entries()).isEqualTo(2);
+
+        LogRingBuffer.Batch batch = queue.poll(10);
+        assertThat(batch.logs()).extracting(Log::getMessage).containsExactly("ring_002", "ring_003");
+        queue.acknowledge(batch);
+        assertThat(queue.entries()).isZero();
+        assertThat(queue.offer("ring_004", createdAt)).isTrue();
+        assertThat(queue.poll(10).logs()).extracting(Log::getMessage).containsExactly("ring_004");
+    }
+
+    @Test
+    void mappedFileKeepsUnacknowledgedLogs() throws IOException {
+        Path file = Files.createTempDirectory("log-queue-test").resolve("queue.dat");
+        LogRingBuffer queue = LogRingBuffer.mapped(file, 4096);
+        for (int i = 0; i < 100; i++) {
+            queue.offer("ring_mapped_" + i, createdAt);
+        }
+        queue.acknowledge(queue.poll(30));
+        queue.force();
+
+        //다시 연다. (비정상 종료 후 재시작)
+        LogRingBuffer reopened = LogRingBuffer.mapped(file, 4096);
+
+        assertThat(reopened.entries()).isEqualTo(70);
+        LogRingBuffer.Batch batch = reopened.poll(100);
+        assertThat(batch.logs()).hasSize(70);
+        assertThat(batch.logs().get(0).getMessage()).isEqualTo("ring_mapped_30");
+    }
+}
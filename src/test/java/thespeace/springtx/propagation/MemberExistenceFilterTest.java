@@ -0,0 +1,89 @@
+package thespeace.springtx.propagation;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import thespeace.springtx.tenant.TenantContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <h1>username 블룸 필터</h1>
+ * <ul>
+ *     <li>필터가 없다고 답한 username 은 DB를 조회하지 않는다.</li>
+ *     <li>저장한 username 은 커밋 전에 필터에 추가되어 커밋 후 바로 조회된다.</li>
+ *     <li>JPA를 거치지 않고 넣은 회원은 필터가 모른다. 필터를 다시 만들어야 조회된다. 그래서 필터는 기본으로 꺼져 있다.</li>
+ * </ul>
+ */
+@SpringBootTest(properties = {
+        "springtx.member.bloom.enabled=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class MemberExistenceFilterTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberExistenceFilter existenceFilter;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired EntityManagerFactory emf;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void clear() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void skipDatabaseForAbsentUsername() {
+        for (int i = 0; i < 100; i++) {
+            assertThat(memberRepository.find("bloom_absent_" + i)).isEmpty();
+        }
+
+        //오탐(1%)으로 조회된 몇 건을 빼면 DB를 조회하지 않는다.
+        assertThat(statistics.getQueryExecutionCount()).isLessThan(10);
+    }
+
+    @Test
+    void savedUsernameIsVisibleAfterCommit() {
+        memberRepository.save(new Member("bloom_saved"));
+        assertThat(memberRepository.find("bloom_saved")).isPresent();
+
+        //바깥 트랜잭션에 참여한 저장도 마찬가지이다.
+        transactionTemplate.executeWithoutResult(status -> memberRepository.save(new Member("bloom_saved_outer")));
+        assertThat(memberRepository.find("bloom_saved_outer")).isPresent();
+    }
+
+    @Test
+    void rebuildPicksUpDirectInserts() {
+        //given: JPA를 거치지 않고 넣은 회원은 필터가 모른다. (필터를 켤 때 감수하는 제약)
+        jdbcTemplate.update("insert into member(id, username) values (next value for member_seq, ?)", "bloom_jdbc");
+        assertThat(existenceFilter.mightExist("bloom_jdbc")).isFalse();
+
+        //when
+        existenceFilter.rebuild();
+
+        //then
+        assertThat(existenceFilter.mightExist("bloom_jdbc")).isTrue();
+        assertThat(memberRepository.find("bloom_jdbc")).isPresent();
+    }
+
+    @Test
+    void reportMetrics() {
+        memberRepository.find("bloom_metrics");
+
+        assertThat(existenceFilter.metrics()).anySatisfy(metrics -> {
+            assertThat(metrics.tenant()).isEqualTo(TenantContext.DEFAULT_TENANT);
+            assertThat(metrics.bytes()).isPositive();
+            assertThat(metrics.configuredFalsePositiveRate()).isEqualTo(0.01);
+            assertThat(metrics.checks()).isPositive();
+        });
+    }
+}
@@ -0,0 +1,111 @@
+package thespeace.springtx.propagation;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <h1>회원 중복 조회 합치기</h1>
+ * <ul>
+ *     <li>한 트랜잭션 안에서 같은 username 을 여러 번 조회해도 쿼리는 한 번만 실행된다.</li>
+ *     <li>트랜잭션이 끝나면 메모가 비워지고, 같은 트랜잭션에서 저장한 회원은 다시 조회된다.</li>
+ *     <li>트랜잭션 밖에서 동시에 들어온 같은 username 조회는 쿼리 하나를 함께 사용한다.</li>
+ * </ul>
+ */
+@Slf4j
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class MemberLookupCoalescingTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired EntityManagerFactory emf;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void clear() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void memoizeWithinTransaction() {
+        //given
+        memberRepository.save(new Member("coalesce_memo"));
+        statistics.clear();
+
+        //when
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 5; i++) {
+                assertThat(memberRepository.find("coalesce_memo")).isPresent();
+            }
+        });
+
+        //then
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(1);
+
+        //트랜잭션이 끝나면 메모는 비워진다.
+        transactionTemplate.executeWithoutResult(status -> memberRepository.find("coalesce_memo"));
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(2);
+    }
+
+    @Test
+    void saveInvalidatesMemo() {
+        transactionTemplate.executeWithoutResult(status -> {
+            assertThat(memberRepository.find("coalesce_saved")).isEmpty();
+            memberRepository.save(new Member("coalesce_saved"));
+            assertThat(memberRepository.find("coalesce_saved")).isPresent();
+        });
+    }
+
+    @Test
+    void concurrentLookupsOutsideTransaction() throws Exception {
+        //given
+        memberRepository.save(new Member("coalesce_popular"));
+        int threads = 16;
+        int perThread = 200;
+        statistics.clear();
+
+        //when: 여러 스레드가 같은 username 을 동시에 조회한다.
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < perThread; j++) {
+                    assertThat(memberRepository.find("coalesce_popular")).isPresent();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        //작업 스레드의 검증 실패는 get() 으로 꺼내야 테스트 실패가 된다.
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        //then: 실행된 쿼리 수는 호출 수보다 적다. (동시에 겹친 호출만 합쳐지므로 정확한 수는 실행마다 다르다.)
+        long queries = statistics.getQueryExecutionCount();
+        log.info("동시 조회 calls={}, queries={}", threads * perThread, queries);
+        assertThat(queries).isLessThan((long) threads * perThread);
+    }
+}
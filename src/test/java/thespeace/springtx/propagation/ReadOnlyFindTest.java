@@ -0,0 +1,113 @@
+package thespeace.springtx.propagation;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <h1>읽기 전용 조회 경로</h1>
+ * <ul>
+ *     <li>트랜잭션 안에서 조회한 엔티티는 읽기 전용이므로 값을 바꿔도 커밋할 때 반영되지 않는다.</li>
+ *     <li>프로젝션 조회는 영속성 컨텍스트에 엔티티를 남기지 않는다.</li>
+ *     <li>쓰기 트랜잭션 안에서는 방금 저장한 데이터도 조회된다.</li>
+ *     <li>기본 설정(블룸 필터 꺼짐)에서는 JPA를 거치지 않고 넣은 회원도 조회된다.</li>
+ * </ul>
+ */
+@SpringBootTest
+class ReadOnlyFindTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired LogRepository logRepository;
+    @Autowired ReadingService readingService;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    void foundEntityIsNotDirtyChecked() {
+        //given
+        memberRepository.save(new Member("readOnly_member"));
+
+        //when
+        boolean readOnly = readingService.findAndModify("readOnly_member");
+
+        //then
+        assertThat(readOnly).isTrue();
+        assertThat(memberRepository.find("readOnly_member")).isPresent();
+        assertThat(memberRepository.find("readOnly_member_changed")).isEmpty();
+    }
+
+    @Test
+    void findSeesRowsWrittenOutsideJpa() {
+        //다른 인스턴스나 JDBC로 넣은 회원
+        jdbcTemplate.update("insert into member(id, username) values (next value for member_seq, ?)", "readOnly_jdbc");
+
+        assertThat(memberRepository.find("readOnly_jdbc")).isPresent();
+    }
+
+    @Test
+    void viewIsNotManaged() {
+        //given
+        Member member = new Member("readOnly_view");
+        memberRepository.save(member);
+        logRepository.save(new Log("readOnly_view"));
+
+        //when
+        int managed = readingService.findViews("readOnly_view");
+
+        //then
+        assertThat(managed).isZero();
+        assertThat(memberRepository.findView("readOnly_view")).contains(new MemberView(member.getId(), "readOnly_view"));
+        assertThat(logRepository.findView("readOnly_view").get().createdAt()).isNotNull();
+    }
+
+    @Test
+    void readOwnWriteInWriteTransaction() {
+        assertThat(readingService.saveAndFind("readOnly_own_write")).isTrue();
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        ReadingService readingService(EntityManager em, MemberRepository memberRepository, LogRepository logRepository) {
+            return new ReadingService(em, memberRepository, logRepository);
+        }
+    }
+
+    @RequiredArgsConstructor
+    static class ReadingService {
+
+        private final EntityManager em;
+        private final MemberRepository memberRepository;
+        private final LogRepository logRepository;
+
+        @Transactional
+        public boolean findAndModify(String username) {
+            Member member = memberRepository.find(username).orElseThrow();
+            member.setUsername(username + "_changed");
+            return em.unwrap(Session.class).isReadOnly(member);
+        }
+
+        @Transactional
+        public int findViews(String key) {
+            memberRepository.findView(key).orElseThrow();
+            logRepository.findView(key).orElseThrow();
+            return em.unwrap(SessionImplementor.class).getPersistenceContextInternal().getNumberOfManagedEntities();
+        }
+
+        @Transactional
+        public boolean saveAndFind(String username) {
+            em.persist(new Member(username));
+            return memberRepository.find(username).isPresent();
+        }
+    }
+}
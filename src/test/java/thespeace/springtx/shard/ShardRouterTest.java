@@ -0,0 +1,38 @@
+package thespeace.springtx.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <h1>일관된 해시 샤드 선택</h1>
+ */
+class ShardRouterTest {
+
+    @Test
+    void distributeAndMoveOnlyToNewShard() {
+        ShardRouter three = new ShardRouter(List.of("s0", "s1", "s2"), 128);
+        ShardRouter four = new ShardRouter(List.of("s0", "s1", "s2", "s3"), 128);
+
+        Map<String, Integer> counts = new HashMap<>();
+        int moved = 0;
+        int keys = 10_000;
+        for (int i = 0; i < keys; i++) {
+            String username = "user" + i;
+            counts.merge(three.shardOf(username), 1, Integer::sum);
+            if (!three.shardOf(username).equals(four.shardOf(username))) {
+                //샤드가 바뀐 username 은 모두 새 샤드로 옮겨진다.
+                assertThat(four.shardOf(username)).isEqualTo("s3");
+                moved++;
+            }
+        }
+
+        //샤드마다 대략 1/3 씩 나누어지고, 샤드를 추가하면 약 1/4 만 옮겨진다.
+        assertThat(counts.values()).allMatch(count -> count > keys / 3 * 0.8 && count < keys / 3 * 1.2);
+        assertThat(moved).isBetween(keys / 4 / 2, keys / 4 * 3 / 2);
+    }
+}
@@ -0,0 +1,121 @@
+package thespeace.springtx.shard;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import thespeace.springtx.propagation.Log;
+import thespeace.springtx.propagation.LogRepository;
+import thespeace.springtx.propagation.Member;
+import thespeace.springtx.propagation.MemberRepository;
+import thespeace.springtx.propagation.MemberService;
+import thespeace.springtx.tenant.TenantContext;
+import thespeace.springtx.tenant.TenantDataSources;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * <h1>username 샤딩</h1>
+ * 회원 가입은 username 의 샤드 하나에서 트랜잭션으로 실행되고, 기존 전파/롤백 동작은 샤드 안에서 그대로 유지된다.
+ */
+@SpringBootTest(properties = {
+        "springtx.tenant.enabled=true",
+        "springtx.tenant.initialize-schema=true",
+        "springtx.tenant.budget=12",
+        "springtx.tenant.tenants.s0.url=jdbc:h2:mem:shard_0;DB_CLOSE_DELAY=-1",
+        "springtx.tenant.tenants.s0.max-connections=4",
+        "springtx.tenant.tenants.s1.url=jdbc:h2:mem:shard_1;DB_CLOSE_DELAY=-1",
+        "springtx.tenant.tenants.s1.max-connections=4",
+        "springtx.tenant.tenants.s2.url=jdbc:h2:mem:shard_2;DB_CLOSE_DELAY=-1",
+        "springtx.tenant.tenants.s2.max-connections=4",
+        "springtx.shard.enabled=true",
+        "springtx.shard.shards=s0,s1,s2"
+})
+class ShardRoutingTest {
+
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired LogRepository logRepository;
+    @Autowired ShardRouter shardRouter;
+    @Autowired ShardFanOut shardFanOut;
+    @Autowired TenantDataSources tenantDataSources;
+
+    @Test
+    void joinOnSingleShard() {
+        //when
+        List<String> usernames = IntStream.range(0, 30).mapToObj(i -> "shardUser" + i).toList();
+        usernames.forEach(memberService::joinV1);
+
+        //then: 회원과 로그가 username 의 샤드에만 저장되고, 모든 샤드에 나누어 저장된다.
+        for (String username : usernames) {
+            for (String shard : shardRouter.shards()) {
+                long expected = shard.equals(shardRouter.shardOf(username)) ? 1 : 0;
+                assertThat(count(shard, "select count(*) from member where username = ?", username)).isEqualTo(expected);
+                assertThat(count(shard, "select count(*) from log where message = ?", username)).isEqualTo(expected);
+            }
+            assertThat(memberRepository.find(username)).isPresent();
+            assertThat(logRepository.find(username)).isPresent();
+        }
+        assertThat(shardFanOut.onAllShards(() -> memberRepository.findAll(usernames).size()).values())
+                .allMatch(count -> count > 0);
+    }
+
+    @Test
+    void rollbackWithinShard() {
+        //joinV1: 로그 예외가 밖으로 던져져서 회원도 함께 롤백된다.
+        assertThatThrownBy(() -> memberService.joinV1("로그예외_shard_v1")).isInstanceOf(RuntimeException.class);
+        assertThat(memberRepository.find("로그예외_shard_v1")).isEmpty();
+        assertThat(logRepository.find("로그예외_shard_v1")).isEmpty();
+
+        //joinV2: 로그만 롤백되고 회원은 커밋된다.
+        memberService.joinV2("로그예외_shard_v2");
+        assertThat(memberRepository.find("로그예외_shard_v2")).isPresent();
+        assertThat(logRepository.find("로그예외_shard_v2")).isEmpty();
+    }
+
+    @Test
+    void repositorySaveRoutedByKey() {
+        //when: 서비스를 거치지 않고 리포지토리로 바로 저장한다.
+        List<String> usernames = IntStream.range(0, 12).mapToObj(i -> "shardDirect" + i).toList();
+        for (String username : usernames) {
+            memberRepository.save(new Member(username));
+            logRepository.save(new Log(username));
+        }
+        logRepository.saveAll(IntStream.range(0, 12).mapToObj(i -> new Log("shardBatch" + i)).toList());
+
+        //then: 조회와 같은 샤드에 저장되었다.
+        for (String username : usernames) {
+            String shard = shardRouter.shardOf(username);
+            assertThat(count(shard, "select count(*) from member where username = ?", username)).isEqualTo(1);
+            assertThat(count(shard, "select count(*) from log where message = ?", username)).isEqualTo(1);
+            assertThat(memberRepository.find(username)).isPresent();
+        }
+        for (int i = 0; i < 12; i++) {
+            String message = "shardBatch" + i;
+            assertThat(count(shardRouter.shardOf(message), "select count(*) from log where message = ?", message)).isEqualTo(1);
+        }
+        assertThat(count(TenantContext.DEFAULT_TENANT, "select count(*) from member where username = ?", "shardDirect0")).isZero();
+    }
+
+    @Test
+    void fanOutLookup() {
+        List<String> usernames = IntStream.range(0, 12).mapToObj(i -> "shardFanOut" + i).toList();
+        usernames.forEach(memberService::joinV1);
+
+        List<Member> members = shardFanOut.findMembers(usernames);
+        assertThat(members).extracting(Member::getUsername).containsExactlyInAnyOrderElementsOf(usernames);
+
+        Map<String, Integer> perShard = shardFanOut.onAllShards(() -> memberRepository.findAll(usernames).size());
+        assertThat(perShard.keySet()).containsExactly("s0", "s1", "s2");
+        assertThat(perShard.values().stream().mapToInt(Integer::intValue).sum()).isEqualTo(usernames.size());
+    }
+
+    private long count(String shard, String sql, String key) {
+        return new JdbcTemplate(tenantDataSources.get(shard)).queryForObject(sql, Long.class, key);
+    }
+}
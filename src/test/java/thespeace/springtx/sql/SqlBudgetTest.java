@@ -0,0 +1,102 @@
+package thespeace.springtx.sql;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import thespeace.springtx.order.NotEnoughMoneyException;
+import thespeace.springtx.order.Order;
+import thespeace.springtx.order.OrderService;
+import thespeace.springtx.propagation.LogRepository;
+import thespeace.springtx.propagation.MemberRepository;
+import thespeace.springtx.propagation.MemberService;
+
+/**
+ * <h1>서비스 흐름별 SQL 예산</h1>
+ * 각 흐름이 실행하는 SQL 수를 고정해 둔다. 변경으로 SQL 이 늘어나면(N+1, 불필요한 UPDATE 등) 테스트가 실패한다.<p>
+ *
+ * 시퀀스 호출은 ID 블록(@BlockSequence)이 소진될 때만 실행되므로 엔티티 수 만큼을 상한으로 둔다.
+ */
+@SpringBootTest
+@Import(SqlCounterConfig.class)
+class SqlBudgetTest {
+
+    @Autowired SqlCounter sqlCounter;
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired LogRepository logRepository;
+    @Autowired OrderService orderService;
+
+    /**
+     * 회원 INSERT, 로그 INSERT 가 각각 다른 커넥션(REQUIRES_NEW)에서 실행된다.
+     */
+    @Test
+    void joinV1() throws Throwable {
+        sqlCounter.capture(() -> memberService.joinV1("budget_joinV1"))
+                .expectInserts(2)
+                .expectUpdates(0)
+                .expectSelects(0)
+                .expectWriteConnections(2)
+                .expectSequenceCallsAtMost(2);
+    }
+
+    /**
+     * 로그 저장이 실패하면 전체가 롤백되고 flush 되지 않으므로 INSERT 는 없다.
+     */
+    @Test
+    void joinV1_logException() {
+        sqlCounter.captureThrowing(RuntimeException.class, () -> memberService.joinV1("로그예외_budget_joinV1"))
+                .expectInserts(0)
+                .expectUpdates(0);
+    }
+
+    /**
+     * 로그 저장 실패를 복구하면 회원 INSERT 만 커밋된다.
+     */
+    @Test
+    void joinV2_recover() throws Throwable {
+        sqlCounter.capture(() -> memberService.joinV2("로그예외_budget_joinV2"))
+                .expectInserts(1)
+                .expectUpdates(0)
+                .expectWriteConnections(1);
+    }
+
+    @Test
+    void order_complete() throws Throwable {
+        sqlCounter.capture(() -> orderService.order(order("정상")))
+                .expectInserts(1)
+                .expectUpdates(0)
+                .expectSelects(0)
+                .expectSequenceCallsAtMost(1);
+    }
+
+    @Test
+    void order_notEnoughMoney() {
+        sqlCounter.captureThrowing(NotEnoughMoneyException.class, () -> orderService.order(order("잔고부족")))
+                .expectInserts(1)
+                .expectUpdates(0)
+                .expectSelects(0);
+    }
+
+    @Test
+    void order_runtimeException() {
+        sqlCounter.captureThrowing(RuntimeException.class, () -> orderService.order(order("예외")))
+                .expectInserts(0)
+                .expectUpdates(0);
+    }
+
+    @Test
+    void find() throws Throwable {
+        memberService.joinV1("budget_find");
+
+        sqlCounter.capture(() -> memberRepository.find("budget_find")).expectSelects(1);
+        sqlCounter.capture(() -> logRepository.find("budget_find")).expectSelects(1);
+        sqlCounter.capture(() -> logRepository.find("budget_missing")).expectSelects(1);
+    }
+
+    private Order order(String username) {
+        Order order = new Order();
+        order.setUsername(username);
+        return order;
+    }
+}
@@ -0,0 +1,82 @@
+package thespeace.springtx.sql;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * <h2>실행된 SQL 수집기</h2>
+ * datasource-proxy 리스너로 등록되어 JDBC 로 실행된 SQL 을 종류와 커넥션 별로 기록한다.
+ * 같은 물리 트랜잭션의 SQL 은 같은 커넥션에서 실행되므로 커넥션 id 로 트랜잭션을 구분할 수 있다.
+ *
+ * @see SqlCounterConfig
+ */
+public class SqlCounter implements QueryExecutionListener {
+
+    public enum Type {SELECT, INSERT, UPDATE, DELETE, SEQUENCE, OTHER}
+
+    public record Statement(String connectionId, Type type, String sql) {
+    }
+
+    private final List<Statement> statements = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        for (QueryInfo queryInfo : queryInfoList) {
+            int executions = execInfo.isBatch() ? Math.max(1, queryInfo.getParametersList().size()) : 1;
+            for (int i = 0; i < executions; i++) {
+                statements.add(new Statement(execInfo.getConnectionId(), typeOf(queryInfo.getQuery()), queryInfo.getQuery()));
+            }
+        }
+    }
+
+    /**
+     * 기록을 비우고 action 을 실행한 뒤, 그동안 실행된 SQL 을 반환한다. action 이 던진 예외는 그대로 전파한다.
+     */
+    public SqlStatements capture(ThrowingRunnable action) throws Throwable {
+        statements.clear();
+        action.run();
+        return new SqlStatements(new ArrayList<>(statements), null);
+    }
+
+    /**
+     * 예외가 발생하는 흐름의 SQL 을 캡처한다. action 이 expected 타입의 예외를 던지지 않으면 실패한다.
+     * 예외는 결과({@link SqlStatements#thrown()})에 담는다.
+     */
+    public SqlStatements captureThrowing(Class<? extends Throwable> expected, ThrowingRunnable action) {
+        statements.clear();
+        Throwable thrown = catchThrowable(action::run);
+        assertThat(thrown).as("%s 예외가 발생해야 한다.", expected.getSimpleName()).isInstanceOf(expected);
+        return new SqlStatements(new ArrayList<>(statements), thrown);
+    }
+
+    private static Type typeOf(String sql) {
+        String normalized = sql.trim().toLowerCase(Locale.ROOT);
+        if (normalized.contains("next value for") || normalized.contains("nextval")) {
+            return Type.SEQUENCE;
+        }
+        for (Type type : List.of(Type.SELECT, Type.INSERT, Type.UPDATE, Type.DELETE)) {
+            if (normalized.startsWith(type.name().toLowerCase(Locale.ROOT))) {
+                return type;
+            }
+        }
+        return Type.OTHER;
+    }
+
+    @FunctionalInterface
+    public interface ThrowingRunnable {
+        void run() throws Throwable;
+    }
+}
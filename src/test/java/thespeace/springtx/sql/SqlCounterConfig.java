@@ -0,0 +1,39 @@
+package thespeace.springtx.sql;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+
+/**
+ * <h2>SQL 수 검증 설정</h2>
+ * 테스트에서 @Import(SqlCounterConfig.class) 로 사용한다.
+ * DataSource 를 datasource-proxy 로 감싸고 {@link SqlCounter} 를 리스너로 등록한다.
+ */
+@TestConfiguration
+public class SqlCounterConfig {
+
+    @Bean
+    SqlCounter sqlCounter() {
+        return new SqlCounter();
+    }
+
+    @Bean
+    static BeanPostProcessor sqlCounterDataSourcePostProcessor(ObjectProvider<SqlCounter> sqlCounter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(sqlCounter.getObject())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
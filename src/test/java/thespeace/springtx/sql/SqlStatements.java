@@ -0,0 +1,105 @@
+package thespeace.springtx.sql;
+
+import org.springframework.lang.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <h2>캡처한 SQL 과 검증 도우미</h2>
+ * <pre>
+ * sqlCounter.capture(() -> memberService.joinV1(username))
+ *         .expectInserts(2)
+ *         .expectWriteConnections(2);
+ * </pre>
+ * 시퀀스 호출은 ID 블록이 소진될 때만 실행되므로 따로 분류하고 상한만 검증한다.
+ */
+public class SqlStatements {
+
+    private final List<SqlCounter.Statement> statements;
+    @Nullable
+    private final Throwable thrown;
+
+    SqlStatements(List<SqlCounter.Statement> statements, @Nullable Throwable thrown) {
+        this.statements = statements;
+        this.thrown = thrown;
+    }
+
+    public long count(SqlCounter.Type type) {
+        return statements.stream().filter(statement -> statement.type() == type).count();
+    }
+
+    /**
+     * 커넥션(물리 트랜잭션)별 SQL 목록. 실행 순서를 유지한다.
+     */
+    public Map<String, List<SqlCounter.Statement>> byConnection() {
+        return statements.stream().collect(Collectors.groupingBy(SqlCounter.Statement::connectionId,
+                LinkedHashMap::new, Collectors.toList()));
+    }
+
+    @Nullable
+    public Throwable thrown() {
+        return thrown;
+    }
+
+    public SqlStatements expectSelects(int expected) {
+        return expect(SqlCounter.Type.SELECT, expected);
+    }
+
+    public SqlStatements expectInserts(int expected) {
+        return expect(SqlCounter.Type.INSERT, expected);
+    }
+
+    public SqlStatements expectUpdates(int expected) {
+        return expect(SqlCounter.Type.UPDATE, expected);
+    }
+
+    public SqlStatements expectDeletes(int expected) {
+        return expect(SqlCounter.Type.DELETE, expected);
+    }
+
+    public SqlStatements expectSequenceCallsAtMost(int max) {
+        assertThat(count(SqlCounter.Type.SEQUENCE)).as("sequence 호출 수 %s", this).isLessThanOrEqualTo(max);
+        return this;
+    }
+
+    /**
+     * SQL 을 실행한 커넥션 수. 커넥션 풀에서 커넥션을 획득한 횟수이다.
+     */
+    public SqlStatements expectConnections(int expected) {
+        assertThat(byConnection()).as("커넥션 수 %s", this).hasSize(expected);
+        return this;
+    }
+
+    /**
+     * INSERT, UPDATE, DELETE 를 실행한 커넥션 수. 쓰기가 몇 개의 물리 트랜잭션으로 나뉘었는지 확인한다.
+     * 시퀀스 호출은 블록 소진 여부에 따라 달라지므로 세지 않는다.
+     */
+    public SqlStatements expectWriteConnections(int expected) {
+        long connections = statements.stream()
+                .filter(statement -> statement.type() == SqlCounter.Type.INSERT
+                        || statement.type() == SqlCounter.Type.UPDATE
+                        || statement.type() == SqlCounter.Type.DELETE)
+                .map(SqlCounter.Statement::connectionId)
+                .distinct()
+                .count();
+        assertThat(connections).as("쓰기 커넥션 수 %s", this).isEqualTo(expected);
+        return this;
+    }
+
+    private SqlStatements expect(SqlCounter.Type type, int expected) {
+        assertThat(count(type)).as("%s 수 %s", type, this).isEqualTo(expected);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return statements.stream()
+                .map(statement -> "[" + statement.connectionId() + "] " + statement.sql())
+                .collect(Collectors.joining("\n", "\n", ""));
+    }
+}
@@ -0,0 +1,24 @@
+package thespeace.springtx.stress;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * <h2>큰 커넥션 풀</h2>
+ * 스레드 16개, 풀 크기 40.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=40",
+        "spring.datasource.hikari.connection-timeout=5000"
+})
+class LargePoolStressTest extends PropagationStressTest {
+
+    @Override
+    int threads() {
+        return 16;
+    }
+
+    @Override
+    int iterations() {
+        return 400;
+    }
+}
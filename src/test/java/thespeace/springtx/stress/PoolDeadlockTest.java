@@ -0,0 +1,39 @@
+package thespeace.springtx.stress;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import thespeace.springtx.propagation.MemberService;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <h1>REQUIRES_NEW 커넥션 풀 교착 감지</h1>
+ * 풀 크기가 동시 스레드 수보다 크지 않으면, 모든 스레드가 바깥 트랜잭션의 커넥션을 하나씩 잡은 채로
+ * REQUIRES_NEW 의 커넥션을 기다리며 멈춘다. 커넥션 획득 제한 시간을 짧게 두고, 교착이 멈춤 없이 실패로 드러나는지 확인한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=1",
+        "spring.datasource.hikari.connection-timeout=300"
+})
+class PoolDeadlockTest {
+
+    @Autowired MemberService memberService;
+
+    @Test
+    void detectPoolDeadlock() throws InterruptedException {
+        //given: 풀 크기 1. 바깥 트랜잭션이 유일한 커넥션을 잡고 있으므로 로그 저장용 커넥션이 항상 부족하다.
+        int threads = 2;
+
+        //when
+        StressResult result = StressRunner.run("pool-deadlock", threads, 20, Duration.ofSeconds(30),
+                i -> memberService.joinV1("poolDeadlock" + i));
+
+        //then: 멈추지 않고 커넥션 획득 실패로 끝난다.
+        assertThat(result.timedOut()).isFalse();
+        assertThat(result.poolExhausted()).isTrue();
+        assertThat(result.deadlockSuspected()).isTrue();
+    }
+}
@@ -0,0 +1,127 @@
+package thespeace.springtx.stress;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import thespeace.springtx.order.NotEnoughMoneyException;
+import thespeace.springtx.order.Order;
+import thespeace.springtx.order.OrderService;
+import thespeace.springtx.propagation.MemberService;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <h1>부하 상태에서의 전파 동작</h1>
+ * 여러 스레드가 동시에 joinV1, joinV2, order 를 호출해도 데이터가 유실되지 않고, 롤백 범위가 단건 호출과 같아야 한다.
+ * 풀 크기별로 하위 클래스를 두고, 처리량과 p99 지연 시간은 로그로 남긴다.<p>
+ *
+ * joinV1, joinV2 는 바깥 트랜잭션이 커넥션을 잡은 채로 LogRepository 의 REQUIRES_NEW 가 커넥션을 하나 더 사용한다.
+ * 따라서 풀 크기는 동시 스레드 수보다 커야 교착 상태 없이 진행된다. (모든 스레드가 커넥션을 하나씩 잡아도 하나가 남는다)
+ */
+abstract class PropagationStressTest {
+
+    static final Duration TIMEOUT = Duration.ofSeconds(60);
+
+    @Autowired MemberService memberService;
+    @Autowired OrderService orderService;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    abstract int threads();
+
+    abstract int iterations();
+
+    private String prefix() {
+        return getClass().getSimpleName();
+    }
+
+    @Test
+    void joinV1Concurrently() throws InterruptedException {
+        String prefix = prefix() + "-joinV1-";
+
+        StressResult result = StressRunner.run(prefix() + "-joinV1", threads(), iterations(), TIMEOUT,
+                i -> memberService.joinV1(prefix + i));
+
+        //회원과 로그가 하나도 빠짐없이 저장된다.
+        assertThat(result.deadlockSuspected()).isFalse();
+        assertThat(result.errors()).isEmpty();
+        assertThat(countMembers(prefix)).isEqualTo(iterations());
+        assertThat(countLogs(prefix)).isEqualTo(iterations());
+    }
+
+    @Test
+    void joinV1LogExceptionConcurrently() throws InterruptedException {
+        String prefix = "로그예외-" + prefix() + "-joinV1-";
+
+        StressResult result = StressRunner.run(prefix() + "-joinV1-logException", threads(), iterations(), TIMEOUT,
+                i -> memberService.joinV1(prefix + i));
+
+        //REQUIRES_NEW 로그 트랜잭션의 예외가 밖으로 던져져서 회원도 함께 롤백된다.
+        assertThat(result.deadlockSuspected()).isFalse();
+        assertThat(result.errors()).hasSize(iterations()).allMatch(RuntimeException.class::isInstance);
+        assertThat(countMembers(prefix)).isZero();
+        assertThat(countLogs(prefix)).isZero();
+    }
+
+    @Test
+    void joinV2RecoverConcurrently() throws InterruptedException {
+        String prefix = "로그예외-" + prefix() + "-joinV2-";
+
+        StressResult result = StressRunner.run(prefix() + "-joinV2-recover", threads(), iterations(), TIMEOUT,
+                i -> memberService.joinV2(prefix + i));
+
+        //로그만 롤백되고 회원은 커밋된다. 다른 스레드의 롤백이 섞이지 않는다.
+        assertThat(result.deadlockSuspected()).isFalse();
+        assertThat(result.errors()).isEmpty();
+        assertThat(countMembers(prefix)).isEqualTo(iterations());
+        assertThat(countLogs(prefix)).isZero();
+    }
+
+    @Test
+    void orderConcurrently() throws InterruptedException {
+        String[] usernames = {"정상", "잔고부족", "예외"};
+        long completedBefore = countOrders("정상", "완료");
+        long pendingBefore = countOrders("잔고부족", "대기");
+        long failedBefore = countOrders("예외", null);
+
+        StressResult result = StressRunner.run(prefix() + "-order", threads(), iterations(), TIMEOUT, i -> {
+            Order order = new Order();
+            order.setUsername(usernames[i % usernames.length]);
+            try {
+                orderService.order(order);
+            } catch (NotEnoughMoneyException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        //정상과 잔고부족(체크 예외)은 커밋되고, 시스템 예외(런타임 예외)만 롤백된다.
+        assertThat(result.deadlockSuspected()).isFalse();
+        assertThat(result.errors()).hasSize(callsOf(1, usernames.length) + callsOf(2, usernames.length));
+        assertThat(countOrders("정상", "완료") - completedBefore).isEqualTo(callsOf(0, usernames.length));
+        assertThat(countOrders("잔고부족", "대기") - pendingBefore).isEqualTo(callsOf(1, usernames.length));
+        assertThat(countOrders("예외", null) - failedBefore).isZero();
+    }
+
+    /**
+     * i % size == index 인 호출 수
+     */
+    private int callsOf(int index, int size) {
+        return (iterations() - index + size - 1) / size;
+    }
+
+    private long countMembers(String prefix) {
+        return jdbcTemplate.queryForObject("select count(*) from member where left(username, ?) = ?",
+                Long.class, prefix.length(), prefix);
+    }
+
+    private long countLogs(String prefix) {
+        return jdbcTemplate.queryForObject("select count(*) from log where left(message, ?) = ?",
+                Long.class, prefix.length(), prefix);
+    }
+
+    private long countOrders(String username, String payStatus) {
+        return jdbcTemplate.queryForObject("select count(*) from orders where username = ? and pay_status is not distinct from ?",
+                Long.class, username, payStatus);
+    }
+}
@@ -0,0 +1,24 @@
+package thespeace.springtx.stress;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * <h2>작은 커넥션 풀</h2>
+ * 스레드 4개, 풀 크기 5. REQUIRES_NEW 가 커넥션을 하나 더 쓰므로 교착 없이 진행할 수 있는 최소 크기이다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=5",
+        "spring.datasource.hikari.connection-timeout=5000"
+})
+class SmallPoolStressTest extends PropagationStressTest {
+
+    @Override
+    int threads() {
+        return 4;
+    }
+
+    @Override
+    int iterations() {
+        return 200;
+    }
+}
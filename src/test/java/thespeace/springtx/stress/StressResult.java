@@ -0,0 +1,62 @@
+package thespeace.springtx.stress;
+
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <h2>부하 실행 결과</h2>
+ * 처리량, 지연 시간 백분위, 예외, 시간 초과 여부를 담는다.
+ */
+record StressResult(String name, int threads, int iterations, long[] latencies, List<Throwable> errors,
+                    Duration elapsed, boolean timedOut) {
+
+    long completed() {
+        return Arrays.stream(latencies).filter(latency -> latency >= 0).count();
+    }
+
+    double throughput() {
+        return completed() * 1_000_000_000.0 / Math.max(1, elapsed.toNanos());
+    }
+
+    Duration percentile(double percentile) {
+        long[] sorted = Arrays.stream(latencies).filter(latency -> latency >= 0).sorted().toArray();
+        if (sorted.length == 0) {
+            return Duration.ZERO;
+        }
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return Duration.ofNanos(sorted[Math.max(0, index)]);
+    }
+
+    /**
+     * 커넥션 풀에서 커넥션을 얻지 못해 실패한 작업이 있는지 확인한다.
+     * 바깥 트랜잭션이 커넥션을 잡은 채로 REQUIRES_NEW 가 커넥션을 기다리면 풀이 교착 상태에 빠진다.
+     */
+    boolean poolExhausted() {
+        return errors.stream().anyMatch(StressResult::isConnectionTimeout);
+    }
+
+    boolean deadlockSuspected() {
+        return timedOut || poolExhausted();
+    }
+
+    private static boolean isConnectionTimeout(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientConnectionException || cause instanceof CannotCreateTransactionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[%s] threads=%d, completed=%d/%d, errors=%d, elapsed=%dms, throughput=%.1f ops/s, "
+                        + "p50=%.2fms, p99=%.2fms, timedOut=%s, poolExhausted=%s",
+                name, threads, completed(), iterations, errors.size(), elapsed.toMillis(), throughput(),
+                percentile(50).toNanos() / 1e6, percentile(99).toNanos() / 1e6, timedOut, poolExhausted());
+    }
+}
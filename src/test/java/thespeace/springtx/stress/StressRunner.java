@@ -0,0 +1,76 @@
+package thespeace.springtx.stress;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * <h2>동시 실행 부하 도구</h2>
+ * threads 개의 스레드가 iterations 번의 작업을 나누어 동시에 실행하고, 처리량과 지연 시간, 예외를 수집한다.
+ * timeout 안에 끝나지 않으면 작업 스레드의 스택을 로그로 남기고 중단한다. (커넥션 풀 교착 감지)
+ */
+@Slf4j
+class StressRunner {
+
+    static StressResult run(String name, int threads, int iterations, Duration timeout, IntConsumer task)
+            throws InterruptedException {
+        long[] latencies = new long[iterations];
+        Arrays.fill(latencies, -1);
+        Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new CopyOnWriteArrayList<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + workers.size());
+            workers.add(thread);
+            return thread;
+        });
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = next.getAndIncrement(); i < iterations; i = next.getAndIncrement()) {
+                    long begin = System.nanoTime();
+                    try {
+                        task.accept(i);
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                    latencies[i] = System.nanoTime() - begin;
+                }
+                return null;
+            });
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        boolean finished = executor.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - begin);
+        if (!finished) {
+            for (Thread worker : workers) {
+                StringBuilder stack = new StringBuilder();
+                for (StackTraceElement element : worker.getStackTrace()) {
+                    stack.append("\n\tat ").append(element);
+                }
+                log.warn("[{}] 제한 시간 안에 끝나지 않은 작업 스레드 {}{}", name, worker.getName(), stack);
+            }
+            executor.shutdownNow();
+        }
+
+        StressResult result = new StressResult(name, threads, iterations, latencies, List.copyOf(errors), elapsed, !finished);
+        log.info("{}", result);
+        return result;
+    }
+}
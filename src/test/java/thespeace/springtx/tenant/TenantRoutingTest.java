@@ -0,0 +1,149 @@
+package thespeace.springtx.tenant;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.annotation.Transactional;
+import thespeace.springtx.propagation.LogRepository;
+import thespeace.springtx.propagation.MemberRepository;
+import thespeace.springtx.propagation.MemberService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * <h1>테넌트 라우팅</h1>
+ * <ul>
+ *     <li>같은 서비스 호출이 테넌트에 따라 다른 DB에 저장된다.</li>
+ *     <li>한 테넌트가 상한을 넘는 요청을 보내도 다른 테넌트는 기다리지 않고 커넥션을 얻는다.</li>
+ * </ul>
+ */
+@SpringBootTest(properties = {
+        "springtx.tenant.enabled=true",
+        "springtx.tenant.initialize-schema=true",
+        "springtx.tenant.budget=4",
+        "springtx.tenant.acquire-timeout=5s",
+        "springtx.tenant.tenants.a.url=jdbc:h2:mem:tenant_a;DB_CLOSE_DELAY=-1",
+        "springtx.tenant.tenants.a.max-connections=2",
+        "springtx.tenant.tenants.b.url=jdbc:h2:mem:tenant_b;DB_CLOSE_DELAY=-1",
+        "springtx.tenant.tenants.b.max-connections=2"
+})
+class TenantRoutingTest {
+
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired LogRepository logRepository;
+    @Autowired TenantDataSources tenantDataSources;
+    @Autowired SlowService slowService;
+    @Autowired @Qualifier("tenantSchemaInitializer") SmartInitializingSingleton tenantSchemaInitializer;
+
+    @Test
+    void routeByTenant() {
+        //when
+        TenantContext.run("a", () -> memberService.joinV1("tenantUserA"));
+        TenantContext.run("b", () -> memberService.joinV1("tenantUserB"));
+
+        //then: 회원과 로그(REQUIRES_NEW)가 모두 자기 테넌트 DB에만 저장된다.
+        assertThat(TenantContext.call("a", () -> memberRepository.find("tenantUserA"))).isPresent();
+        assertThat(TenantContext.call("a", () -> logRepository.find("tenantUserA"))).isPresent();
+        assertThat(TenantContext.call("a", () -> memberRepository.find("tenantUserB"))).isEmpty();
+        assertThat(TenantContext.call("b", () -> memberRepository.find("tenantUserB"))).isPresent();
+        assertThat(memberRepository.find("tenantUserA")).isEmpty();
+    }
+
+    /**
+     * 스키마 초기화를 다시 실행해도(재기동) 테넌트 데이터는 지워지지 않는다.
+     */
+    @Test
+    void schemaInitializationKeepsData() {
+        TenantContext.run("a", () -> memberService.joinV1("tenantKeep"));
+
+        tenantSchemaInitializer.afterSingletonsInstantiated();
+
+        assertThat(TenantContext.call("a", () -> memberRepository.find("tenantKeep"))).isPresent();
+    }
+
+    @Test
+    void unknownTenant() {
+        assertThatThrownBy(() -> TenantContext.run("unknown", () -> memberService.joinV1("tenantUnknown")))
+                .hasRootCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void cannotSwitchTenantInTransaction() {
+        assertThatThrownBy(() -> TenantContext.run("a", () -> slowService.switchTenant("b")))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void noisyTenantDoesNotStarveOthers() throws Exception {
+        //given: 테넌트 a 가 상한(2)의 4배 요청을 보내고, 각 요청은 커넥션을 500ms 동안 잡는다.
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch started = new CountDownLatch(1);
+        List<Future<?>> noisy = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            noisy.add(executor.submit(() -> TenantContext.run("a", () -> slowService.hold(500, started))));
+        }
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        //when: 그 사이 테넌트 b 가 회원 가입(커넥션 2개 사용)을 한다.
+        long begin = System.nanoTime();
+        TenantContext.run("b", () -> memberService.joinV1("tenantQuiet"));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+
+        for (Future<?> future : noisy) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        //then: 테넌트 a 는 상한을 넘지 않았고, 테넌트 b 는 a 의 요청 8건(약 2초)이 끝나기를 기다리지 않았다.
+        assertThat(tenantDataSources.peak("a")).isEqualTo(2);
+        assertThat(elapsedMillis).isLessThan(1000);
+        assertThat(tenantDataSources.budgetInUse()).isZero();
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        SlowService slowService(EntityManager em) {
+            return new SlowService(em);
+        }
+    }
+
+    @RequiredArgsConstructor
+    static class SlowService {
+
+        private final EntityManager em;
+
+        @Transactional
+        public void hold(long millis, CountDownLatch started) {
+            em.createQuery("select count(m) from Member m").getSingleResult();
+            started.countDown();
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Transactional
+        public void switchTenant(String tenant) {
+            TenantContext.run(tenant, () -> em.createQuery("select count(m) from Member m").getSingleResult());
+        }
+    }
+}
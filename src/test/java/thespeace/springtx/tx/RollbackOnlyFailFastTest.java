@@ -0,0 +1,115 @@
+package thespeace.springtx.tx;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.annotation.Transactional;
+import thespeace.springtx.propagation.Log;
+import thespeace.springtx.propagation.LogRepository;
+import thespeace.springtx.propagation.Member;
+import thespeace.springtx.propagation.MemberRepository;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * <h1>rollback-only 빠른 실패</h1>
+ * 참여 중인 내부 트랜잭션이 실패해서 rollback-only 가 되면, 이후의 참여 호출은 실행되지 않고 바로 실패한다.
+ */
+@SpringBootTest(properties = "springtx.tx.fail-fast-rollback-only=true")
+class RollbackOnlyFailFastTest {
+
+    @Autowired OuterService outerService;
+    @Autowired InnerService innerService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired LogRepository logRepository;
+
+    @Test
+    void failFastAfterRollbackOnly() {
+        assertThatThrownBy(() -> outerService.continueAfterInnerFailure("failFast"))
+                .isInstanceOf(RollbackOnlyFailFastException.class);
+
+        //rollback-only 이후의 참여 호출은 실행되지 않았다.
+        assertThat(innerService.calls()).isZero();
+        assertThat(memberRepository.find("failFast")).isEmpty();
+    }
+
+    @Test
+    void requiresNewStillRuns() {
+        assertThatThrownBy(() -> outerService.requiresNewAfterInnerFailure("failFast_log"))
+                .isInstanceOf(RollbackOnlyFailFastException.class);
+
+        //REQUIRES_NEW 는 별도의 물리 트랜잭션이므로 실행되고 커밋된다.
+        assertThat(logRepository.find("failFast_log")).isPresent();
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        InnerService innerService() {
+            return new InnerService();
+        }
+
+        @Bean
+        OuterService outerService(InnerService innerService, MemberRepository memberRepository, LogRepository logRepository) {
+            return new OuterService(innerService, memberRepository, logRepository);
+        }
+    }
+
+    @Slf4j
+    @RequiredArgsConstructor
+    static class OuterService {
+
+        private final InnerService inner;
+        private final MemberRepository memberRepository;
+        private final LogRepository logRepository;
+
+        @Transactional
+        public void continueAfterInnerFailure(String username) {
+            recover();
+            inner.count();
+            memberRepository.save(new Member(username));
+        }
+
+        @Transactional
+        public void requiresNewAfterInnerFailure(String message) {
+            recover();
+            logRepository.save(new Log(message));
+            memberRepository.save(new Member(message));
+        }
+
+        private void recover() {
+            try {
+                inner.fail();
+            } catch (IllegalStateException e) {
+                log.info("내부 트랜잭션 예외 복구");
+            }
+        }
+    }
+
+    static class InnerService {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Transactional
+        public void fail() {
+            throw new IllegalStateException("내부 실패");
+        }
+
+        @Transactional
+        public void count() {
+            calls.incrementAndGet();
+        }
+
+        public int calls() {
+            return calls.get();
+        }
+    }
+}
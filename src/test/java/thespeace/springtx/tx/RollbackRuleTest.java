@@ -0,0 +1,212 @@
+package thespeace.springtx.tx;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.NoRollbackRuleAttribute;
+import org.springframework.transaction.interceptor.RollbackRuleAttribute;
+import org.springframework.transaction.interceptor.RuleBasedTransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * <h1>예외별 커밋, 롤백, 재시도 규칙</h1>
+ * springtx.tx.rollback 설정이 스프링 기본 규칙(언체크 예외 롤백, 체크 예외 커밋)을 바꾸고, 메서드의 rollbackFor 는 설정보다 우선한다.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "springtx.tx.rollback.exceptions[thespeace.springtx.tx.RollbackRuleTest$RollbackCheckedException]=rollback",
+        "springtx.tx.rollback.exceptions[thespeace.springtx.tx.RollbackRuleTest$CommitRuntimeException]=commit",
+        "springtx.tx.rollback.exceptions[thespeace.springtx.tx.RollbackRuleTest$RetryException]=retry",
+        "springtx.tx.rollback.statuses[거절]=rollback"
+})
+class RollbackRuleTest {
+
+    @Autowired RuleService ruleService;
+    @Autowired RollbackRuleEngine engine;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    void configuredRuleOverridesDefault() {
+        assertThatThrownBy(() -> ruleService.save("rule_checked", new RollbackCheckedException()))
+                .isInstanceOf(RollbackCheckedException.class);
+        assertThatThrownBy(() -> ruleService.save("rule_runtime", new CommitRuntimeException()))
+                .isInstanceOf(CommitRuntimeException.class);
+
+        assertThat(exists("rule_checked")).isFalse();
+        assertThat(exists("rule_runtime")).isTrue();
+    }
+
+    @Test
+    void declaredRollbackForWins() {
+        assertThatThrownBy(() -> ruleService.saveRollbackFor("rule_declared", new CommitRuntimeException()))
+                .isInstanceOf(CommitRuntimeException.class);
+
+        assertThat(exists("rule_declared")).isFalse();
+    }
+
+    @Test
+    void nearestSuperTypeAndCache() {
+        assertThat(engine.decide(new SubCommitRuntimeException())).isEqualTo(RollbackDecision.COMMIT);
+        assertThat(engine.decide(new IllegalStateException())).isEqualTo(RollbackDecision.ROLLBACK);
+        assertThat(engine.decide(new Exception())).isEqualTo(RollbackDecision.COMMIT);
+    }
+
+    @Test
+    void retryOnNewTransaction() {
+        //2번 실패하고 3번째에 성공한다. (max-retries=2)
+        AtomicInteger attempts = new AtomicInteger();
+        ruleService.failUntil("rule_retry", attempts, 3);
+
+        assertThat(attempts.get()).isEqualTo(3);
+        assertThat(count("rule_retry")).isEqualTo(1);
+    }
+
+    @Test
+    void noRetryWithoutOptIn() {
+        //@RetryableTx 가 없으면 RETRY 규칙의 예외도 한 번 롤백하고 끝난다.
+        AtomicInteger attempts = new AtomicInteger();
+        assertThatThrownBy(() -> ruleService.failUntilNotRetryable("rule_retry_off", attempts, 3))
+                .isInstanceOf(RetryException.class);
+
+        assertThat(attempts.get()).isEqualTo(1);
+        assertThat(count("rule_retry_off")).isZero();
+    }
+
+    @Test
+    void retryGivesUp() {
+        AtomicInteger attempts = new AtomicInteger();
+        assertThatThrownBy(() -> ruleService.failUntil("rule_retry_fail", attempts, 10))
+                .isInstanceOf(RetryException.class);
+
+        assertThat(attempts.get()).isEqualTo(3);
+        assertThat(count("rule_retry_fail")).isZero();
+    }
+
+    @Test
+    void statusWithoutException() {
+        assertThat(ruleService.saveWithStatus("rule_status_commit", "잔고부족")).isEqualTo("잔고부족");
+        assertThat(ruleService.saveWithStatus("rule_status_rollback", "거절")).isEqualTo("거절");
+
+        assertThat(exists("rule_status_commit")).isTrue();
+        assertThat(exists("rule_status_rollback")).isFalse();
+    }
+
+    /**
+     * <h2>벤치마크: 규칙 목록 탐색 vs 예외 클래스별 캐시</h2>
+     * 규칙이 여러 개인 속성에서 깊은 계층의 예외로 롤백 여부를 반복해서 판단하고 처리량을 로그로 남긴다.
+     */
+    @Test
+    void benchmark() {
+        RuleBasedTransactionAttribute ruleBased = new RuleBasedTransactionAttribute();
+        ruleBased.setRollbackRules(List.of(
+                new RollbackRuleAttribute(RollbackCheckedException.class),
+                new NoRollbackRuleAttribute(IllegalArgumentException.class),
+                new RollbackRuleAttribute(RetryException.class),
+                new NoRollbackRuleAttribute(CommitRuntimeException.class)));
+        TransactionAttribute compiled = new RuleEngineTransactionAttribute(ruleBased, engine);
+        Throwable ex = new SubCommitRuntimeException();
+
+        long walk = throughput(ruleBased, ex);
+        long cached = throughput(compiled, ex);
+        assertThat(compiled.rollbackOn(ex)).isEqualTo(ruleBased.rollbackOn(ex));
+        log.info("롤백 판단 처리량(ops/s) ruleWalk={}, cached={}", walk, cached);
+    }
+
+    private long throughput(TransactionAttribute attribute, Throwable ex) {
+        int iterations = 2_000_000;
+        for (int i = 0; i < iterations; i++) {
+            attribute.rollbackOn(ex); //워밍업
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            attribute.rollbackOn(ex);
+        }
+        return iterations * TimeUnit.SECONDS.toNanos(1) / (System.nanoTime() - start);
+    }
+
+    private boolean exists(String username) {
+        return count(username) > 0;
+    }
+
+    private int count(String username) {
+        return jdbcTemplate.queryForObject("select count(*) from member where username = ?", Integer.class, username);
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        RuleService ruleService(JdbcTemplate jdbcTemplate, TxOutcomes txOutcomes) {
+            return new RuleService(jdbcTemplate, txOutcomes);
+        }
+    }
+
+    @RequiredArgsConstructor
+    static class RuleService {
+
+        private final JdbcTemplate jdbcTemplate;
+        private final TxOutcomes txOutcomes;
+
+        @Transactional
+        public void save(String username, Exception ex) throws Exception {
+            insert(username);
+            throw ex;
+        }
+
+        @Transactional(rollbackFor = CommitRuntimeException.class)
+        public void saveRollbackFor(String username, RuntimeException ex) {
+            insert(username);
+            throw ex;
+        }
+
+        @RetryableTx
+        @Transactional
+        public void failUntil(String username, AtomicInteger attempts, int succeedAt) {
+            insert(username);
+            if (attempts.incrementAndGet() < succeedAt) {
+                throw new RetryException();
+            }
+        }
+
+        @Transactional
+        public void failUntilNotRetryable(String username, AtomicInteger attempts, int succeedAt) {
+            failUntil(username, attempts, succeedAt); //내부 호출이라 프록시를 거치지 않는다.
+        }
+
+        @Transactional
+        public String saveWithStatus(String username, String status) {
+            insert(username);
+            txOutcomes.mark(status);
+            return txOutcomes.current();
+        }
+
+        private void insert(String username) {
+            jdbcTemplate.update("insert into member(id, username) values (next value for member_seq, ?)", username);
+        }
+    }
+
+    static class RollbackCheckedException extends Exception {
+    }
+
+    static class CommitRuntimeException extends RuntimeException {
+    }
+
+    static class SubCommitRuntimeException extends CommitRuntimeException {
+    }
+
+    static class RetryException extends RuntimeException {
+    }
+}
@@ -0,0 +1,91 @@
+package thespeace.springtx.tx;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import thespeace.springtx.propagation.MemberService;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <h1>트랜잭션 전파 추적</h1>
+ * MemberService.joinV1 -> MemberRepository.save(REQUIRED) -> LogRepository.save(REQUIRES_NEW) 흐름이
+ * span 트리로 기록되는지 확인한다.
+ */
+@SpringBootTest(properties = "springtx.tx.tracing.enabled=true")
+class TransactionTracingTest {
+
+    @Autowired MemberService memberService;
+    @Autowired InMemoryTxSpanExporter exporter;
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        InMemoryTxSpanExporter inMemoryTxSpanExporter() {
+            return new InMemoryTxSpanExporter();
+        }
+    }
+
+    @BeforeEach
+    void clear() {
+        exporter.clear();
+    }
+
+    @Test
+    void joinAndRequiresNew() {
+        memberService.joinV1("tracing_joinV1");
+
+        TxSpan root = rootOf(exporter.getSpans());
+        List<TxSpan> trace = exporter.getTrace(root.getTraceId());
+
+        TxSpan outerPhysical = find(trace, TxSpan.Type.PHYSICAL, "MemberService.joinV1");
+        TxSpan memberSave = find(trace, TxSpan.Type.LOGICAL, "MemberRepository.save");
+        TxSpan logSave = find(trace, TxSpan.Type.LOGICAL, "LogRepository.save");
+        TxSpan logPhysical = find(trace, TxSpan.Type.PHYSICAL, "LogRepository.save");
+
+        //회원 저장은 바깥 물리 트랜잭션에 참여한다.
+        assertThat(root.getMode()).isEqualTo(TxSpan.Mode.NEW);
+        assertThat(root.getPhysicalId()).isEqualTo(outerPhysical.getId());
+        assertThat(memberSave.getMode()).isEqualTo(TxSpan.Mode.JOIN);
+        assertThat(memberSave.getParentId()).isEqualTo(root.getId());
+        assertThat(memberSave.getPhysicalId()).isEqualTo(outerPhysical.getId());
+
+        //로그 저장은 새 물리 트랜잭션을 다른 커넥션으로 시작하고, 바깥 물리 트랜잭션은 보류된다.
+        assertThat(logSave.getMode()).isEqualTo(TxSpan.Mode.NEW);
+        assertThat(logSave.getPropagation()).isEqualTo("REQUIRES_NEW");
+        assertThat(logPhysical.getParentId()).isEqualTo(logSave.getId());
+        assertThat(logSave.getPhysicalId()).isEqualTo(logPhysical.getId());
+        assertThat(logPhysical.getConnection()).isNotNull().isNotEqualTo(outerPhysical.getConnection());
+        assertThat(outerPhysical.isSuspended()).isTrue();
+        assertThat(outerPhysical.getSuspendedDuration()).isPositive();
+
+        assertThat(trace).allMatch(span -> span.getOutcome() == TxSpan.Outcome.COMMIT);
+    }
+
+    @Test
+    void requiresNewRollbackDoesNotAffectOuter() {
+        memberService.joinV2("로그예외_tracing_joinV2");
+
+        TxSpan root = rootOf(exporter.getSpans());
+        List<TxSpan> trace = exporter.getTrace(root.getTraceId());
+
+        assertThat(find(trace, TxSpan.Type.PHYSICAL, "LogRepository.save").getOutcome()).isEqualTo(TxSpan.Outcome.ROLLBACK);
+        assertThat(find(trace, TxSpan.Type.PHYSICAL, "MemberService.joinV2").getOutcome()).isEqualTo(TxSpan.Outcome.COMMIT);
+    }
+
+    private TxSpan rootOf(List<TxSpan> spans) {
+        return spans.stream().filter(span -> span.getParentId() == null).reduce((a, b) -> b).orElseThrow();
+    }
+
+    private TxSpan find(List<TxSpan> spans, TxSpan.Type type, String name) {
+        return spans.stream()
+                .filter(span -> span.getType() == type && span.getName().endsWith(name))
+                .findFirst().orElseThrow();
+    }
+}
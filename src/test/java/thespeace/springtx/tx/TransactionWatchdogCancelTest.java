@@ -0,0 +1,88 @@
+package thespeace.springtx.tx;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * <h1>감시 스레드의 트랜잭션 취소</h1>
+ * cancel=true 이면 threshold 를 넘긴 트랜잭션의 커넥션을 끊어 실행 중인 쿼리를 멈춘다.
+ * 끊긴 커넥션은 풀에서 제거되므로 이후 트랜잭션은 정상 커넥션을 받는다.
+ */
+@SpringBootTest(properties = {
+        "springtx.tx.watchdog.threshold=200ms",
+        "springtx.tx.watchdog.interval=50ms",
+        "springtx.tx.watchdog.cancel=true"
+})
+class TransactionWatchdogCancelTest {
+
+    @Autowired SlowService slowService;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    void cancelRunningQuery() {
+        //given
+        long start = System.nanoTime();
+
+        //when: 취소하지 않으면 몇 분이 걸리는 쿼리
+        assertThatThrownBy(() -> slowService.longQuery()).isInstanceOf(RuntimeException.class);
+
+        //then
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(10));
+        for (int i = 0; i < 20; i++) {
+            assertThat(slowService.count()).isNotNegative();
+        }
+    }
+
+    @Test
+    void cancelledTransactionDoesNotCommit() {
+        //when
+        assertThatThrownBy(() -> slowService.insertAndWait("watchdog_cancel")).isInstanceOf(RuntimeException.class);
+
+        //then
+        assertThat(jdbcTemplate.queryForObject("select count(*) from member where username = ?", Integer.class,
+                "watchdog_cancel")).isZero();
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        SlowService slowService(JdbcTemplate jdbcTemplate) {
+            return new SlowService(jdbcTemplate);
+        }
+    }
+
+    @RequiredArgsConstructor
+    static class SlowService {
+
+        private final JdbcTemplate jdbcTemplate;
+
+        @Transactional
+        public long longQuery() {
+            return jdbcTemplate.queryForObject(
+                    "select count(*) from system_range(1, 100000) a, system_range(1, 100000) b", Long.class);
+        }
+
+        @Transactional
+        public void insertAndWait(String username) throws InterruptedException {
+            jdbcTemplate.update("insert into member(id, username) values (next value for member_seq, ?)", username);
+            Thread.sleep(500);
+        }
+
+        @Transactional(readOnly = true)
+        public long count() {
+            return jdbcTemplate.queryForObject("select count(*) from member", Long.class);
+        }
+    }
+}
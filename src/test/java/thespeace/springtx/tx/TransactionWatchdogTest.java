@@ -0,0 +1,92 @@
+package thespeace.springtx.tx;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import thespeace.springtx.propagation.Member;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * <h1>트랜잭션 타임아웃과 감시</h1>
+ * <ul>
+ *     <li>타임아웃이 지난 트랜잭션에서 실행하는 쿼리는 실패한다.</li>
+ *     <li>오래 열려 있는 트랜잭션은 감시 스레드가 전파 체인과 함께 보고한다.</li>
+ * </ul>
+ */
+@SpringBootTest(properties = {
+        "springtx.tx.watchdog.threshold=200ms",
+        "springtx.tx.watchdog.interval=50ms"
+})
+class TransactionWatchdogTest {
+
+    @Autowired TransactionWatchdog watchdog;
+    @Autowired OuterService outerService;
+
+    @Test
+    void timeoutAppliesToQuery() {
+        assertThatThrownBy(() -> outerService.queryAfterTimeout())
+                .isInstanceOf(TransactionTimedOutException.class);
+    }
+
+    @Test
+    void reportSlowTransactionWithPropagationChain() throws InterruptedException {
+        outerService.callSlowInner();
+
+        TransactionWatchdog.SlowTransaction report = watchdog.recentReports().stream()
+                .filter(slow -> slow.name().endsWith("InnerService.slow"))
+                .findFirst().orElseThrow();
+        assertThat(report.chain()).hasSize(2);
+        assertThat(report.chain().get(0)).endsWith("OuterService.callSlowInner");
+        assertThat(report.stackTrace()).isNotEmpty();
+        assertThat(watchdog.activeCount()).isZero();
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        InnerService innerService() {
+            return new InnerService();
+        }
+
+        @Bean
+        OuterService outerService(EntityManager em, InnerService innerService) {
+            return new OuterService(em, innerService);
+        }
+    }
+
+    @RequiredArgsConstructor
+    static class OuterService {
+
+        private final EntityManager em;
+        private final InnerService innerService;
+
+        @Transactional
+        public void callSlowInner() throws InterruptedException {
+            innerService.slow();
+        }
+
+        @Transactional(timeout = 1)
+        public void queryAfterTimeout() throws InterruptedException {
+            Thread.sleep(1100);
+            em.createQuery("select m from Member m", Member.class).getResultList();
+        }
+    }
+
+    static class InnerService {
+
+        @Transactional(propagation = Propagation.REQUIRES_NEW)
+        public void slow() throws InterruptedException {
+            Thread.sleep(400);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package thespeace.springtx.tx;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <h1>작업별 트랜잭션 정책</h1>
+ * springtx.tx.policy 설정이 @Transactional 어노테이션의 격리 수준, 읽기 전용 값보다 우선한다.
+ */
+@SpringBootTest(properties = {
+        "springtx.tx.policy.operations[test.policy].isolation=SERIALIZABLE",
+        "springtx.tx.policy.operations[test.policy].read-only=true"
+})
+class TxPolicyTest {
+
+    @Autowired PolicyService policyService;
+
+    @Test
+    void overrideByConfiguration() {
+        assertThat(policyService.withPolicy()).isEqualTo(new Attributes(TransactionDefinition.ISOLATION_SERIALIZABLE, true));
+    }
+
+    @Test
+    void keepAnnotationWithoutPolicy() {
+        assertThat(policyService.withoutPolicy()).isEqualTo(new Attributes(TransactionDefinition.ISOLATION_READ_COMMITTED, false));
+        assertThat(policyService.unknownPolicy()).isEqualTo(new Attributes(null, false));
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        PolicyService policyService() {
+            return new PolicyService();
+        }
+    }
+
+    record Attributes(Integer isolation, boolean readOnly) {
+
+        static Attributes current() {
+            return new Attributes(TransactionSynchronizationManager.getCurrentTransactionIsolationLevel(),
+                    TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+        }
+    }
+
+    static class PolicyService {
+
+        @TxPolicy("test.policy")
+        @Transactional
+        public Attributes withPolicy() {
+            return Attributes.current();
+        }
+
+        @Transactional(isolation = org.springframework.transaction.annotation.Isolation.READ_COMMITTED)
+        public Attributes withoutPolicy() {
+            return Attributes.current();
+        }
+
+        @TxPolicy("test.unknown")
+        @Transactional
+        public Attributes unknownPolicy() {
+            return Attributes.current();
+        }
+    }
+}